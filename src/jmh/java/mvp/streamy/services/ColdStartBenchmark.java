@@ -0,0 +1,59 @@
+package mvp.streamy.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import mvp.streamy.Repository.SafariScenarios;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.SafariAnimal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The first submission in a fresh JVM: one measured call per fork, without warm-up, so javac,
+ * class loading and the JIT are all cold.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class ColdStartBenchmark {
+
+  @Param({"true", "false"})
+  public boolean interpreter;
+
+  private StreamPipelineEngineService v1;
+  private StreamPipelineEngineServiceV2 v2;
+
+  @Setup
+  public void setUp() {
+    EngineProperties properties = new EngineProperties();
+    properties.getInterpreter().setEnabled(interpreter);
+    v1 = new StreamPipelineEngineService(
+        new PipelineCompiler(properties.getCompiler()),
+        new PipelineClassDefiner(properties.getCompiler(), new SimpleMeterRegistry())
+    );
+    v2 = new StreamPipelineEngineServiceV2(properties);
+  }
+
+  @Benchmark
+  public List<Integer> v1FirstExecute() {
+    return v1.execute(List.of(3, 1, 2), EnginePhasesBenchmark.V1_PIPELINE);
+  }
+
+  @Benchmark
+  public Object v2FirstExecute() {
+    return v2.execute(SafariScenarios.BASE_ANIMALS, EnginePhasesBenchmark.V2_PIPELINE, SafariAnimal.class);
+  }
+}
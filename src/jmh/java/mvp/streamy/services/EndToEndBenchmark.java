@@ -0,0 +1,74 @@
+package mvp.streamy.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import mvp.streamy.Repository.SafariScenarios;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.SafariAnimal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole submissions of a riddle-sized input through the public {@code execute} methods, once
+ * the JVM and javac are warm. {@code v2CacheMiss} submits a different pipeline every time, so
+ * it measures a full compilation (or, with the interpreter on, a parse).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmark {
+
+  private static final List<Integer> INTEGERS = List.of(5, 3, 8, 1, 9, 2, 7, 3, 5, 1);
+
+  @Param({"true", "false"})
+  public boolean interpreter;
+
+  private StreamPipelineEngineService v1;
+  private StreamPipelineEngineServiceV2 v2;
+  private long missCounter;
+
+  @Setup
+  public void setUp() {
+    EngineProperties properties = new EngineProperties();
+    properties.getInterpreter().setEnabled(interpreter);
+    properties.getCompiler().setBatchWindow(Duration.ZERO);
+
+    PipelineCompiler compiler = new PipelineCompiler(properties.getCompiler());
+    compiler.warmUp();
+    v1 = new StreamPipelineEngineService(
+        compiler,
+        new PipelineClassDefiner(properties.getCompiler(), new SimpleMeterRegistry())
+    );
+    v2 = new StreamPipelineEngineServiceV2(properties);
+  }
+
+  @Benchmark
+  public List<Integer> v1Execute() {
+    return v1.execute(INTEGERS, EnginePhasesBenchmark.V1_PIPELINE);
+  }
+
+  @Benchmark
+  public Object v2CacheHit() {
+    return v2.execute(SafariScenarios.BASE_ANIMALS, EnginePhasesBenchmark.V2_PIPELINE, SafariAnimal.class);
+  }
+
+  @Benchmark
+  public Object v2CacheMiss() {
+    String pipeline = ".sorted(SafariAnimal.BY_AGE).limit(" + (++missCounter) + ").map(SafariAnimal::name).toList()";
+    return v2.execute(SafariScenarios.BASE_ANIMALS, pipeline, SafariAnimal.class);
+  }
+}
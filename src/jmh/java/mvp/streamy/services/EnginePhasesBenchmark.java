@@ -0,0 +1,125 @@
+package mvp.streamy.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.config.EngineProperties.ClassDefinition;
+import mvp.streamy.models.SafariAnimal;
+import mvp.streamy.services.PipelineCompiler.CompilationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The steps from pipeline text to a loaded class, one benchmark per step and engine: validation,
+ * source generation, javac and class definition. Runs against warm javac contexts; see
+ * {@link ColdStartBenchmark} for the first submission after startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnginePhasesBenchmark {
+
+  /**
+   * Method references only, so {@code HIDDEN} really defines a hidden class
+   */
+  static final String V1_PIPELINE = ".sorted().distinct()";
+  static final String V2_PIPELINE = ".sorted(SafariAnimal.BY_AGE).map(SafariAnimal::name).toList()";
+
+  @Param({"HIDDEN", "ISOLATED_LOADER"})
+  public ClassDefinition classDefinition;
+
+  private StreamPipelineEngineService v1;
+  private StreamPipelineEngineServiceV2 v2;
+  private PipelineCompiler compiler;
+  private PipelineClassDefiner definer;
+
+  private String v1ClassName;
+  private String v1Source;
+  private Map<String, byte[]> v1Classes;
+  private String v2ClassName;
+  private String v2TypeImport;
+  private String v2Source;
+  private Map<String, byte[]> v2Classes;
+
+  @Setup
+  public void setUp() {
+    EngineProperties properties = new EngineProperties();
+    properties.getCompiler().setClassDefinition(classDefinition);
+
+    compiler = new PipelineCompiler(properties.getCompiler());
+    compiler.warmUp();
+    definer = new PipelineClassDefiner(properties.getCompiler(), new SimpleMeterRegistry());
+    v1 = new StreamPipelineEngineService(compiler, definer);
+    v2 = new StreamPipelineEngineServiceV2(properties);
+
+    v1ClassName = definer.packageName() + ".StreamProgram";
+    v1Source = v1.generateSource(definer.packageName(), V1_PIPELINE);
+    v1Classes = compileOrFail(v1ClassName, v1Source);
+
+    v2ClassName = definer.packageName() + ".StreamProgramBenchmark";
+    v2TypeImport = v2.getTypeImport(SafariAnimal.class);
+    v2Source = v2.generateSource(v2ClassName, V2_PIPELINE, v2TypeImport, SafariAnimal.class.getSimpleName());
+    v2Classes = compileOrFail(v2ClassName, v2Source);
+  }
+
+  @Benchmark
+  public void v1Validate() {
+    v1.validatePipeline(V1_PIPELINE);
+  }
+
+  @Benchmark
+  public void v2Validate() {
+    v2.validatePipeline(V2_PIPELINE, SafariAnimal.class);
+  }
+
+  @Benchmark
+  public String v1GenerateSource() {
+    return v1.generateSource(definer.packageName(), V1_PIPELINE);
+  }
+
+  @Benchmark
+  public String v2GenerateSource() {
+    return v2.generateSource(v2ClassName, V2_PIPELINE, v2TypeImport, SafariAnimal.class.getSimpleName());
+  }
+
+  @Benchmark
+  public CompilationResult v1Compile() {
+    return compiler.compile(Map.of(v1ClassName, v1Source));
+  }
+
+  @Benchmark
+  public CompilationResult v2Compile() {
+    return compiler.compile(Map.of(v2ClassName, v2Source));
+  }
+
+  @Benchmark
+  public Class<?> v1DefineClass() throws ReflectiveOperationException {
+    return definer.define(v1ClassName, v1Classes);
+  }
+
+  @Benchmark
+  public Class<?> v2DefineClass() throws ReflectiveOperationException {
+    return definer.define(v2ClassName, v2Classes);
+  }
+
+  private Map<String, byte[]> compileOrFail(String className, String source) {
+    CompilationResult result = compiler.compile(Map.of(className, source));
+    if (!result.success) {
+      throw new IllegalStateException(result.errorMessage());
+    }
+    return result.compiledClasses;
+  }
+}
@@ -0,0 +1,147 @@
+package mvp.streamy.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import mvp.streamy.Repository.SafariDatasetGenerator;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.SafariAnimal;
+import mvp.streamy.services.PipelineCompiler.CompilationResult;
+import mvp.streamy.services.interpreter.InterpretedPipeline;
+import mvp.streamy.services.interpreter.PipelineInterpreter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Running an already loaded pipeline and grading its output, per dataset size: the generated
+ * program of either engine, the interpreter, and the result comparison of
+ * {@link StreamGameService} before ({@link ResultValueFactory} + {@code equals}) and after
+ * ({@link ResultFingerprint}) fingerprinting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class InvocationBenchmark {
+
+  @Param({"10", "10000", "1000000"})
+  public int size;
+
+  /**
+   * {@code columnar} is what generated riddles use, {@code records} a plain list of records
+   */
+  @Param({"columnar", "records"})
+  public String layout;
+
+  private List<SafariAnimal> animals;
+  private List<Integer> integers;
+
+  private Function<List<Integer>, List<Integer>> v1Program;
+  private Function<List<?>, Object> v2Program;
+  private InterpretedPipeline interpreted;
+
+  private Object expected;
+  private Object actual;
+  private Object mismatched;
+  private ResultFingerprint fingerprint;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() throws ReflectiveOperationException {
+    animals = SafariDatasetGenerator.generate(42, size);
+    if (layout.equals("records")) {
+      animals = new ArrayList<>(animals);
+    }
+    integers = IntStream.range(0, size).map(i -> (int) ((i * 7919L) % size)).boxed().toList();
+
+    EngineProperties properties = new EngineProperties();
+    PipelineCompiler compiler = new PipelineCompiler(properties.getCompiler());
+    PipelineClassDefiner definer =
+        new PipelineClassDefiner(properties.getCompiler(), new SimpleMeterRegistry());
+    StreamPipelineEngineService v1 = new StreamPipelineEngineService(compiler, definer);
+    StreamPipelineEngineServiceV2 v2 = new StreamPipelineEngineServiceV2(properties);
+
+    String v1ClassName = definer.packageName() + ".StreamProgram";
+    v1Program = (Function<List<Integer>, List<Integer>>) instantiate(compiler, definer, v1ClassName,
+        v1.generateSource(definer.packageName(), EnginePhasesBenchmark.V1_PIPELINE));
+
+    String v2ClassName = definer.packageName() + ".StreamProgramBenchmark";
+    v2Program = (Function<List<?>, Object>) instantiate(compiler, definer, v2ClassName,
+        v2.generateSource(v2ClassName, EnginePhasesBenchmark.V2_PIPELINE,
+            v2.getTypeImport(SafariAnimal.class), SafariAnimal.class.getSimpleName()));
+
+    interpreted = new PipelineInterpreter()
+        .parse(EnginePhasesBenchmark.V2_PIPELINE, SafariAnimal.class)
+        .orElseThrow();
+
+    expected = v2Program.apply(animals);
+    actual = interpreted.run(animals);
+    List<Object> differentFirst = new ArrayList<>((List<?>) actual);
+    differentFirst.set(0, "someone else");
+    mismatched = differentFirst;
+    fingerprint = ResultFingerprint.of(expected);
+  }
+
+  @Benchmark
+  public List<Integer> v1Invoke() {
+    return v1Program.apply(integers);
+  }
+
+  @Benchmark
+  public Object v2InvokeCompiled() {
+    return v2Program.apply(animals);
+  }
+
+  @Benchmark
+  public Object v2InvokeInterpreted() {
+    return interpreted.run(animals);
+  }
+
+  @Benchmark
+  public boolean resultValueEquality() {
+    return ResultValueFactory.from(actual).equals(ResultValueFactory.from(expected));
+  }
+
+  @Benchmark
+  public boolean resultValueEqualityFirstMismatch() {
+    return ResultValueFactory.from(mismatched).equals(ResultValueFactory.from(expected));
+  }
+
+  @Benchmark
+  public boolean fingerprintMatch() {
+    return fingerprint.matches(actual);
+  }
+
+  @Benchmark
+  public boolean fingerprintFirstMismatch() {
+    return fingerprint.matches(mismatched);
+  }
+
+  private static Object instantiate(
+      PipelineCompiler compiler,
+      PipelineClassDefiner definer,
+      String className,
+      String source
+  ) throws ReflectiveOperationException {
+    CompilationResult result = compiler.compile(Map.of(className, source));
+    if (!result.success) {
+      throw new IllegalStateException(result.errorMessage());
+    }
+    return definer.define(className, result.compiledClasses).getDeclaredConstructor().newInstance();
+  }
+}
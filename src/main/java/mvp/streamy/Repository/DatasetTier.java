@@ -0,0 +1,21 @@
+package mvp.streamy.Repository;
+
+/**
+ * Sizes of the generated datasets riddles can run on.
+ */
+public enum DatasetTier {
+
+  THOUSAND(1_000),
+  MILLION(1_000_000),
+  TEN_MILLION(10_000_000);
+
+  private final int size;
+
+  DatasetTier(int size) {
+    this.size = size;
+  }
+
+  public int size() {
+    return size;
+  }
+}
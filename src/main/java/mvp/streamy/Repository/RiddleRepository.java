@@ -1,22 +1,60 @@
 package mvp.streamy.Repository;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import mvp.streamy.models.Lazy;
 import mvp.streamy.models.Riddle;
+import mvp.streamy.models.RiddleDataset;
 import mvp.streamy.models.SafariAnimal;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class RiddleRepository {
 
+  private static final int[] RANDOM_DATASET_SIZES = {20, 200, 2_000};
+
+  /**
+   * One known good pipeline per riddle, the same solutions {@link SafariScenarios} computes the
+   * expected outputs with. Never sent to clients; the startup warm-up grades them.
+   */
+  private static final Map<String, String> REFERENCE_PIPELINES = Map.of(
+      "1", ".sorted(Comparator.comparing(SafariAnimal::age)).toList()",
+      "2", ".distinct().toList()",
+      "4", ".max(Comparator.comparing(SafariAnimal::weight)).orElseThrow()",
+      "5", ".mapToInt(SafariAnimal::weight).sum()",
+      "6", ".filter(SafariAnimal::predator).toList()",
+      "7", """
+          .collect(Collectors.groupingBy(
+              SafariAnimal::species,
+              Collectors.collectingAndThen(
+                  Collectors.maxBy(Comparator.comparing(SafariAnimal::weight)),
+                  Optional::get
+              )
+          ))""",
+      "8", """
+          .collect(Collectors.groupingBy(a -> {
+            int w = a.weight();
+            if (w <= 200) return "0-200";
+            if (w <= 500) return "200-500";
+            if (w <= 1000) return "500-1000";
+            return "1000+";
+          }))""",
+      "9", ".filter(SafariAnimal::predator).count()"
+  );
+
   private final Map<String, Riddle> riddles = Map.of(
       "1", new Riddle(
           "1",
           "Order animals by age (youngest first)",
           SafariAnimal.class,
           SafariScenarios.BASE_ANIMALS,
-          SafariScenarios.orderedByAge()
+          SafariScenarios.orderedByAge(),
+          hiddenDatasets("1", SafariScenarios.BASE_ANIMALS, SafariScenarios::orderedByAge),
+          SafariAnimal::age
       ),
 
       "2", new Riddle(
@@ -24,7 +62,13 @@ public class RiddleRepository {
           "Remove duplicate animals",
           SafariAnimal.class,
           SafariScenarios.WITH_DUPLICATES,
-          SafariScenarios.withoutDuplicates()
+          SafariScenarios.withoutDuplicates(),
+          hiddenDatasets(
+              "2",
+              SafariScenarios.WITH_DUPLICATES,
+              SafariScenarios::withoutDuplicates,
+              SafariScenarios::withRepeats
+          )
       ),
 
       "4", new Riddle(
@@ -32,7 +76,9 @@ public class RiddleRepository {
           "Find the heaviest animal",
           SafariAnimal.class,
           SafariScenarios.BASE_ANIMALS,
-          SafariScenarios.heaviestAnimal()
+          SafariScenarios.heaviestAnimal(),
+          hiddenDatasets("4", SafariScenarios.BASE_ANIMALS, SafariScenarios::heaviestAnimal),
+          SafariAnimal::weight
       ),
 
       "5", new Riddle(
@@ -40,7 +86,8 @@ public class RiddleRepository {
           "Get the weight of all animals combined",
           SafariAnimal.class,
           SafariScenarios.BASE_ANIMALS,
-          SafariScenarios.sumAnimalWeight()
+          SafariScenarios.sumAnimalWeight(),
+          hiddenDatasets("5", SafariScenarios.BASE_ANIMALS, SafariScenarios::sumAnimalWeight)
       ),
 
       "6", new Riddle(
@@ -48,7 +95,8 @@ public class RiddleRepository {
           "Find all predators",
           SafariAnimal.class,
           SafariScenarios.BASE_ANIMALS,
-          SafariScenarios.predators()
+          SafariScenarios.predators(),
+          hiddenDatasets("6", SafariScenarios.BASE_ANIMALS, SafariScenarios::predators)
       ),
 
       "7", new Riddle(
@@ -56,23 +104,104 @@ public class RiddleRepository {
           "Find the heaviest animal per species",
           SafariAnimal.class,
           SafariScenarios.BASE_ANIMALS,
-          SafariScenarios.heaviestPerSpecies()
+          SafariScenarios.heaviestPerSpecies(),
+          hiddenDatasets("7", SafariScenarios.BASE_ANIMALS, SafariScenarios::heaviestPerSpecies),
+          animal -> List.of(animal.species(), animal.weight())
       ),
       "8", new Riddle(
           "8",
           "Group animals into weight ranges: 0-200, 200-500, 500-1000, 1000+",
           SafariAnimal.class,
           SafariScenarios.BASE_ANIMALS,
-          SafariScenarios.groupAnimalsByWeightRange()
+          SafariScenarios.groupAnimalsByWeightRange(),
+          hiddenDatasets("8", SafariScenarios.BASE_ANIMALS, SafariScenarios::groupAnimalsByWeightRange)
+      ),
+      "9", onGeneratedDataset(
+          "9",
+          "Count the predators among 1,000 animals",
+          DatasetTier.THOUSAND,
+          SafariScenarios::predatorCount
       )
   );
 
+  /**
+   * All riddles in catalog order: by id, numerically. Built once; riddles never change at
+   * runtime.
+   */
+  private final List<Riddle> catalog = riddles.values().stream()
+      .sorted(Comparator.comparing((Riddle riddle) -> riddle.id().length()).thenComparing(Riddle::id))
+      .toList();
 
+  /**
+   * Datasets every riddle on the base animals is also graded on, so a pipeline that only fits
+   * the visible input does not pass: the visible input in reverse order, and random populations
+   * of growing size. Seeds are derived from the riddle id, so the datasets are the same on every
+   * instance. {@code shape} adapts the random populations to the riddle, e.g. adds duplicates.
+   *
+   * <p>The random populations have many animals of the same age or weight, which the riddle
+   * texts do not say how to order. Riddles that order or pick by such a value name it as their
+   * {@link Riddle#tieKey()}, so any order among equal animals is graded as correct.
+   */
+  private static List<RiddleDataset> hiddenDatasets(
+      String riddleId,
+      List<SafariAnimal> visibleInput,
+      Function<List<SafariAnimal>, Object> reference,
+      UnaryOperator<List<SafariAnimal>> shape
+  ) {
+    List<RiddleDataset> datasets = new ArrayList<>();
+    datasets.add(RiddleDataset.of("reversed", visibleInput.reversed(), reference));
+    for (int i = 0; i < RANDOM_DATASET_SIZES.length; i++) {
+      long seed = SafariScenarios.GENERATED_SEED * 31 + riddleId.hashCode() * 7L + i;
+      List<SafariAnimal> input = shape.apply(SafariScenarios.random(seed, RANDOM_DATASET_SIZES[i]));
+      datasets.add(RiddleDataset.of("random-" + (i + 1), input, reference));
+    }
+    return List.copyOf(datasets);
+  }
+
+  private static List<RiddleDataset> hiddenDatasets(
+      String riddleId,
+      List<SafariAnimal> visibleInput,
+      Function<List<SafariAnimal>, Object> reference
+  ) {
+    return hiddenDatasets(riddleId, visibleInput, reference, UnaryOperator.identity());
+  }
+
+  /**
+   * Riddle on a generated dataset. Neither the animals nor the expected output are computed
+   * before the riddle is first used.
+   */
+  private static Riddle onGeneratedDataset(
+      String id,
+      String description,
+      DatasetTier tier,
+      Function<List<SafariAnimal>, Object> solution
+  ) {
+    List<SafariAnimal> input = SafariScenarios.generated(tier);
+    return new Riddle(
+        id,
+        description,
+        SafariAnimal.class,
+        input,
+        Lazy.of(() -> solution.apply(input))
+    );
+  }
+
+
+  /**
+   * All riddles in catalog order, as an unmodifiable list that is shared between callers
+   */
   public List<Riddle> findAll() {
-    return new ArrayList<>(riddles.values());
+    return catalog;
   }
 
   public Riddle findById(String id) {
     return riddles.get(id);
   }
+
+  /**
+   * Reference pipelines by riddle id
+   */
+  public Map<String, String> referencePipelines() {
+    return REFERENCE_PIPELINES;
+  }
 }
\ No newline at end of file
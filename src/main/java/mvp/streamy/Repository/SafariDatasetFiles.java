@@ -0,0 +1,150 @@
+package mvp.streamy.Repository;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import mvp.streamy.models.MappedSafariAnimals;
+import mvp.streamy.models.SafariAnimal;
+
+/**
+ * Binary file format for riddle datasets, read by mapping the file instead of loading it.
+ *
+ * <p>All numbers are little-endian:
+ * <pre>
+ *   int    magic "SAFA", int version, int animal count, int name count, int columns offset
+ *   names  per name: unsigned short byte length, UTF-8 bytes
+ *   (padding to a multiple of 8)
+ *   int[]  ages, int[] weights, short[] name indexes,
+ *   byte[] species ordinals, byte[] animal class ordinals, byte[] predator flags
+ * </pre>
+ */
+public final class SafariDatasetFiles {
+
+  private static final int MAGIC = 0x41464153; // "SAFA"
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+  private static final ValueLayout.OfInt INT =
+      ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfShort SHORT =
+      ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+  private SafariDatasetFiles() {
+  }
+
+  /**
+   * Writes the animals to a temporary file next to {@code file} and moves it into place, so
+   * other processes either see the complete dataset or none.
+   */
+  public static void write(Path file, List<SafariAnimal> animals) throws IOException {
+    Map<String, Integer> nameIds = new LinkedHashMap<>();
+    for (SafariAnimal animal : animals) {
+      nameIds.putIfAbsent(animal.name(), nameIds.size());
+    }
+    if (nameIds.size() > 1 << 16) {
+      throw new IllegalArgumentException("At most 65536 distinct names, got " + nameIds.size());
+    }
+
+    byte[][] names = nameIds.keySet().stream()
+        .map(name -> name.getBytes(StandardCharsets.UTF_8))
+        .toArray(byte[][]::new);
+    long dictionarySize = 0;
+    for (byte[] name : names) {
+      dictionarySize += Short.BYTES + name.length;
+    }
+    long columnsOffset = align(HEADER_SIZE + dictionarySize, 8);
+    int count = animals.size();
+    long fileSize = columnsOffset + MappedSafariAnimals.columnsSize(count);
+
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE);
+         Arena arena = Arena.ofConfined()) {
+
+      MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize, arena);
+      segment.set(INT, 0, MAGIC);
+      segment.set(INT, 4, VERSION);
+      segment.set(INT, 8, count);
+      segment.set(INT, 12, names.length);
+      segment.set(INT, 16, Math.toIntExact(columnsOffset));
+
+      long position = HEADER_SIZE;
+      for (byte[] name : names) {
+        segment.set(SHORT, position, (short) name.length);
+        MemorySegment.copy(name, 0, segment, ValueLayout.JAVA_BYTE, position + Short.BYTES, name.length);
+        position += Short.BYTES + name.length;
+      }
+
+      long ages = columnsOffset;
+      long weights = ages + Integer.BYTES * (long) count;
+      long nameIndexes = weights + Integer.BYTES * (long) count;
+      long species = nameIndexes + Short.BYTES * (long) count;
+      long animalClasses = species + count;
+      long predators = animalClasses + count;
+      for (int i = 0; i < count; i++) {
+        SafariAnimal animal = animals.get(i);
+        segment.set(INT, ages + (long) Integer.BYTES * i, animal.age());
+        segment.set(INT, weights + (long) Integer.BYTES * i, animal.weight());
+        segment.set(SHORT, nameIndexes + (long) Short.BYTES * i, (short) (int) nameIds.get(animal.name()));
+        segment.set(ValueLayout.JAVA_BYTE, species + i, (byte) animal.species().ordinal());
+        segment.set(ValueLayout.JAVA_BYTE, animalClasses + i, (byte) animal.animalClass().ordinal());
+        segment.set(ValueLayout.JAVA_BYTE, predators + i, (byte) (animal.predator() ? 1 : 0));
+      }
+      segment.force();
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temporary);
+      throw e;
+    }
+    Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Maps a dataset file read-only. The mapping is released once the returned list is no
+   * longer reachable.
+   */
+  public static MappedSafariAnimals map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < HEADER_SIZE) {
+        throw new IOException("Not a safari dataset: " + file);
+      }
+      MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize, Arena.ofAuto());
+
+      if (segment.get(INT, 0) != MAGIC || segment.get(INT, 4) != VERSION) {
+        throw new IOException("Not a safari dataset (version " + VERSION + "): " + file);
+      }
+      int count = segment.get(INT, 8);
+      int nameCount = segment.get(INT, 12);
+      long columnsOffset = segment.get(INT, 16);
+      if (columnsOffset + MappedSafariAnimals.columnsSize(count) > fileSize) {
+        throw new IOException("Truncated safari dataset: " + file);
+      }
+
+      String[] names = new String[nameCount];
+      long position = HEADER_SIZE;
+      for (int i = 0; i < nameCount; i++) {
+        int length = Short.toUnsignedInt(segment.get(SHORT, position));
+        byte[] bytes = segment.asSlice(position + Short.BYTES, length).toArray(ValueLayout.JAVA_BYTE);
+        names[i] = new String(bytes, StandardCharsets.UTF_8);
+        position += Short.BYTES + length;
+      }
+
+      return new MappedSafariAnimals(segment, count, names, columnsOffset);
+    }
+  }
+
+  private static long align(long offset, int alignment) {
+    return (offset + alignment - 1) / alignment * alignment;
+  }
+}
@@ -0,0 +1,122 @@
+package mvp.streamy.Repository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import mvp.streamy.models.AnimalClass;
+import mvp.streamy.models.AnimalSpecies;
+import mvp.streamy.models.ColumnarSafariAnimals;
+import mvp.streamy.models.SafariAnimal;
+
+/**
+ * Generates large, reproducible populations of {@link SafariAnimal}s.
+ *
+ * <p>The population is cut into fixed-size chunks, and every chunk gets its own
+ * {@link SplittableRandom} split off the seeded root in chunk order. Chunks are then filled in
+ * parallel, so the same seed and size always give the same list, whatever the number of cores.
+ *
+ * <p>Species occur with different frequencies. Ages lean towards young animals, and weights
+ * scatter around a species' adult weight, scaled down for juveniles.
+ *
+ * <p>Animals are written straight into a {@link ColumnarSafariAnimals}, so no record is
+ * allocated while generating.
+ */
+public final class SafariDatasetGenerator {
+
+  private static final int CHUNK_SIZE = 16_384;
+
+  private static final String[] GIVEN_NAMES = {
+      "Abeni", "Amani", "Asha", "Baraka", "Bahati", "Chaka", "Dalila", "Eshe",
+      "Faraji", "Gamba", "Hasani", "Imani", "Jabari", "Jelani", "Kamaria", "Kito",
+      "Lulu", "Makena", "Malaika", "Nuru", "Neema", "Obi", "Pendo", "Rafiki",
+      "Rehema", "Sefu", "Shani", "Tamu", "Tumaini", "Upendo", "Wambui", "Zawadi"
+  };
+
+  private static final List<SpeciesProfile> PROFILES = List.of(
+      new SpeciesProfile(AnimalSpecies.LION, AnimalClass.MAMMAL, true, 8, 180, 30, 16),
+      new SpeciesProfile(AnimalSpecies.ELEPHANT, AnimalClass.MAMMAL, false, 10, 5000, 1200, 65),
+      new SpeciesProfile(AnimalSpecies.GIRAFFE, AnimalClass.MAMMAL, false, 10, 900, 200, 25),
+      new SpeciesProfile(AnimalSpecies.ZEBRA, AnimalClass.MAMMAL, false, 25, 320, 50, 25),
+      new SpeciesProfile(AnimalSpecies.HYENA, AnimalClass.MAMMAL, true, 12, 55, 10, 20),
+      new SpeciesProfile(AnimalSpecies.CROCODILE, AnimalClass.REPTILE, true, 10, 400, 150, 70),
+      new SpeciesProfile(AnimalSpecies.SNAKE, AnimalClass.REPTILE, true, 15, 5, 3, 20),
+      new SpeciesProfile(AnimalSpecies.LIZARD, AnimalClass.REPTILE, false, 10, 2, 1, 10)
+  );
+
+  /**
+   * Name dictionary of the generated datasets; the names of profile {@code i} start at
+   * {@code i * GIVEN_NAMES.length}
+   */
+  private static final String[] NAMES = PROFILES.stream()
+      .flatMap(profile -> Arrays.stream(GIVEN_NAMES).map(given -> given + " the " + profile.label()))
+      .toArray(String[]::new);
+
+  private static final int TOTAL_SHARE =
+      PROFILES.stream().mapToInt(SpeciesProfile::share).sum();
+
+  private SafariDatasetGenerator() {
+  }
+
+  public static ColumnarSafariAnimals generate(long seed, int size) {
+    ColumnarSafariAnimals.Builder animals = new ColumnarSafariAnimals.Builder(size, NAMES);
+    int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+    SplittableRandom root = new SplittableRandom(seed);
+    SplittableRandom[] randoms = new SplittableRandom[chunks];
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      randoms[chunk] = root.split();
+    }
+
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      int from = chunk * CHUNK_SIZE;
+      int to = Math.min(size, from + CHUNK_SIZE);
+      for (int i = from; i < to; i++) {
+        nextAnimal(animals, i, randoms[chunk]);
+      }
+    });
+
+    return animals.build();
+  }
+
+  private static void nextAnimal(ColumnarSafariAnimals.Builder animals, int index, SplittableRandom random) {
+    int profileIndex = pickSpecies(random.nextInt(TOTAL_SHARE));
+    SpeciesProfile profile = PROFILES.get(profileIndex);
+
+    double youth = random.nextDouble();
+    int age = 1 + (int) ((profile.lifespan() - 1) * youth * youth);
+    double growth = Math.min(1.0, 0.2 + 0.8 * age / (profile.lifespan() * 0.3));
+    int weight = (int) Math.max(1, Math.round(
+        (profile.adultWeight() + profile.weightSpread() * random.nextGaussian()) * growth));
+
+    int nameId = profileIndex * GIVEN_NAMES.length + random.nextInt(GIVEN_NAMES.length);
+    animals.set(index, nameId, profile.species(), profile.animalClass(), age, weight, profile.predator());
+  }
+
+  private static int pickSpecies(int ticket) {
+    for (int i = 0; i < PROFILES.size(); i++) {
+      ticket -= PROFILES.get(i).share();
+      if (ticket < 0) {
+        return i;
+      }
+    }
+    throw new IllegalStateException("Ticket out of range");
+  }
+
+  private record SpeciesProfile(
+      AnimalSpecies species,
+      AnimalClass animalClass,
+      boolean predator,
+      int share,
+      int adultWeight,
+      int weightSpread,
+      int lifespan
+  ) {
+
+    String label() {
+      String name = species.name().toLowerCase(Locale.ROOT);
+      return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+  }
+}
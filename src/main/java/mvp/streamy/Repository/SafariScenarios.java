@@ -1,13 +1,27 @@
 package mvp.streamy.Repository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Spliterator;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import mvp.streamy.models.AnimalClass;
 import mvp.streamy.models.AnimalSpecies;
+import mvp.streamy.models.Lazy;
 import mvp.streamy.models.SafariAnimal;
+import mvp.streamy.models.SafariAnimalColumns;
 
 public final class SafariScenarios {
 
@@ -38,35 +52,59 @@ public final class SafariScenarios {
   }
 
   public static int sumAnimalWeight() {
-    return BASE_ANIMALS.stream().mapToInt(SafariAnimal::weight).sum();
+    return sumAnimalWeight(BASE_ANIMALS);
+  }
+
+  public static int sumAnimalWeight(List<SafariAnimal> animals) {
+    return animals.stream().mapToInt(SafariAnimal::weight).sum();
   }
 
   public static List<SafariAnimal> orderedByAge() {
-    return BASE_ANIMALS.stream()
+    return orderedByAge(BASE_ANIMALS);
+  }
+
+  public static List<SafariAnimal> orderedByAge(List<SafariAnimal> animals) {
+    return animals.stream()
         .sorted(Comparator.comparing(SafariAnimal::age))
         .toList();
   }
 
   public static List<SafariAnimal> withoutDuplicates() {
-    return WITH_DUPLICATES.stream()
+    return withoutDuplicates(WITH_DUPLICATES);
+  }
+
+  public static List<SafariAnimal> withoutDuplicates(List<SafariAnimal> animals) {
+    return animals.stream()
         .distinct()
         .toList();
   }
 
   public static SafariAnimal heaviestAnimal() {
-    return BASE_ANIMALS.stream()
+    return heaviestAnimal(BASE_ANIMALS);
+  }
+
+  public static SafariAnimal heaviestAnimal(List<SafariAnimal> animals) {
+    return animals.stream()
         .max(Comparator.comparing(SafariAnimal::weight))
         .orElseThrow();
   }
 
   public static List<SafariAnimal> predators() {
-    return BASE_ANIMALS.stream()
+    return predators(BASE_ANIMALS);
+  }
+
+  public static List<SafariAnimal> predators(List<SafariAnimal> animals) {
+    return animals.stream()
         .filter(SafariAnimal::predator)
         .toList();
   }
 
   public static Map<AnimalSpecies, SafariAnimal> heaviestPerSpecies() {
-    return BASE_ANIMALS.stream()
+    return heaviestPerSpecies(BASE_ANIMALS);
+  }
+
+  public static Map<AnimalSpecies, SafariAnimal> heaviestPerSpecies(List<SafariAnimal> animals) {
+    return animals.stream()
         .collect(
             Collectors.groupingBy(
                 SafariAnimal::species,
@@ -79,7 +117,11 @@ public final class SafariScenarios {
   }
 
   public static Map<String, List<SafariAnimal>> groupAnimalsByWeightRange() {
-     return BASE_ANIMALS.stream().collect(Collectors.groupingBy(a -> {
+    return groupAnimalsByWeightRange(BASE_ANIMALS);
+  }
+
+  public static Map<String, List<SafariAnimal>> groupAnimalsByWeightRange(List<SafariAnimal> animals) {
+     return animals.stream().collect(Collectors.groupingBy(a -> {
       int w = a.weight();
       if (w <= 200) return "0-200";
       if (w <= 500) return "200-500";
@@ -100,4 +142,112 @@ public final class SafariScenarios {
       BASE_ANIMALS.get(3)
   );
 
+  /**
+   * Seed of the generated datasets, fixed so every instance grades against the same animals
+   */
+  public static final long GENERATED_SEED = 0x5AFA21L;
+
+  /**
+   * Where generated datasets are stored, overridable with {@code -Dstreamy.datasets.directory}
+   */
+  public static final Path DATASET_DIRECTORY = Path.of(System.getProperty(
+      "streamy.datasets.directory",
+      Path.of(System.getProperty("java.io.tmpdir"), "streamy-datasets").toString()
+  ));
+
+  private static final Map<DatasetTier, Lazy<List<SafariAnimal>>> GENERATED =
+      new EnumMap<>(DatasetTier.class);
+
+  static {
+    for (DatasetTier tier : DatasetTier.values()) {
+      GENERATED.put(tier, Lazy.of(() -> loadGenerated(tier)));
+    }
+  }
+
+  /**
+   * Generated dataset of the given tier. Nothing is read before the first access; the dataset
+   * is then mapped from {@link #DATASET_DIRECTORY}, after generating the file if needed, and
+   * shared by every riddle on that tier.
+   */
+  public static List<SafariAnimal> generated(DatasetTier tier) {
+    return new GeneratedDataset(GENERATED.get(tier));
+  }
+
+  private static List<SafariAnimal> loadGenerated(DatasetTier tier) {
+    Path file = DATASET_DIRECTORY.resolve(
+        "safari-%s-%x.bin".formatted(tier.name().toLowerCase(Locale.ROOT), GENERATED_SEED));
+    try {
+      if (!Files.exists(file)) {
+        SafariDatasetFiles.write(file, SafariDatasetGenerator.generate(GENERATED_SEED, tier.size()));
+      }
+      return SafariDatasetFiles.map(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot map dataset " + file, e);
+    }
+  }
+
+  /**
+   * Small random population for hidden test datasets. Unlike {@link #generated}, nothing is
+   * cached or written to disk.
+   */
+  public static List<SafariAnimal> random(long seed, int size) {
+    return SafariDatasetGenerator.generate(seed, size);
+  }
+
+  /**
+   * {@code animals} followed by every third of them once more.
+   */
+  public static List<SafariAnimal> withRepeats(List<SafariAnimal> animals) {
+    List<SafariAnimal> repeated = new ArrayList<>(animals);
+    for (int i = 0; i < animals.size(); i += 3) {
+      repeated.add(animals.get(i));
+    }
+    return List.copyOf(repeated);
+  }
+
+  public static long predatorCount(List<SafariAnimal> animals) {
+    return animals.stream()
+        .filter(SafariAnimal::predator)
+        .count();
+  }
+
+  private static final class GeneratedDataset extends AbstractList<SafariAnimal>
+      implements RandomAccess, SafariAnimalColumns {
+
+    private final Lazy<List<SafariAnimal>> animals;
+
+    private GeneratedDataset(Lazy<List<SafariAnimal>> animals) {
+      this.animals = animals;
+    }
+
+    @Override
+    public SafariAnimal get(int index) {
+      return animals.get().get(index);
+    }
+
+    @Override
+    public int size() {
+      return animals.get().size();
+    }
+
+    @Override
+    public Iterator<SafariAnimal> iterator() {
+      return animals.get().iterator();
+    }
+
+    @Override
+    public Spliterator<SafariAnimal> spliterator() {
+      return animals.get().spliterator();
+    }
+
+    @Override
+    public IntStream ages() {
+      return ((SafariAnimalColumns) animals.get()).ages();
+    }
+
+    @Override
+    public IntStream weights() {
+      return ((SafariAnimalColumns) animals.get()).weights();
+    }
+  }
 }
@@ -0,0 +1,48 @@
+package mvp.streamy.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import mvp.streamy.services.BatchingPipelineCompiler;
+import mvp.streamy.services.PipelineClassDefiner;
+import mvp.streamy.services.PipelineCompiler;
+import mvp.streamy.services.PipelineExecutor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(EngineProperties.class)
+public class EngineConfiguration {
+
+  @Bean
+  public PipelineCompiler pipelineCompiler(
+      EngineProperties properties,
+      MeterRegistry meterRegistry
+  ) {
+    // warmed up by StartupWarmUp before the instance reports ready
+    return new PipelineCompiler(properties.getCompiler(), meterRegistry);
+  }
+
+  @Bean
+  public BatchingPipelineCompiler batchingPipelineCompiler(
+      PipelineCompiler pipelineCompiler,
+      EngineProperties properties
+  ) {
+    return new BatchingPipelineCompiler(pipelineCompiler, properties.getCompiler());
+  }
+
+  @Bean
+  public PipelineClassDefiner pipelineClassDefiner(
+      EngineProperties properties,
+      MeterRegistry meterRegistry
+  ) {
+    return new PipelineClassDefiner(properties.getCompiler(), meterRegistry);
+  }
+
+  @Bean
+  public PipelineExecutor pipelineExecutor(
+      EngineProperties properties,
+      MeterRegistry meterRegistry
+  ) {
+    return new PipelineExecutor(properties.getExecution(), meterRegistry);
+  }
+}
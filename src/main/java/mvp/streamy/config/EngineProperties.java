@@ -0,0 +1,260 @@
+package mvp.streamy.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Tuning knobs for the stream pipeline engine, bound from {@code streamy.engine.*}.
+ * A plain {@code new EngineProperties()} yields the defaults used in tests.
+ */
+@Data
+@ConfigurationProperties(prefix = "streamy.engine")
+public class EngineProperties {
+
+  private final Cache cache = new Cache();
+
+  private final Compiler compiler = new Compiler();
+
+  private final Execution execution = new Execution();
+
+  private final Interpreter interpreter = new Interpreter();
+
+  private final Submissions submissions = new Submissions();
+
+  private final Grading grading = new Grading();
+
+  private final Admission admission = new Admission();
+
+  private final Startup startup = new Startup();
+
+  @Data
+  public static class Cache {
+
+    /**
+     * Upper bound for the summed weight (roughly bytes of source + bytecode) of all entries
+     */
+    private long maximumWeight = 32L * 1024 * 1024;
+  }
+
+  @Data
+  public static class Compiler {
+
+    /**
+     * Number of pooled javac contexts, i.e. the maximum number of concurrent compilations
+     */
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Compile a throwaway program in every pooled context before the instance reports ready
+     */
+    private boolean warmUp = true;
+
+    /**
+     * How long the first submission of a batch waits for others to join it; zero disables batching
+     */
+    private Duration batchWindow = Duration.ofMillis(3);
+
+    /**
+     * Maximum number of pipelines compiled in a single javac task
+     */
+    private int maxBatchSize = 16;
+
+    /**
+     * How compiled pipelines are turned into classes
+     */
+    private ClassDefinition classDefinition = ClassDefinition.HIDDEN;
+  }
+
+  public enum ClassDefinition {
+
+    /**
+     * Unloadable hidden classes, no class loader per submission
+     */
+    HIDDEN,
+
+    /**
+     * A fresh class loader per compiled pipeline
+     */
+    ISOLATED_LOADER
+  }
+
+  @Data
+  public static class Execution {
+
+    /**
+     * Wall-clock limit for a single pipeline run
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * Pipelines running at the same time; further submissions wait for a free slot
+     */
+    private int maxConcurrentExecutions = 64;
+
+    /**
+     * How often the watchdog checks running pipelines against their deadline
+     */
+    private Duration watchdogInterval = Duration.ofMillis(25);
+
+    /**
+     * CPU time a single pipeline run may use; zero disables the limit
+     */
+    private Duration cpuTimeLimit = Duration.ofSeconds(2);
+
+    /**
+     * Heap a single pipeline run may allocate in total; zero disables the limit
+     */
+    private DataSize allocationLimit = DataSize.ofMegabytes(256);
+
+    /**
+     * Upper bound for the worker threads of a riddle's fork-join pool
+     */
+    private int maxParallelism = 4;
+
+    /**
+     * Runs on each side when a correct parallel pipeline of a riddle with {@code speedup} is
+     * timed against a single worker; the fastest of each side counts
+     */
+    private int speedupSamples = 3;
+
+    /**
+     * Limits that differ from the ones above, by riddle id
+     */
+    private Map<String, RiddleLimits> riddles = new HashMap<>();
+  }
+
+  @Data
+  public static class RiddleLimits {
+
+    /**
+     * Wall-clock limit; the global timeout if unset
+     */
+    private Duration timeout;
+
+    /**
+     * CPU time limit; the global cpu-time-limit if unset
+     */
+    private Duration cpuTimeLimit;
+
+    /**
+     * Allocation limit; the global allocation-limit if unset
+     */
+    private DataSize allocationLimit;
+
+    /**
+     * Allow {@code .parallel()} and run the riddle's pipelines on a dedicated fork-join pool
+     */
+    private boolean parallel;
+
+    /**
+     * Worker threads of that pool, at most max-parallelism; max-parallelism if unset
+     */
+    private Integer parallelism;
+
+    /**
+     * Report how much faster correct parallel answers run than on a single worker, at the
+     * cost of 2 × speedup-samples extra runs per such submission; needs parallel
+     */
+    private boolean speedup;
+  }
+
+  @Data
+  public static class Interpreter {
+
+    /**
+     * Run pipelines made of common stream operations without compiling them
+     */
+    private boolean enabled = true;
+
+    /**
+     * Interpreted runs after which a pipeline is compiled in the background; zero never compiles
+     */
+    private int compileThreshold = 5;
+  }
+
+  @Data
+  public static class Submissions {
+
+    /**
+     * Number of result elements sent as the partial output of an asynchronous submission
+     */
+    private int previewSize = 10;
+
+    /**
+     * Most items of a result sent back to the client, nested ones included; the rest is only
+     * counted and hashed
+     */
+    private int resultPreviewSize = 1000;
+
+    /**
+     * How long a finished asynchronous submission can still be looked up by its job id
+     */
+    private Duration retention = Duration.ofMinutes(5);
+
+    /**
+     * How long a client may stay subscribed to the events of a single submission
+     */
+    private Duration eventTimeout = Duration.ofSeconds(30);
+  }
+
+  @Data
+  public static class Grading {
+
+    /**
+     * Pipelines of one bulk grading request that run at the same time
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Largest number of pipelines accepted in one bulk grading request
+     */
+    private int maxPipelines = 500;
+
+    /**
+     * Longest time a bulk grading response may stay open
+     */
+    private Duration timeout = Duration.ofMinutes(5);
+  }
+
+  @Data
+  public static class Admission {
+
+    /**
+     * Submissions compiled and run at the same time on this node
+     */
+    private int maxConcurrent = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Submissions waiting for a free slot; further ones are turned away with 429
+     */
+    private int maxQueued = 256;
+
+    /**
+     * Submissions a single client may have waiting at the same time
+     */
+    private int maxQueuedPerClient = 8;
+
+    /**
+     * Longest time a submission waits for a slot before it is turned away with 429
+     */
+    private Duration maxWait = Duration.ofSeconds(10);
+  }
+
+  @Data
+  public static class Startup {
+
+    /**
+     * Grade every riddle's reference pipeline before the instance reports ready
+     */
+    private boolean warmUp = true;
+
+    /**
+     * Shut down once the warm-up is done; used by the training run that records the AOT cache
+     */
+    private boolean exitAfterWarmUp = false;
+  }
+}
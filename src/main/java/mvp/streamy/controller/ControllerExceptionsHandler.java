@@ -1,12 +1,16 @@
 package mvp.streamy.controller;
 
 import lombok.extern.slf4j.Slf4j;
+import mvp.streamy.services.AdmissionRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.NoSuchElementException;
+
 @RestControllerAdvice
 @Slf4j
 public class ControllerExceptionsHandler {
@@ -23,6 +27,21 @@ public class ControllerExceptionsHandler {
         return generateErrorResponse(HttpStatus.BAD_REQUEST, UnsupportedOperationException.class.getSimpleName(), e);
     }
 
+    @ExceptionHandler(NoSuchElementException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ResponseEntity<CustomErrorResponse> handleNoSuchElementException(NoSuchElementException e) {
+        return generateErrorResponse(HttpStatus.NOT_FOUND, NoSuchElementException.class.getSimpleName(), e);
+    }
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ResponseEntity<CustomErrorResponse> handleAdmissionRejectedException(AdmissionRejectedException e) {
+        log.debug("Turned away a submission ({}), retry after {}", e.reason(), e.retryAfter());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfter().toSeconds()))
+                .body(new CustomErrorResponse(AdmissionRejectedException.class.getSimpleName(), e.getMessage()));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<CustomErrorResponse> handleRuntimeException(RuntimeException e) {
@@ -1,38 +1,235 @@
 package mvp.streamy.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mvp.streamy.models.BulkGradeRequestDTO;
+import mvp.streamy.models.PipelineDiagnosticsDTO;
 import mvp.streamy.models.RiddleResult;
-import mvp.streamy.models.Riddle;
+import mvp.streamy.models.SubmissionAcceptedDTO;
+import mvp.streamy.models.SubmissionEvent;
 import mvp.streamy.models.SubmitAnswerRequestDTO;
+import mvp.streamy.services.BulkGradingService;
+import mvp.streamy.services.PipelineDiagnosticsService;
+import mvp.streamy.services.RiddleCatalog;
+import mvp.streamy.services.RiddleCatalog.SerializedBody;
 import mvp.streamy.services.StreamGameService;
 import mvp.streamy.services.StreamPipelineEngineService;
+import mvp.streamy.services.SubmissionAdmission;
+import mvp.streamy.services.SubmissionAdmission.Ticket;
+import mvp.streamy.services.SubmissionJob;
+import mvp.streamy.services.SubmissionJobService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/stream")
 @AllArgsConstructor
+@Slf4j
 public class StreamController {
 
+    private static final String CLIENT_ID_HEADER = "X-Client-Id";
+
     private final StreamPipelineEngineService streamPipelineEngineService;
     private final StreamGameService streamGameService;
+    private final SubmissionJobService submissionJobService;
+    private final BulkGradingService bulkGradingService;
+    private final SubmissionAdmission submissionAdmission;
+    private final PipelineDiagnosticsService pipelineDiagnosticsService;
+    private final RiddleCatalog riddleCatalog;
 
-
+    /**
+     * One page of the riddle catalog: summaries only, the input of a riddle is fetched with
+     * {@link #getRiddleInput}. Catalog responses are serialized once and carry a strong ETag;
+     * a matching {@code If-None-Match} is answered with 304.
+     */
     @GetMapping("/riddles")
-    public ResponseEntity<List<Riddle>> getRiddles() {
-        return new ResponseEntity<>(streamGameService.getAllRiddles(), HttpStatus.OK);
+    public ResponseEntity<byte[]> getRiddles(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        return serve(riddleCatalog.page(page, size), ifNoneMatch);
+    }
+
+    @GetMapping("/riddles/{riddleId}")
+    public ResponseEntity<byte[]> getRiddle(
+            @PathVariable String riddleId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        return serve(riddleCatalog.summary(riddleId), ifNoneMatch);
+    }
+
+    /**
+     * One page of a riddle's input, at most {@link RiddleCatalog#MAX_INPUT_PAGE_SIZE} animals.
+     */
+    @GetMapping("/riddles/{riddleId}/input")
+    public ResponseEntity<byte[]> getRiddleInput(
+            @PathVariable String riddleId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "1000") int size,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        return serve(riddleCatalog.input(riddleId, page, size), ifNoneMatch);
     }
 
     @PostMapping("/submit")
     public ResponseEntity<RiddleResult> submitAnswer(
-            @RequestBody SubmitAnswerRequestDTO request
+            @RequestBody SubmitAnswerRequestDTO request,
+            HttpServletRequest httpRequest
     ) {
-        return new ResponseEntity<>(streamGameService.submitAnswer(
+        return new ResponseEntity<>(submissionAdmission.admit(
+                clientId(httpRequest),
+                streamGameService.slotsFor(request.riddleId()),
+                () -> streamGameService.submitAnswer(request.riddleId(), request.pipeline())
+        ), HttpStatus.OK);
+    }
+
+    /**
+     * Starts grading in the background and answers 202 right away; the progress of the
+     * submission is streamed by {@link #submissionEvents}.
+     */
+    @PostMapping("/submissions")
+    public ResponseEntity<SubmissionAcceptedDTO> submitAnswerAsync(
+            @RequestBody SubmitAnswerRequestDTO request,
+            HttpServletRequest httpRequest
+    ) {
+        SubmissionJob job = submissionJobService.submit(
                 request.riddleId(),
-                request.pipeline()), HttpStatus.OK
+                request.pipeline(),
+                clientId(httpRequest)
         );
+        URI events = URI.create("/api/stream/submissions/" + job.id() + "/events");
+        return ResponseEntity.accepted()
+                .location(events)
+                .body(new SubmissionAcceptedDTO(job.id(), events.toString()));
+    }
+
+    /**
+     * Server-sent events of a submission: {@code compiled}, {@code running},
+     * {@code partial-output}, then either {@code result} or {@code error}. Events that happened
+     * before the client connected are replayed first.
+     */
+    @GetMapping(path = "/submissions/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter submissionEvents(@PathVariable String jobId) {
+        SubmissionJob job = submissionJobService.find(jobId);
+        SseEmitter emitter = new SseEmitter(submissionJobService.eventTimeout().toMillis());
+
+        Consumer<SubmissionEvent> subscriber = new Consumer<>() {
+            @Override
+            public void accept(SubmissionEvent event) {
+                try {
+                    emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+                    if (event.terminal()) {
+                        emitter.complete();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Client of submission {} went away: {}", jobId, e.getMessage());
+                    job.unsubscribe(this);
+                }
+            }
+        };
+        emitter.onCompletion(() -> job.unsubscribe(subscriber));
+        emitter.onTimeout(() -> job.unsubscribe(subscriber));
+        job.subscribe(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Live diagnostics for the editor: parses and type-checks the pipeline without running it.
+     * A check still running for the same {@code X-Client-Id} is cancelled by a newer one; javac
+     * checks wait for admission like submissions and are answered 429 when it is saturated.
+     */
+    @PostMapping("/diagnostics")
+    public ResponseEntity<PipelineDiagnosticsDTO> diagnose(
+            @RequestBody SubmitAnswerRequestDTO request,
+            @RequestHeader(name = CLIENT_ID_HEADER, required = false) String sessionId,
+            HttpServletRequest httpRequest
+    ) {
+        return new ResponseEntity<>(
+                pipelineDiagnosticsService.diagnose(
+                        request.riddleId(),
+                        request.pipeline(),
+                        sessionId,
+                        clientId(httpRequest)
+                ),
+                HttpStatus.OK
+        );
+    }
+
+    /**
+     * Grades many pipelines against one riddle and streams one {@link RiddleResult} per
+     * pipeline as a line of JSON, in the order of the request. The batch waits for admission
+     * before the response starts, so a saturated server still answers 429.
+     */
+    @PostMapping(path = "/grade", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseBodyEmitter gradeAll(
+            @RequestBody BulkGradeRequestDTO request,
+            HttpServletRequest httpRequest
+    ) {
+        Ticket ticket = bulkGradingService.admit(request.riddleId(), request.pipelines(), clientId(httpRequest));
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(bulkGradingService.timeout().toMillis());
+
+        Thread grading = Thread.ofVirtual().name("bulk-grading").unstarted(() -> {
+            try (ticket) {
+                bulkGradingService.gradeAll(request.riddleId(), request.pipelines(), result -> {
+                    try {
+                        emitter.send(result, MediaType.APPLICATION_JSON);
+                        emitter.send("\n", MediaType.TEXT_PLAIN);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                emitter.complete();
+            } catch (RuntimeException e) {
+                log.debug("Bulk grading for riddle {} stopped: {}", request.riddleId(), e.getMessage());
+                emitter.completeWithError(e);
+            }
+        });
+        // a response that timed out or broke stops the pipelines that are still waiting
+        emitter.onTimeout(grading::interrupt);
+        emitter.onError(e -> grading.interrupt());
+        grading.start();
+        return emitter;
+    }
+
+    /**
+     * Clients may keep catalog responses but have to revalidate them, which costs a 304.
+     */
+    private static ResponseEntity<byte[]> serve(SerializedBody body, String ifNoneMatch) {
+        if (body.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(body.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(body.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body.bytes());
+    }
+
+    /**
+     * Submissions are queued fairly per remote address. The {@code X-Client-Id} header is
+     * chosen by the client, which could take a fresh share of the queue with every request by
+     * rotating it, so it only tells editor sessions apart for diagnostics. Clients behind one
+     * NAT or proxy share a queue share; behind a reverse proxy, enable
+     * {@code server.forward-headers-strategy} so the address is the client's, not the proxy's.
+     */
+    private static String clientId(HttpServletRequest request) {
+        return request.getRemoteAddr();
     }
 }
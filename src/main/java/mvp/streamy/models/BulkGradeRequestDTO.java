@@ -0,0 +1,10 @@
+package mvp.streamy.models;
+
+import java.util.List;
+
+public record BulkGradeRequestDTO(
+
+         String riddleId,
+         List<String> pipelines
+) {
+}
@@ -0,0 +1,127 @@
+package mvp.streamy.models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable list of animals stored column by column: {@code age} and {@code weight} as
+ * {@code int[]}, {@code predator} as {@code boolean[]}, species and class as ordinal bytes and
+ * names as indexes into a shared dictionary. That is 13 bytes per animal instead of a record
+ * and its reference, about a third of the heap.
+ *
+ * <p>{@link SafariAnimal}s are created when an element is read. The spliterator is
+ * {@code SIZED | SUBSIZED | IMMUTABLE | ORDERED} and splits by index range, so parallel
+ * streams divide the work evenly.
+ */
+public final class ColumnarSafariAnimals extends AbstractList<SafariAnimal>
+    implements RandomAccess, SafariAnimalColumns {
+
+  private static final AnimalSpecies[] SPECIES = AnimalSpecies.values();
+  private static final AnimalClass[] CLASSES = AnimalClass.values();
+
+  private final String[] names;
+  private final short[] nameIds;
+  private final byte[] species;
+  private final byte[] animalClasses;
+  private final int[] ages;
+  private final int[] weights;
+  private final boolean[] predators;
+
+  private ColumnarSafariAnimals(Builder builder) {
+    this.names = builder.names;
+    this.nameIds = builder.nameIds;
+    this.species = builder.species;
+    this.animalClasses = builder.animalClasses;
+    this.ages = builder.ages;
+    this.weights = builder.weights;
+    this.predators = builder.predators;
+  }
+
+  @Override
+  public SafariAnimal get(int index) {
+    return new SafariAnimal(
+        names[Short.toUnsignedInt(nameIds[index])],
+        SPECIES[species[index]],
+        CLASSES[animalClasses[index]],
+        ages[index],
+        weights[index],
+        predators[index]
+    );
+  }
+
+  @Override
+  public int size() {
+    return ages.length;
+  }
+
+  @Override
+  public Spliterator<SafariAnimal> spliterator() {
+    return new IndexedSpliterator(this::get, 0, size());
+  }
+
+  @Override
+  public IntStream ages() {
+    return Arrays.stream(ages);
+  }
+
+  @Override
+  public IntStream weights() {
+    return Arrays.stream(weights);
+  }
+
+  /**
+   * Fills the columns of a dataset of known size. Distinct indexes may be set from different
+   * threads, as long as {@link #build()} runs after all of them finished.
+   */
+  public static final class Builder {
+
+    private final String[] names;
+    private final short[] nameIds;
+    private final byte[] species;
+    private final byte[] animalClasses;
+    private final int[] ages;
+    private final int[] weights;
+    private final boolean[] predators;
+
+    /**
+     * @param names dictionary of at most 65536 names, referenced by index in {@link #set}
+     */
+    public Builder(int size, String[] names) {
+      if (names.length > 1 << 16) {
+        throw new IllegalArgumentException("At most 65536 distinct names, got " + names.length);
+      }
+      this.names = names.clone();
+      this.nameIds = new short[size];
+      this.species = new byte[size];
+      this.animalClasses = new byte[size];
+      this.ages = new int[size];
+      this.weights = new int[size];
+      this.predators = new boolean[size];
+    }
+
+    public Builder set(
+        int index,
+        int nameId,
+        AnimalSpecies species,
+        AnimalClass animalClass,
+        int age,
+        int weight,
+        boolean predator
+    ) {
+      this.nameIds[index] = (short) nameId;
+      this.species[index] = (byte) species.ordinal();
+      this.animalClasses[index] = (byte) animalClass.ordinal();
+      this.ages[index] = age;
+      this.weights[index] = weight;
+      this.predators[index] = predator;
+      return this;
+    }
+
+    public ColumnarSafariAnimals build() {
+      return new ColumnarSafariAnimals(this);
+    }
+  }
+}
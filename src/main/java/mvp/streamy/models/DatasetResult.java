@@ -0,0 +1,26 @@
+package mvp.streamy.models;
+
+/**
+ * How a submission did on one dataset of a riddle, how long running and checking it took, and
+ * the CPU time and heap the pipeline itself used. Usage is {@code -1} where it was not measured.
+ */
+public record DatasetResult(
+    String dataset,
+    int size,
+    Outcome outcome,
+    long durationMicros,
+    long cpuTimeMicros,
+    long allocatedBytes
+) {
+
+  public enum Outcome {
+    PASSED,
+    FAILED,
+    ERROR,
+
+    /**
+     * Not run to the end because another dataset already failed
+     */
+    SKIPPED
+  }
+}
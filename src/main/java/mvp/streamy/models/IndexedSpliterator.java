@@ -0,0 +1,61 @@
+package mvp.streamy.models;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Spliterator over an index range of a dataset that creates each element on read. Splits in
+ * halves, so parallel streams divide the work evenly.
+ */
+final class IndexedSpliterator implements Spliterator<SafariAnimal> {
+
+  private final IntFunction<SafariAnimal> elements;
+  private int index;
+  private final int fence;
+
+  IndexedSpliterator(IntFunction<SafariAnimal> elements, int index, int fence) {
+    this.elements = elements;
+    this.index = index;
+    this.fence = fence;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super SafariAnimal> action) {
+    if (index >= fence) {
+      return false;
+    }
+    action.accept(elements.apply(index++));
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super SafariAnimal> action) {
+    int end = fence;
+    for (int i = index; i < end; i++) {
+      action.accept(elements.apply(i));
+    }
+    index = end;
+  }
+
+  @Override
+  public Spliterator<SafariAnimal> trySplit() {
+    int mid = (index + fence) >>> 1;
+    if (mid <= index) {
+      return null;
+    }
+    Spliterator<SafariAnimal> prefix = new IndexedSpliterator(elements, index, mid);
+    index = mid;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return fence - index;
+  }
+
+  @Override
+  public int characteristics() {
+    return SIZED | SUBSIZED | IMMUTABLE | ORDERED | NONNULL;
+  }
+}
@@ -0,0 +1,40 @@
+package mvp.streamy.models;
+
+import java.util.function.Supplier;
+
+/**
+ * Value computed on first access and kept afterwards. Used for riddle data that is too
+ * expensive to build when the application starts.
+ */
+public final class Lazy<T> implements Supplier<T> {
+
+  private final Supplier<? extends T> supplier;
+  private volatile T value;
+
+  private Lazy(Supplier<? extends T> supplier) {
+    this.supplier = supplier;
+  }
+
+  public static <T> Lazy<T> of(Supplier<? extends T> supplier) {
+    return new Lazy<>(supplier);
+  }
+
+  @Override
+  public T get() {
+    T result = value;
+    if (result == null) {
+      synchronized (this) {
+        result = value;
+        if (result == null) {
+          result = supplier.get();
+          value = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  public boolean isComputed() {
+    return value != null;
+  }
+}
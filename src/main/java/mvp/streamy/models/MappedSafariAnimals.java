@@ -0,0 +1,104 @@
+package mvp.streamy.models;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only view of a columnar dataset in a mapped file. Nothing but the name dictionary is
+ * copied to the heap: {@link SafariAnimal}s are read from the segment on access, and pages are
+ * shared with every other JVM mapping the same file.
+ *
+ * <p>The column offsets are given by the file format, see
+ * {@link mvp.streamy.Repository.SafariDatasetFiles}.
+ */
+public final class MappedSafariAnimals extends AbstractList<SafariAnimal>
+    implements RandomAccess, SafariAnimalColumns {
+
+  private static final ValueLayout.OfInt INT =
+      ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfShort SHORT =
+      ValueLayout.JAVA_SHORT.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final AnimalSpecies[] SPECIES = AnimalSpecies.values();
+  private static final AnimalClass[] CLASSES = AnimalClass.values();
+
+  private final MemorySegment segment;
+  private final int size;
+  private final String[] names;
+  private final long ages;
+  private final long weights;
+  private final long nameIds;
+  private final long species;
+  private final long animalClasses;
+  private final long predators;
+
+  /**
+   * @param ages offset of the first age; the other columns follow in the order of the
+   *             parameters, each {@code size} elements long
+   */
+  public MappedSafariAnimals(MemorySegment segment, int size, String[] names, long ages) {
+    this.segment = segment;
+    this.size = size;
+    this.names = names;
+    this.ages = ages;
+    this.weights = ages + Integer.BYTES * (long) size;
+    this.nameIds = weights + Integer.BYTES * (long) size;
+    this.species = nameIds + Short.BYTES * (long) size;
+    this.animalClasses = species + size;
+    this.predators = animalClasses + size;
+  }
+
+  /**
+   * Bytes taken by the columns of a dataset of the given size.
+   */
+  public static long columnsSize(int size) {
+    return (2L * Integer.BYTES + Short.BYTES + 3) * size;
+  }
+
+  @Override
+  public SafariAnimal get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return new SafariAnimal(
+        names[Short.toUnsignedInt(segment.get(SHORT, nameIds + (long) Short.BYTES * index))],
+        SPECIES[segment.get(ValueLayout.JAVA_BYTE, species + index)],
+        CLASSES[segment.get(ValueLayout.JAVA_BYTE, animalClasses + index)],
+        age(index),
+        weight(index),
+        segment.get(ValueLayout.JAVA_BYTE, predators + index) != 0
+    );
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Spliterator<SafariAnimal> spliterator() {
+    return new IndexedSpliterator(this::get, 0, size);
+  }
+
+  @Override
+  public IntStream ages() {
+    return IntStream.range(0, size).map(this::age);
+  }
+
+  @Override
+  public IntStream weights() {
+    return IntStream.range(0, size).map(this::weight);
+  }
+
+  private int age(int index) {
+    return segment.get(INT, ages + (long) Integer.BYTES * index);
+  }
+
+  private int weight(int index) {
+    return segment.get(INT, weights + (long) Integer.BYTES * index);
+  }
+}
@@ -0,0 +1,23 @@
+package mvp.streamy.models;
+
+/**
+ * How a parallel pipeline did on its riddle's fork-join pool against the same compiled
+ * pipeline on a pool of one worker, on the visible input. Each side is the fastest of a few
+ * runs, so the speedup is an indication rather than a benchmark.
+ */
+public record ParallelSpeedup(
+    int parallelism,
+    long sequentialMicros,
+    long parallelMicros,
+    double speedup
+) {
+
+  public static ParallelSpeedup of(int parallelism, long sequentialMicros, long parallelMicros) {
+    return new ParallelSpeedup(
+        parallelism,
+        sequentialMicros,
+        parallelMicros,
+        (double) Math.max(1, sequentialMicros) / Math.max(1, parallelMicros)
+    );
+  }
+}
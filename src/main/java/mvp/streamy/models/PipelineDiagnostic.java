@@ -0,0 +1,22 @@
+package mvp.streamy.models;
+
+/**
+ * One problem found in a pipeline while it is being typed. {@code start} and {@code end} are
+ * offsets into the pipeline, or {@code -1} where the problem has no position of its own.
+ */
+public record PipelineDiagnostic(
+    Severity severity,
+    String message,
+    int start,
+    int end
+) {
+
+  public static PipelineDiagnostic error(String message, int start, int end) {
+    return new PipelineDiagnostic(Severity.ERROR, message, start, end);
+  }
+
+  public enum Severity {
+    ERROR,
+    WARNING
+  }
+}
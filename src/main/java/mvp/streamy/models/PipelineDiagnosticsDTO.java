@@ -0,0 +1,15 @@
+package mvp.streamy.models;
+
+import java.util.List;
+
+/**
+ * Result of a live check. A {@code cancelled} check was superseded by a newer one from the same
+ * session and carries no diagnostics.
+ */
+public record PipelineDiagnosticsDTO(
+
+         boolean valid,
+         boolean cancelled,
+         List<PipelineDiagnostic> diagnostics
+) {
+}
@@ -1,6 +1,20 @@
 package mvp.streamy.models;
 
+/**
+ * The output of a pipeline as it is sent to the client. For a preview, {@code value} holds at
+ * most a fixed number of items, nested ones included; {@code size} is the number of items of
+ * the whole output, {@code truncated} whether the preview left any out, and {@code hash} the
+ * hex content hash of the whole output. Complete values carry {@code -1} and no hash instead.
+ */
 public record ResultValue(
         ResultType type,
-        Object value
-) {}
+        Object value,
+        int size,
+        boolean truncated,
+        String hash
+) {
+
+  public ResultValue(ResultType type, Object value) {
+    this(type, value, -1, false, null);
+  }
+}
@@ -1,14 +1,57 @@
 package mvp.streamy.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.List;
+import java.util.function.Function;
 
+/**
+ * @param tieKey what the expected output is ordered or chosen by, e.g. the age for "order by
+ *               age". Answers that differ from the expected output only among animals with
+ *               the same key are correct too; {@code null} compares exactly.
+ */
 public record Riddle(
 
         String id,
         String description,
         Class<?> dataType,
         List<SafariAnimal>input,
-        Object expectedOutput
+        Object expectedOutput,
+        @JsonIgnore List<RiddleDataset> hiddenDatasets,
+        @JsonIgnore Function<SafariAnimal, ?> tieKey
 
 ) {
+
+  public Riddle(
+      String id,
+      String description,
+      Class<?> dataType,
+      List<SafariAnimal> input,
+      Object expectedOutput,
+      List<RiddleDataset> hiddenDatasets
+  ) {
+    this(id, description, dataType, input, expectedOutput, hiddenDatasets, null);
+  }
+
+  public Riddle(
+      String id,
+      String description,
+      Class<?> dataType,
+      List<SafariAnimal> input,
+      Object expectedOutput
+  ) {
+    this(id, description, dataType, input, expectedOutput, List.of());
+  }
+
+  /**
+   * Riddles on generated datasets pass a {@link Lazy} expected output, which is computed on
+   * first access.
+   */
+  @Override
+  public Object expectedOutput() {
+    return expectedOutput instanceof Lazy<?> lazy ? lazy.get() : expectedOutput;
+  }
+
+  public boolean expectedOutputReady() {
+    return !(expectedOutput instanceof Lazy<?> lazy) || lazy.isComputed();
+  }
 }
@@ -0,0 +1,12 @@
+package mvp.streamy.models;
+
+import java.util.List;
+
+public record RiddleCatalogPageDTO(
+
+         List<RiddleSummary> riddles,
+         int page,
+         int size,
+         int totalRiddles
+) {
+}
@@ -0,0 +1,36 @@
+package mvp.streamy.models;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * An input a riddle is graded on without the player seeing it, with the output the reference
+ * solution gives for it.
+ */
+public record RiddleDataset(
+    String name,
+    List<SafariAnimal> input,
+    Object expectedOutput
+) {
+
+  /**
+   * Dataset whose expected output is computed by {@code reference} on first use.
+   */
+  public static RiddleDataset of(
+      String name,
+      List<SafariAnimal> input,
+      Function<List<SafariAnimal>, Object> reference
+  ) {
+    return new RiddleDataset(name, input, Lazy.of(() -> reference.apply(input)));
+  }
+
+  @Override
+  public Object expectedOutput() {
+    return expectedOutput instanceof Lazy<?> lazy ? lazy.get() : expectedOutput;
+  }
+
+  @Override
+  public String toString() {
+    return "RiddleDataset[name=" + name + ", size=" + input.size() + "]";
+  }
+}
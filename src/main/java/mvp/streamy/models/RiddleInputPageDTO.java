@@ -0,0 +1,14 @@
+package mvp.streamy.models;
+
+import java.util.List;
+
+/**
+ * One page of a riddle's input, in input order.
+ */
+public record RiddleInputPageDTO(
+    List<SafariAnimal> elements,
+    int page,
+    int size,
+    int totalElements
+) {
+}
@@ -1,8 +1,25 @@
 package mvp.streamy.models;
 
 
+import java.util.List;
+
+/**
+ * @param parallel how the pipeline compares with its sequential run, for riddles that allow
+ *                 {@code .parallel()}; {@code null} otherwise
+ */
 public record RiddleResult(
         boolean success,
         ResultValue result,
-        String message
-) {}
+        String message,
+        List<DatasetResult> datasets,
+        ParallelSpeedup parallel
+) {
+
+  public RiddleResult(boolean success, ResultValue result, String message, List<DatasetResult> datasets) {
+    this(success, result, message, datasets, null);
+  }
+
+  public RiddleResult(boolean success, ResultValue result, String message) {
+    this(success, result, message, List.of());
+  }
+}
@@ -0,0 +1,17 @@
+package mvp.streamy.models;
+
+/**
+ * What the riddle catalog lists per riddle. The input itself is fetched separately, only for the
+ * riddle that is opened.
+ */
+public record RiddleSummary(
+    String id,
+    String description,
+    Class<?> dataType,
+    int inputSize
+) {
+
+  public static RiddleSummary of(Riddle riddle) {
+    return new RiddleSummary(riddle.id(), riddle.description(), riddle.dataType(), riddle.input().size());
+  }
+}
@@ -0,0 +1,14 @@
+package mvp.streamy.models;
+
+import java.util.stream.IntStream;
+
+/**
+ * Animal datasets that keep their numeric attributes in primitive columns, so numeric
+ * pipelines can stream them without creating a {@link SafariAnimal} per element.
+ */
+public interface SafariAnimalColumns {
+
+  IntStream ages();
+
+  IntStream weights();
+}
@@ -0,0 +1,8 @@
+package mvp.streamy.models;
+
+public record SubmissionAcceptedDTO(
+
+         String jobId,
+         String events
+) {
+}
@@ -0,0 +1,57 @@
+package mvp.streamy.models;
+
+/**
+ * One step of an asynchronous submission, sent to subscribers as a server-sent event named
+ * {@link #name()}. {@code result} and {@code error} end the submission.
+ */
+public record SubmissionEvent(
+    String name,
+    Object data
+) {
+
+  public static final String COMPILED = "compiled";
+  public static final String RUNNING = "running";
+  public static final String PARTIAL_OUTPUT = "partial-output";
+  public static final String RESULT = "result";
+  public static final String ERROR = "error";
+
+  public static SubmissionEvent compiled(String tier) {
+    return new SubmissionEvent(COMPILED, new Compiled(tier));
+  }
+
+  public static SubmissionEvent running() {
+    return new SubmissionEvent(RUNNING, new Running());
+  }
+
+  public static SubmissionEvent partialOutput(Object elements, int size) {
+    return new SubmissionEvent(PARTIAL_OUTPUT, new PartialOutput(elements, size));
+  }
+
+  public static SubmissionEvent result(RiddleResult result) {
+    return new SubmissionEvent(RESULT, result);
+  }
+
+  public static SubmissionEvent error(String exception, String message) {
+    return new SubmissionEvent(ERROR, new Failure(exception, message));
+  }
+
+  public boolean terminal() {
+    return name.equals(RESULT) || name.equals(ERROR);
+  }
+
+  /**
+   * @param tier {@code interpreted} or {@code compiled}
+   */
+  public record Compiled(String tier) {}
+
+  public record Running() {}
+
+  /**
+   * @param elements the front of the output, a list or a map, bounded like the preview of the
+   *                 result: nested elements count against the same limit
+   * @param size     the number of elements of the whole output
+   */
+  public record PartialOutput(Object elements, int size) {}
+
+  public record Failure(String exception, String message) {}
+}
@@ -0,0 +1,29 @@
+package mvp.streamy.sandbox;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Anchor for compiled pipelines defined as hidden classes. Hidden classes are defined in the
+ * package of the lookup that defines them, so this package deliberately contains nothing else
+ * a submitted pipeline could reach through package-private access.
+ */
+public final class PipelineSandbox {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private PipelineSandbox() {
+  }
+
+  public static String packageName() {
+    return PipelineSandbox.class.getPackageName();
+  }
+
+  /**
+   * Defines a top-level class of this package as a hidden class. It is not a nestmate and not
+   * strongly bound to the application class loader, so it is unloaded as soon as it becomes
+   * unreachable.
+   */
+  public static Class<?> defineHidden(byte[] bytes) throws IllegalAccessException {
+    return LOOKUP.defineHiddenClass(bytes, true).lookupClass();
+  }
+}
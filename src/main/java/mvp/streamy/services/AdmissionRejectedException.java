@@ -0,0 +1,30 @@
+package mvp.streamy.services;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the engine is saturated and a submission is turned away instead of queued.
+ * Carries an estimate of when the client should try again.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final String reason;
+    private final Duration retryAfter;
+
+    AdmissionRejectedException(String reason, String message, Duration retryAfter) {
+        super(message);
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * {@code queue-full}, {@code client-limit} or {@code timeout}
+     */
+    public String reason() {
+        return reason;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+}
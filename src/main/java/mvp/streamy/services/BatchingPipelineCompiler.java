@@ -0,0 +1,197 @@
+package mvp.streamy.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import lombok.extern.slf4j.Slf4j;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.services.PipelineCompiler.CompilationResult;
+
+/**
+ * Collects compilations that arrive within {@code streamy.engine.compiler.batch-window} (or
+ * until {@code max-batch-size} are waiting) and hands them to javac as one task, which pays
+ * javac's fixed per-task cost once per batch instead of once per submission.
+ *
+ * <p>Every submission gets its own class name, so diagnostics and bytecode can be split up
+ * again afterwards. javac generates no classes at all if any source in the task has errors;
+ * the submissions without errors of their own are therefore compiled again without the
+ * broken ones.
+ */
+@Slf4j
+public class BatchingPipelineCompiler implements AutoCloseable {
+
+    private final PipelineCompiler compiler;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingCompilation> pending = new LinkedBlockingQueue<>();
+    private final ExecutorService batches = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong classSequence = new AtomicLong();
+    private final Thread dispatcher;
+
+    public BatchingPipelineCompiler(
+            PipelineCompiler compiler,
+            EngineProperties.Compiler properties
+    ) {
+        this.compiler = compiler;
+        this.window = properties.getBatchWindow();
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.dispatcher = Thread.ofVirtual()
+                .name("javac-batch-dispatcher")
+                .start(this::dispatch);
+    }
+
+    public String nextClassName(String packageName) {
+        return packageName + ".StreamProgram" + classSequence.incrementAndGet();
+    }
+
+    public CompilationResult compile(String className, String source) {
+        if (!batchingEnabled()) {
+            return compiler.compile(Map.of(className, source));
+        }
+
+        PendingCompilation compilation = new PendingCompilation(className, source);
+        pending.add(compilation);
+        return await(compilation);
+    }
+
+    /**
+     * Compiles sources that are known up front in as few javac tasks as possible: one per
+     * {@code max-batch-size} sources, run in parallel, without waiting for the batch window.
+     */
+    public Map<String, CompilationResult> compileAll(Map<String, String> sources) {
+        List<PendingCompilation> compilations = new ArrayList<>();
+        sources.forEach((className, source) -> compilations.add(new PendingCompilation(className, source)));
+
+        int batchSize = Math.max(1, maxBatchSize);
+        for (int from = 0; from < compilations.size(); from += batchSize) {
+            List<PendingCompilation> batch =
+                    compilations.subList(from, Math.min(from + batchSize, compilations.size()));
+            batches.execute(() -> compileBatch(batch));
+        }
+
+        Map<String, CompilationResult> results = new LinkedHashMap<>();
+        for (PendingCompilation compilation : compilations) {
+            results.put(compilation.className, await(compilation));
+        }
+        return results;
+    }
+
+    /**
+     * Type-checks one source without generating bytecode. Not batched: a check is cheap, and
+     * waiting for the window would only add latency.
+     */
+    public List<Diagnostic<? extends JavaFileObject>> analyze(
+            String className,
+            String source,
+            BooleanSupplier cancelled
+    ) {
+        return compiler.analyze(Map.of(className, source), cancelled);
+    }
+
+    private boolean batchingEnabled() {
+        return maxBatchSize > 1 && window.isPositive();
+    }
+
+    private void dispatch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<PendingCompilation> batch = new ArrayList<>();
+                batch.add(pending.take());
+
+                long deadline = System.nanoTime() + window.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    PendingCompilation next =
+                            pending.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                batches.execute(() -> compileBatch(batch));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void compileBatch(List<PendingCompilation> batch) {
+        try {
+            Map<String, String> sources = new LinkedHashMap<>();
+            for (PendingCompilation compilation : batch) {
+                sources.put(compilation.className, compilation.source);
+            }
+
+            CompilationResult result = compiler.compile(sources);
+            log.debug("Compiled batch of {} pipelines, success={}", batch.size(), result.success);
+
+            List<PendingCompilation> retry = new ArrayList<>();
+            for (PendingCompilation compilation : batch) {
+                if (result.success || result.hasErrorsIn(compilation.className)) {
+                    compilation.result.complete(result.slice(compilation.className));
+                } else {
+                    retry.add(compilation);
+                }
+            }
+
+            if (retry.size() == batch.size()) {
+                // errors that cannot be attributed to a single source: isolate every submission
+                for (PendingCompilation compilation : retry) {
+                    compilation.result.complete(
+                            compiler.compile(Map.of(compilation.className, compilation.source))
+                    );
+                }
+            } else if (!retry.isEmpty()) {
+                compileBatch(retry);
+            }
+        } catch (RuntimeException e) {
+            for (PendingCompilation compilation : batch) {
+                compilation.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private CompilationResult await(PendingCompilation compilation) {
+        try {
+            return compilation.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the compiler", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        dispatcher.interrupt();
+        batches.shutdownNow();
+    }
+
+    private static class PendingCompilation {
+        final String className;
+        final String source;
+        final CompletableFuture<CompilationResult> result = new CompletableFuture<>();
+
+        PendingCompilation(String className, String source) {
+            this.className = className;
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package mvp.streamy.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.Riddle;
+import mvp.streamy.models.RiddleResult;
+import mvp.streamy.services.SubmissionAdmission.Ticket;
+import org.springframework.stereotype.Service;
+
+/**
+ * Grades many pipelines against one riddle, e.g. a whole class handing in the same exercise.
+ *
+ * <p>Pipelines that only differ in formatting are graded once. The remaining ones are prepared
+ * together, so everything that needs javac is compiled in shared tasks, and then run on a pool
+ * of {@code streamy.engine.grading.parallelism} threads. Results are handed out in the order
+ * of the submitted pipelines as soon as the next one in line is done.
+ *
+ * <p>A batch goes through {@link SubmissionAdmission} like single submissions do, with a
+ * ticket that holds the slots of every grader it can keep busy: as many graders as it has
+ * distinct pipelines, up to the size of the pool, each taking the slots of one submission
+ * to the riddle. Nothing is compiled before the ticket is admitted.
+ */
+@Service
+@Slf4j
+public class BulkGradingService implements AutoCloseable {
+
+    private final StreamGameService streamGameService;
+    private final StreamPipelineEngineServiceV2 engine;
+    private final RiddleRepository riddleRepository;
+    private final SubmissionAdmission admission;
+    private final int maxPipelines;
+    private final int parallelism;
+    private final Duration timeout;
+    private final ExecutorService graders;
+
+    public BulkGradingService(
+            StreamGameService streamGameService,
+            StreamPipelineEngineServiceV2 engine,
+            RiddleRepository riddleRepository,
+            SubmissionAdmission admission,
+            EngineProperties properties
+    ) {
+        this.streamGameService = streamGameService;
+        this.engine = engine;
+        this.riddleRepository = riddleRepository;
+        this.admission = admission;
+        this.maxPipelines = properties.getGrading().getMaxPipelines();
+        this.parallelism = Math.max(1, properties.getGrading().getParallelism());
+        this.timeout = properties.getGrading().getTimeout();
+        this.graders = Executors.newFixedThreadPool(
+                parallelism,
+                Thread.ofPlatform().name("bulk-grader-", 0).daemon(true).factory()
+        );
+    }
+
+    /**
+     * Checks a request before any work is started, so it can still be rejected with an error
+     * response.
+     */
+    public Riddle validate(String riddleId, List<String> pipelines) {
+        Riddle riddle = riddleRepository.findById(riddleId);
+        if (riddle == null) {
+            throw new IllegalArgumentException("Unknown riddle: " + riddleId);
+        }
+        if (pipelines == null || pipelines.isEmpty()) {
+            throw new IllegalArgumentException("No pipelines to grade");
+        }
+        if (pipelines.size() > maxPipelines) {
+            throw new IllegalArgumentException(
+                    "At most " + maxPipelines + " pipelines can be graded at once"
+            );
+        }
+        return riddle;
+    }
+
+    /**
+     * Validates the request and waits until {@link SubmissionAdmission} lets it run. The
+     * returned ticket is admitted and has to be closed once grading is over, possibly on
+     * another thread.
+     *
+     * @throws AdmissionRejectedException if the queue is full or the wait took too long
+     */
+    public Ticket admit(String riddleId, List<String> pipelines, String clientId) {
+        Riddle riddle = validate(riddleId, pipelines);
+        int distinct = deduplicate(pipelines, riddle.dataType()).size();
+        Ticket ticket = admission.enqueue(
+                clientId, Math.min(distinct, parallelism) * streamGameService.slotsFor(riddleId));
+        try {
+            ticket.await();
+            return ticket;
+        } catch (RuntimeException e) {
+            ticket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Longest time a bulk grading response may stay open.
+     */
+    public Duration timeout() {
+        return timeout;
+    }
+
+    /**
+     * Grades {@code pipelines} and passes one result per pipeline, in order, to {@code results}.
+     * A pipeline that cannot be graded gets an unsuccessful result with the error as message.
+     * Callers that serve requests take a ticket with {@link #admit} first.
+     *
+     * <p>If {@code results} throws, e.g. because the client went away, or the calling thread is
+     * interrupted, pipelines that are not graded yet are dropped from the graders' queue;
+     * the ones already running finish within their execution budget.
+     *
+     * @throws CancellationException if the calling thread was interrupted
+     */
+    public void gradeAll(String riddleId, List<String> pipelines, Consumer<RiddleResult> results) {
+        Riddle riddle = validate(riddleId, pipelines);
+
+        Map<PipelineKey, String> unique = deduplicate(pipelines, riddle.dataType());
+        List<PipelineKey> keys = new ArrayList<>(pipelines.size());
+        for (String pipeline : pipelines) {
+            keys.add(PipelineKey.of(pipeline, riddle.dataType()));
+        }
+        log.debug("Grading {} pipelines ({} distinct) for riddle {}", pipelines.size(), unique.size(), riddleId);
+
+        engine.prepareAll(unique.values(), riddle.dataType(), engine.executionBudget(riddleId).parallel());
+
+        Map<PipelineKey, CompletableFuture<RiddleResult>> graded = new LinkedHashMap<>();
+        unique.forEach((key, pipeline) -> graded.put(
+                key,
+                CompletableFuture.supplyAsync(() -> grade(riddleId, pipeline), graders)
+        ));
+
+        try {
+            for (PipelineKey key : keys) {
+                results.accept(await(graded.get(key)));
+            }
+        } finally {
+            graded.values().forEach(future -> future.cancel(false));
+        }
+    }
+
+    private static RiddleResult await(CompletableFuture<RiddleResult> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Bulk grading was interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Map<PipelineKey, String> deduplicate(List<String> pipelines, Class<?> dataType) {
+        Map<PipelineKey, String> unique = new LinkedHashMap<>();
+        for (String pipeline : pipelines) {
+            unique.putIfAbsent(PipelineKey.of(pipeline, dataType), pipeline);
+        }
+        return unique;
+    }
+
+    private RiddleResult grade(String riddleId, String pipeline) {
+        try {
+            return streamGameService.submitAnswerWithoutSpeedup(riddleId, pipeline);
+        } catch (RuntimeException e) {
+            return new RiddleResult(false, null, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        graders.shutdownNow();
+    }
+}
@@ -0,0 +1,51 @@
+package mvp.streamy.services;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import mvp.streamy.services.interpreter.InterpretedPipeline;
+
+/**
+ * Outcome of preparing one pipeline. Either an {@link InterpretedPipeline} for pipelines the
+ * interpreter understands, an instance of the generated program, or the
+ * javac error message for pipelines that do not compile. Failures are cached as well, so a
+ * repeated broken submission is rejected without running javac again.
+ *
+ * <p>{@code runs} counts executions of an interpreted entry, which {@link TieringPolicy} uses
+ * to decide when the pipeline is hot enough to be compiled.
+ */
+public record CompiledPipeline(
+        InterpretedPipeline interpreted,
+        Function<List<?>, Object> program,
+        String compileError,
+        int byteCodeSize,
+        AtomicInteger runs
+) {
+
+    static CompiledPipeline interpreted(InterpretedPipeline interpreted) {
+        return new CompiledPipeline(interpreted, null, null, 0, new AtomicInteger());
+    }
+
+    static CompiledPipeline compiled(Function<List<?>, Object> program, int byteCodeSize) {
+        return new CompiledPipeline(null, program, null, byteCodeSize, new AtomicInteger());
+    }
+
+    static CompiledPipeline failed(String compileError) {
+        return new CompiledPipeline(null, null, compileError, 0, new AtomicInteger());
+    }
+
+    public boolean failed() {
+        return compileError != null;
+    }
+
+    public boolean isInterpreted() {
+        return interpreted != null;
+    }
+
+    int weight() {
+        if (failed()) {
+            return compileError.length();
+        }
+        return isInterpreted() ? interpreted.toString().length() : byteCodeSize;
+    }
+}
@@ -0,0 +1,65 @@
+package mvp.streamy.services;
+
+import java.time.Duration;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.config.EngineProperties.RiddleLimits;
+
+/**
+ * Limits for a single pipeline run. A CPU time or allocation limit of zero is not enforced.
+ * A parallelism of zero forbids {@code .parallel()}; otherwise the run gets a dedicated
+ * fork-join pool with that many workers, whose CPU time and allocations count against the
+ * same limits.
+ */
+public record ExecutionBudget(
+        Duration timeout,
+        Duration cpuTime,
+        long allocatedBytes,
+        int parallelism
+) {
+
+    public ExecutionBudget(Duration timeout, Duration cpuTime, long allocatedBytes) {
+        this(timeout, cpuTime, allocatedBytes, 0);
+    }
+
+    public boolean parallel() {
+        return parallelism > 0;
+    }
+
+    /**
+     * The same limits on a fork-join pool of {@code parallelism} workers.
+     */
+    public ExecutionBudget withParallelism(int parallelism) {
+        return new ExecutionBudget(timeout, cpuTime, allocatedBytes, parallelism);
+    }
+
+    static ExecutionBudget of(EngineProperties.Execution properties) {
+        return new ExecutionBudget(
+                properties.getTimeout(),
+                properties.getCpuTimeLimit(),
+                properties.getAllocationLimit().toBytes()
+        );
+    }
+
+    static ExecutionBudget forRiddle(EngineProperties.Execution properties, String riddleId) {
+        ExecutionBudget defaults = of(properties);
+        RiddleLimits limits = properties.getRiddles().get(riddleId);
+        if (limits == null) {
+            return defaults;
+        }
+        return new ExecutionBudget(
+                limits.getTimeout() != null ? limits.getTimeout() : defaults.timeout(),
+                limits.getCpuTimeLimit() != null ? limits.getCpuTimeLimit() : defaults.cpuTime(),
+                limits.getAllocationLimit() != null
+                        ? limits.getAllocationLimit().toBytes()
+                        : defaults.allocatedBytes(),
+                limits.isParallel() ? parallelism(properties, limits) : 0
+        );
+    }
+
+    private static int parallelism(EngineProperties.Execution properties, RiddleLimits limits) {
+        int max = Math.max(1, properties.getMaxParallelism());
+        return limits.getParallelism() != null
+                ? Math.clamp(limits.getParallelism(), 1, max)
+                : max;
+    }
+}
@@ -0,0 +1,22 @@
+package mvp.streamy.services;
+
+/**
+ * Thrown to the caller of a pipeline run that used more CPU time or heap than its
+ * {@link ExecutionBudget} allows.
+ */
+public class ExecutionBudgetExceededException extends RuntimeException {
+
+    private final String resource;
+
+    ExecutionBudgetExceededException(String resource, String message) {
+        super(message);
+        this.resource = resource;
+    }
+
+    /**
+     * {@code cpu-time} or {@code allocation}
+     */
+    public String resource() {
+        return resource;
+    }
+}
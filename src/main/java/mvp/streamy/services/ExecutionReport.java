@@ -0,0 +1,14 @@
+package mvp.streamy.services;
+
+/**
+ * What a pipeline run returned, how long it ran on its worker and the CPU time and heap the
+ * worker thread, and the fork-join pool of a parallel run, used for it. Both usage
+ * measurements are {@code -1} on JVMs that do not track them per thread.
+ */
+public record ExecutionReport(
+        Object result,
+        long cpuTimeNanos,
+        long allocatedBytes,
+        long wallTimeNanos
+) {
+}
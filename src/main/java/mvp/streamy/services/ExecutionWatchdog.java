@@ -0,0 +1,235 @@
+package mvp.streamy.services;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One scheduler thread that periodically sweeps all running pipeline executions and aborts
+ * those past their deadline or over their CPU time or allocation budget. Replaces the
+ * executor-per-request that was only created to get a {@code future.get(timeout)}.
+ *
+ * <p>Budgets are checked once per sweep, so a pipeline can overshoot them by what it manages
+ * to use within one watchdog interval.
+ *
+ * <p>Java cannot stop a thread that ignores interrupts, so an aborted run keeps its execution
+ * slot until its worker returns. Runaway pipelines therefore use at most
+ * {@code max-concurrent-executions} threads, and {@link #stuckCount()} shows how many slots
+ * they currently hold.
+ */
+public class ExecutionWatchdog implements AutoCloseable {
+
+    private final Set<RunningExecution> running = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger stuckWorkers = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+
+    public ExecutionWatchdog(Duration interval) {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("pipeline-watchdog").daemon().factory()
+        );
+        this.scheduler.scheduleAtFixedRate(
+                this::sweep,
+                interval.toNanos(),
+                interval.toNanos(),
+                TimeUnit.NANOSECONDS
+        );
+    }
+
+    void register(RunningExecution execution) {
+        running.add(execution);
+    }
+
+    void unregister(RunningExecution execution) {
+        running.remove(execution);
+    }
+
+    int runningCount() {
+        return running.size();
+    }
+
+    /**
+     * Aborted runs whose worker has not returned yet, and so still hold their slot.
+     */
+    int stuckCount() {
+        return stuckWorkers.get();
+    }
+
+    RunningExecution newExecution(ExecutionBudget budget, Runnable releaseSlot) {
+        return new RunningExecution(budget, releaseSlot, stuckWorkers);
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        for (RunningExecution execution : running) {
+            if (now - execution.deadline > 0) {
+                running.remove(execution);
+                execution.abort(new TimeoutException());
+                continue;
+            }
+            ExecutionBudgetExceededException overrun = execution.overrun();
+            if (overrun != null) {
+                running.remove(execution);
+                execution.abort(overrun);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * A single submitted pipeline run, shared between the worker thread, the waiting caller
+     * and the watchdog.
+     */
+    static class RunningExecution {
+        private static final int RUNNING = 0;
+        private static final int ABORTED = 1;
+        private static final int FINISHED = 2;
+
+        final CompletableFuture<ExecutionReport> result = new CompletableFuture<>();
+        final long deadline;
+        private final long cpuTimeLimit;
+        private final long allocationLimit;
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+        private final AtomicInteger stuckWorkers;
+        private final Runnable releaseSlot;
+        private long cpuTimeAtStart;
+        private long allocatedBytesAtStart;
+        private long poolCpuTimeAtStart;
+        private long poolAllocatedBytesAtStart;
+        private final AtomicReference<ParallelPools.Pool> pool = new AtomicReference<>();
+        private volatile Thread worker;
+
+        RunningExecution(ExecutionBudget budget, Runnable releaseSlot, AtomicInteger stuckWorkers) {
+            this.deadline = System.nanoTime() + budget.timeout().toNanos();
+            this.cpuTimeLimit = budget.cpuTime().toNanos();
+            this.allocationLimit = budget.allocatedBytes();
+            this.releaseSlot = releaseSlot;
+            this.stuckWorkers = stuckWorkers;
+        }
+
+        /**
+         * Called on the worker thread before it runs the pipeline. The thread's counters keep
+         * running across pooled tasks, so they are measured relative to this point; so are the
+         * counters of the fork-join pool the run may use.
+         */
+        void started(Thread worker, ParallelPools.Pool pool) {
+            this.cpuTimeAtStart = ThreadUsage.currentCpuTime();
+            this.allocatedBytesAtStart = ThreadUsage.currentAllocatedBytes();
+            if (pool != null) {
+                this.poolCpuTimeAtStart = pool.cpuTime();
+                this.poolAllocatedBytesAtStart = pool.allocatedBytes();
+                this.pool.set(pool);
+            }
+            this.worker = worker;
+        }
+
+        /**
+         * CPU time used so far, by the worker and its fork-join pool; only valid on the worker
+         * thread.
+         */
+        long cpuTime() {
+            return cpuTime(ThreadUsage.currentCpuTime());
+        }
+
+        /**
+         * Bytes allocated so far, by the worker and its fork-join pool; only valid on the
+         * worker thread.
+         */
+        long allocatedBytes() {
+            return allocatedBytes(ThreadUsage.currentAllocatedBytes());
+        }
+
+        ExecutionBudgetExceededException overrun() {
+            Thread current = worker;
+            if (current == null) {
+                return null;
+            }
+            if (cpuTimeLimit > 0 && cpuTime(ThreadUsage.cpuTime(current)) > cpuTimeLimit) {
+                return new ExecutionBudgetExceededException(
+                        "cpu-time",
+                        "Execution timed out! CPU time limit of %d ms exceeded, possible infinite loop detected."
+                                .formatted(TimeUnit.NANOSECONDS.toMillis(cpuTimeLimit))
+                );
+            }
+            if (allocationLimit > 0 && allocatedBytes(ThreadUsage.allocatedBytes(current)) > allocationLimit) {
+                return new ExecutionBudgetExceededException(
+                        "allocation",
+                        "Allocation limit of %d MB exceeded!".formatted(allocationLimit / (1024 * 1024))
+                );
+            }
+            return null;
+        }
+
+        private long cpuTime(long workerCpuTime) {
+            long used = used(workerCpuTime, cpuTimeAtStart);
+            ParallelPools.Pool current = pool.get();
+            return used < 0 || current == null
+                    ? used
+                    : used + Math.max(0, current.cpuTime() - poolCpuTimeAtStart);
+        }
+
+        private long allocatedBytes(long workerAllocatedBytes) {
+            long used = used(workerAllocatedBytes, allocatedBytesAtStart);
+            ParallelPools.Pool current = pool.get();
+            return used < 0 || current == null
+                    ? used
+                    : used + Math.max(0, current.allocatedBytes() - poolAllocatedBytesAtStart);
+        }
+
+        private static long used(long now, long atStart) {
+            return now < 0 || atStart < 0 ? -1 : now - atStart;
+        }
+
+        /**
+         * Takes the fork-join pool back from a run that finished, unless an abort got to it
+         * first and shut it down.
+         */
+        ParallelPools.Pool detachPool() {
+            return pool.getAndSet(null);
+        }
+
+        /**
+         * Called on the worker thread once it returned from the pipeline, aborted or not. Only
+         * now is the slot given back.
+         */
+        void finished() {
+            worker = null;
+            if (state.getAndSet(FINISHED) == ABORTED) {
+                stuckWorkers.decrementAndGet();
+            }
+            releaseSlot.run();
+        }
+
+        /**
+         * Fails the caller right away and interrupts the worker, and shuts down its fork-join
+         * pool so that it is not reused. The slot stays taken until the worker actually
+         * returns: a pipeline that ignores the interrupt keeps burning its thread, and giving
+         * the slot back would let every such submission add another spinning thread. Until
+         * then the worker counts as stuck.
+         */
+        void abort(Throwable reason) {
+            if (state.compareAndSet(RUNNING, ABORTED)) {
+                stuckWorkers.incrementAndGet();
+            }
+            result.completeExceptionally(reason);
+            ParallelPools.Pool currentPool = pool.getAndSet(null);
+            if (currentPool != null) {
+                currentPool.shutdownNow();
+            }
+            Thread current = worker;
+            if (current != null) {
+                current.interrupt();
+            }
+        }
+    }
+}
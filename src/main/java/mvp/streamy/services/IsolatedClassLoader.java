@@ -0,0 +1,26 @@
+package mvp.streamy.services;
+
+import java.util.Map;
+
+class IsolatedClassLoader extends ClassLoader {
+    private final Map<String, byte[]> classes;
+
+    IsolatedClassLoader(
+            Map<String, byte[]> classes,
+            ClassLoader parent
+    ) {
+        super(parent);
+        this.classes = classes;
+    }
+
+    @Override
+    protected Class<?> findClass(String name)
+            throws ClassNotFoundException {
+
+        byte[] bytes = classes.get(name);
+        if (bytes == null) {
+            return super.findClass(name);
+        }
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+}
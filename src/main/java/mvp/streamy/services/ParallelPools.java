@@ -0,0 +1,176 @@
+package mvp.streamy.services;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dedicated fork-join pools for runs of riddles that allow {@code .parallel()}. A parallel
+ * stream forks into the pool of the worker thread its terminal operation runs on, so a
+ * pipeline started on one of these pools never reaches {@link ForkJoinPool#commonPool()},
+ * which the rest of the JVM shares.
+ *
+ * <p>A run holds one pool for as long as it holds its execution slot, so there are never more
+ * busy pools than slots. A pool never has more workers than its parallelism: it does not add
+ * compensation threads for blocked tasks, and idle workers exit after {@link #KEEP_ALIVE}. A
+ * pool whose run was aborted is shut down instead of being reused, and the run keeps its slot
+ * until the pool's workers have all stopped.
+ */
+final class ParallelPools implements AutoCloseable {
+
+    static final Duration KEEP_ALIVE = Duration.ofSeconds(30);
+
+    private final Map<Integer, Queue<Pool>> idle = new ConcurrentHashMap<>();
+    private final AtomicInteger created = new AtomicInteger();
+
+    Pool acquire(int parallelism) {
+        Queue<Pool> pools = idle.computeIfAbsent(parallelism, p -> new ConcurrentLinkedQueue<>());
+        Pool pool;
+        while ((pool = pools.poll()) != null) {
+            if (!pool.isShutdown()) {
+                return pool;
+            }
+        }
+        return new Pool(parallelism, "pipeline-fj-" + created.getAndIncrement() + "-");
+    }
+
+    void release(Pool pool) {
+        if (!pool.isShutdown()) {
+            idle.computeIfAbsent(pool.parallelism, p -> new ConcurrentLinkedQueue<>()).offer(pool);
+        }
+    }
+
+    int createdPools() {
+        return created.get();
+    }
+
+    @Override
+    public void close() {
+        idle.values().forEach(pools -> pools.forEach(Pool::shutdownNow));
+        idle.clear();
+    }
+
+    /**
+     * A fork-join pool that knows its worker threads, so their CPU time and allocations can be
+     * charged to the run that uses the pool.
+     */
+    static final class Pool {
+
+        final int parallelism;
+        private final ForkJoinPool forkJoinPool;
+        private final Set<ForkJoinWorkerThread> workers = ConcurrentHashMap.newKeySet();
+        private final String namePrefix;
+        private final AtomicInteger workerIds = new AtomicInteger();
+
+        Pool(int parallelism, String namePrefix) {
+            this.parallelism = parallelism;
+            this.namePrefix = namePrefix;
+            this.forkJoinPool = new ForkJoinPool(
+                    parallelism,
+                    this::newWorker,
+                    null,
+                    false,
+                    0,
+                    parallelism,
+                    1,
+                    pool -> true,
+                    KEEP_ALIVE.toMillis(),
+                    TimeUnit.MILLISECONDS
+            );
+        }
+
+        /**
+         * Runs the task on a worker of this pool and waits for it. Interrupting the caller, or
+         * shutting the pool down from elsewhere, stops waiting for the task but not for the
+         * pool: the caller returns only once every worker has left the pipeline, so an aborted
+         * run keeps its slot while its workers still spin.
+         */
+        <T> T invoke(Callable<T> task) throws Exception {
+            try {
+                return forkJoinPool.submit(task).get();
+            } catch (InterruptedException | CancellationException e) {
+                shutdownNow();
+                awaitTermination();
+                throw e;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception exception) {
+                    throw exception;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * CPU time of the live workers; workers that exited no longer count.
+         */
+        long cpuTime() {
+            long total = 0;
+            for (Thread worker : workers) {
+                total += Math.max(0, ThreadUsage.cpuTime(worker));
+            }
+            return total;
+        }
+
+        /**
+         * Bytes allocated by the live workers; workers that exited no longer count.
+         */
+        long allocatedBytes() {
+            long total = 0;
+            for (Thread worker : workers) {
+                total += Math.max(0, ThreadUsage.allocatedBytes(worker));
+            }
+            return total;
+        }
+
+        private void awaitTermination() {
+            while (true) {
+                try {
+                    if (forkJoinPool.awaitTermination(1, TimeUnit.DAYS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    // the run is being aborted already, keep waiting for its workers
+                }
+            }
+        }
+
+        int poolSize() {
+            return forkJoinPool.getPoolSize();
+        }
+
+        boolean isShutdown() {
+            return forkJoinPool.isShutdown();
+        }
+
+        void shutdownNow() {
+            forkJoinPool.shutdownNow();
+        }
+
+        private ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+            ForkJoinWorkerThread worker = new ForkJoinWorkerThread(null, pool, false) {
+                @Override
+                protected void onTermination(Throwable exception) {
+                    workers.remove(this);
+                    super.onTermination(exception);
+                }
+            };
+            worker.setName(namePrefix + workerIds.getAndIncrement());
+            workers.add(worker);
+            return worker;
+        }
+    }
+}
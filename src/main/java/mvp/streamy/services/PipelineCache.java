@@ -0,0 +1,100 @@
+package mvp.streamy.services;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import mvp.streamy.config.EngineProperties;
+
+/**
+ * Bounded cache of compiled pipelines, weighted by source and bytecode size.
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics tagged
+ * {@code cache=pipelines}.
+ *
+ * <p>Entries are futures. A miss puts an incomplete one in place and compiles on the calling
+ * thread, outside of Caffeine's locks, so a slow javac run only holds up callers that wait for
+ * the same pipeline. A compilation that throws leaves no entry behind.
+ */
+public class PipelineCache {
+
+    private final AsyncCache<PipelineKey, CompiledPipeline> cache;
+
+    public PipelineCache(EngineProperties.Cache properties, MeterRegistry meterRegistry) {
+        AsyncCache<PipelineKey, CompiledPipeline> built = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumWeight())
+                .<PipelineKey, CompiledPipeline>weigher((key, value) -> key.weight() + value.weight())
+                .recordStats()
+                .buildAsync();
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, built, "pipelines");
+    }
+
+    /**
+     * The cached pipeline, or the one {@code compiler} makes of the key. Concurrent callers
+     * with the same key wait for the first one's compilation instead of starting their own.
+     */
+    public CompiledPipeline get(
+            PipelineKey key,
+            Function<PipelineKey, CompiledPipeline> compiler
+    ) {
+        CompletableFuture<CompiledPipeline> pending = new CompletableFuture<>();
+        CompletableFuture<CompiledPipeline> cached = cache.get(key, (k, executor) -> pending);
+        if (cached != pending) {
+            return join(cached);
+        }
+        try {
+            pending.complete(compiler.apply(key));
+        } catch (RuntimeException | Error e) {
+            pending.completeExceptionally(e);
+            throw e;
+        }
+        return pending.join();
+    }
+
+    /**
+     * The pipeline if it is cached and ready, {@code null} if it is missing or still being
+     * compiled.
+     */
+    public CompiledPipeline getIfPresent(PipelineKey key) {
+        CompletableFuture<CompiledPipeline> cached = cache.getIfPresent(key);
+        return cached != null && cached.isDone() && !cached.isCompletedExceptionally()
+                ? cached.join()
+                : null;
+    }
+
+    /**
+     * Whether the pipeline is cached or being compiled right now.
+     */
+    public boolean contains(PipelineKey key) {
+        return cache.getIfPresent(key) != null;
+    }
+
+    public void put(PipelineKey key, CompiledPipeline pipeline) {
+        cache.put(key, CompletableFuture.completedFuture(pipeline));
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    private static CompiledPipeline join(CompletableFuture<CompiledPipeline> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package mvp.streamy.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.lang.ref.Cleaner;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.config.EngineProperties.ClassDefinition;
+import mvp.streamy.sandbox.PipelineSandbox;
+
+/**
+ * Turns the bytecode of a compiled pipeline into a class.
+ *
+ * <p>With {@code streamy.engine.compiler.class-definition=hidden} the program is defined as a
+ * hidden class in {@link PipelineSandbox}'s package, which needs neither a class loader per
+ * submission nor a GC cycle to collect that loader before metaspace is returned. Two kinds of
+ * programs fall back to an {@link IsolatedClassLoader}, as does {@code isolated-loader} mode:
+ * programs compiled to more than one class (anonymous or local classes), and programs with
+ * lambda bodies. javac moves those into private {@code lambda$} methods, and the lambda proxy
+ * refers to its host by name, which a hidden class does not have. Method references to other
+ * classes are fine.
+ *
+ * <p>Classes still reachable are published as {@code streamy.pipeline.classes.live}; metaspace
+ * itself is covered by the JVM metrics ({@code jvm.memory.used{id=Metaspace}},
+ * {@code jvm.classes.unloaded}).
+ */
+public class PipelineClassDefiner {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final byte[] LAMBDA_BODY_PREFIX = "lambda$".getBytes(StandardCharsets.US_ASCII);
+
+    private final ClassDefinition classDefinition;
+    private final AtomicInteger liveHidden = new AtomicInteger();
+    private final AtomicInteger liveIsolated = new AtomicInteger();
+    private final Counter definedHidden;
+    private final Counter definedIsolated;
+    private final Timer defineTimer;
+
+    public PipelineClassDefiner(EngineProperties.Compiler properties, MeterRegistry meterRegistry) {
+        this.classDefinition = properties.getClassDefinition();
+        meterRegistry.gauge("streamy.pipeline.classes.live",
+                Tags.of("definition", "hidden"), liveHidden, AtomicInteger::get);
+        meterRegistry.gauge("streamy.pipeline.classes.live",
+                Tags.of("definition", "isolated-loader"), liveIsolated, AtomicInteger::get);
+        this.definedHidden =
+                meterRegistry.counter("streamy.pipeline.classes.defined", "definition", "hidden");
+        this.definedIsolated =
+                meterRegistry.counter("streamy.pipeline.classes.defined", "definition", "isolated-loader");
+        this.defineTimer = PipelinePhase.DEFINE.timer(meterRegistry);
+    }
+
+    /**
+     * Package the generated program has to be declared in for {@link #define} to accept it.
+     */
+    public String packageName() {
+        return classDefinition == ClassDefinition.HIDDEN ? PipelineSandbox.packageName() : "demo";
+    }
+
+    public Class<?> define(String className, Map<String, byte[]> compiledClasses)
+            throws ReflectiveOperationException {
+        Timer.Sample sample = Timer.start();
+        try {
+            return defineClass(className, compiledClasses);
+        } finally {
+            sample.stop(defineTimer);
+        }
+    }
+
+    private Class<?> defineClass(String className, Map<String, byte[]> compiledClasses)
+            throws ReflectiveOperationException {
+        byte[] programBytes = compiledClasses.get(className);
+        if (classDefinition == ClassDefinition.HIDDEN
+                && compiledClasses.size() == 1
+                && !containsLambdaBody(programBytes)) {
+            Class<?> programClass = PipelineSandbox.defineHidden(programBytes);
+            return track(programClass, liveHidden, definedHidden);
+        }
+
+        ClassLoader isolatedLoader =
+                new IsolatedClassLoader(
+                        compiledClasses,
+                        ClassLoader.getSystemClassLoader()
+                );
+        return track(isolatedLoader.loadClass(className), liveIsolated, definedIsolated);
+    }
+
+    public int liveClasses() {
+        return liveHidden.get() + liveIsolated.get();
+    }
+
+    private static boolean containsLambdaBody(byte[] bytes) {
+        // The method name sits in the constant pool as plain modified UTF-8.
+        outer:
+        for (int i = 0; i <= bytes.length - LAMBDA_BODY_PREFIX.length; i++) {
+            for (int j = 0; j < LAMBDA_BODY_PREFIX.length; j++) {
+                if (bytes[i + j] != LAMBDA_BODY_PREFIX[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static Class<?> track(Class<?> programClass, AtomicInteger live, Counter defined) {
+        defined.increment();
+        live.incrementAndGet();
+        CLEANER.register(programClass, live::decrementAndGet);
+        return programClass;
+    }
+}
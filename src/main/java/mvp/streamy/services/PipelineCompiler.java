@@ -0,0 +1,502 @@
+package mvp.streamy.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import lombok.extern.slf4j.Slf4j;
+import mvp.streamy.config.EngineProperties;
+
+/**
+ * In-memory javac front end shared by both engines.
+ *
+ * <p>Creating a {@link StandardJavaFileManager} and letting javac rescan the platform classes
+ * and the classpath dominates the cost of compiling a one-line pipeline. This class keeps a
+ * bounded pool of {@link CompilerContext}s instead: each one owns a file manager whose
+ * package listings are cached after the first lookup. A context is checked out for exactly
+ * one compilation and reset before it goes back to the pool, so contexts are never shared
+ * between threads.
+ *
+ * <p>Every compilation is timed as {@code streamy.pipeline.phase{phase=compile}}, and a
+ * {@link TaskListener} splits it into javac's own phases in
+ * {@code streamy.javac.phase{phase=parse|enter|analyze|generate}}.
+ */
+@Slf4j
+public class PipelineCompiler {
+
+    private static final Map<String, String> WARM_UP_SOURCES = Map.of(
+            "demo.WarmUp",
+            """
+            package demo;
+
+            import java.util.Comparator;
+            import java.util.List;
+            import java.util.stream.Collectors;
+
+            public class WarmUp {
+
+                public static Object run(List<String> input) {
+                    return input.stream()
+                            .sorted(Comparator.comparing(String::length))
+                            .collect(Collectors.groupingBy(String::length));
+                }
+            }
+            """
+    );
+
+    private final JavaCompiler compiler;
+    private final int poolSize;
+    private final BlockingQueue<CompilerContext> idle;
+    private final AtomicInteger created = new AtomicInteger();
+    private final Timer compileTimer;
+    private final Map<TaskEvent.Kind, Timer> javacPhaseTimers = new EnumMap<>(TaskEvent.Kind.class);
+
+    public PipelineCompiler(EngineProperties.Compiler properties) {
+        this(properties, new SimpleMeterRegistry());
+    }
+
+    public PipelineCompiler(EngineProperties.Compiler properties, MeterRegistry meterRegistry) {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        this.poolSize = Math.max(1, properties.getPoolSize());
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+        this.compileTimer = PipelinePhase.COMPILE.timer(meterRegistry);
+        for (TaskEvent.Kind kind : JavacPhaseListener.TIMED) {
+            javacPhaseTimers.put(kind, Timer.builder("streamy.javac.phase")
+                    .tag("phase", kind.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    public CompilationResult compile(Map<String, String> sources) {
+        CompilerContext context = checkout();
+        try {
+            return compileTimer.record(() -> context.compile(sources, javacPhaseTimers));
+        } finally {
+            idle.offer(context);
+        }
+    }
+
+    /**
+     * Parses and type-checks the sources without generating bytecode, which is all the
+     * editor's live diagnostics need. {@code cancelled} is polled whenever javac starts a new
+     * phase; once it returns true the task is abandoned with a {@link CancellationException}.
+     */
+    public List<Diagnostic<? extends JavaFileObject>> analyze(
+            Map<String, String> sources,
+            BooleanSupplier cancelled
+    ) {
+        CompilerContext context = checkout();
+        try {
+            return context.analyze(sources, cancelled);
+        } finally {
+            idle.offer(context);
+        }
+    }
+
+    /**
+     * Fills the pool and runs one throwaway compilation per context, so the first real
+     * submission finds javac's classes loaded and the platform listings cached.
+     */
+    public void warmUp() {
+        List<CompilerContext> contexts = new ArrayList<>();
+        try {
+            while (contexts.size() < poolSize) {
+                contexts.add(checkout());
+            }
+            List<Thread> threads = new ArrayList<>();
+            for (CompilerContext context : contexts) {
+                threads.add(Thread.ofPlatform()
+                        .name("javac-warm-up-" + threads.size())
+                        .start(() -> context.compile(WARM_UP_SOURCES, Map.of())));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            log.debug("Warmed up {} compiler contexts", contexts.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            contexts.forEach(idle::offer);
+        }
+    }
+
+    public int poolSize() {
+        return poolSize;
+    }
+
+    private CompilerContext checkout() {
+        if (compiler == null) {
+            throw new IllegalStateException("Compiler not available");
+        }
+
+        CompilerContext context = idle.poll();
+        if (context != null) {
+            return context;
+        }
+
+        if (created.incrementAndGet() <= poolSize) {
+            return new CompilerContext(compiler);
+        }
+        created.decrementAndGet();
+
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a compiler", e);
+        }
+    }
+
+    public static class CompilationResult {
+        final boolean success;
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+        final Map<String, byte[]> compiledClasses;
+
+        CompilationResult(
+                boolean success,
+                List<Diagnostic<? extends JavaFileObject>> diagnostics,
+                Map<String, byte[]> compiledClasses
+        ) {
+            this.success = success;
+            this.diagnostics = diagnostics;
+            this.compiledClasses = compiledClasses;
+        }
+
+        String errorMessage() {
+            StringBuilder sb = new StringBuilder();
+            for (Diagnostic<? extends JavaFileObject> d : diagnostics) {
+                sb.append(d.getMessage(null));
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Narrows a multi-class result down to one submitted class: its own diagnostics, the
+         * diagnostics without a source, and its bytecode including nested classes.
+         */
+        CompilationResult slice(String className) {
+            List<Diagnostic<? extends JavaFileObject>> own = new ArrayList<>();
+            for (Diagnostic<? extends JavaFileObject> d : diagnostics) {
+                if (d.getSource() == null || className.equals(classNameOf(d.getSource()))) {
+                    own.add(d);
+                }
+            }
+
+            Map<String, byte[]> classes = new HashMap<>();
+            for (Map.Entry<String, byte[]> e : compiledClasses.entrySet()) {
+                if (e.getKey().equals(className) || e.getKey().startsWith(className + "$")) {
+                    classes.put(e.getKey(), e.getValue());
+                }
+            }
+
+            return new CompilationResult(success, own, classes);
+        }
+
+        boolean hasErrorsIn(String className) {
+            for (Diagnostic<? extends JavaFileObject> d : diagnostics) {
+                if (d.getKind() == Diagnostic.Kind.ERROR
+                        && d.getSource() != null
+                        && className.equals(classNameOf(d.getSource()))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int byteCodeSize() {
+            int size = 0;
+            for (byte[] bytes : compiledClasses.values()) {
+                size += bytes.length;
+            }
+            return size;
+        }
+    }
+
+    private static String classNameOf(JavaFileObject source) {
+        String path = source.toUri().getPath();
+        return path
+                .substring(1, path.length() - JavaFileObject.Kind.SOURCE.extension.length())
+                .replace('/', '.');
+    }
+
+    private static class CompilerContext {
+        private final JavaCompiler compiler;
+        private final MemoryFileManager fileManager;
+
+        CompilerContext(JavaCompiler compiler) {
+            this.compiler = compiler;
+            this.fileManager = new MemoryFileManager(
+                    compiler.getStandardFileManager(null, null, null)
+            );
+        }
+
+        CompilationResult compile(Map<String, String> sources, Map<TaskEvent.Kind, Timer> phaseTimers) {
+            DiagnosticCollector<JavaFileObject> diagnostics =
+                    new DiagnosticCollector<>();
+
+            JavaCompiler.CompilationTask task =
+                    compiler.getTask(
+                            null,
+                            fileManager,
+                            diagnostics,
+                            null,
+                            null,
+                            sourceFiles(sources)
+                    );
+            JavacPhaseListener phases = new JavacPhaseListener();
+            if (!phaseTimers.isEmpty()) {
+                ((JavacTask) task).addTaskListener(phases);
+            }
+
+            try {
+                boolean success = Boolean.TRUE.equals(task.call());
+                phases.recordTo(phaseTimers);
+
+                return new CompilationResult(
+                        success,
+                        diagnostics.getDiagnostics(),
+                        fileManager.getAllByteCode()
+                );
+            } finally {
+                fileManager.reset();
+            }
+        }
+
+        List<Diagnostic<? extends JavaFileObject>> analyze(
+                Map<String, String> sources,
+                BooleanSupplier cancelled
+        ) {
+            DiagnosticCollector<JavaFileObject> diagnostics =
+                    new DiagnosticCollector<>();
+
+            // -proc:none spares javac the search for annotation processors on the classpath
+            JavacTask task = (JavacTask) compiler.getTask(
+                    null,
+                    fileManager,
+                    diagnostics,
+                    List.of("-proc:none"),
+                    null,
+                    sourceFiles(sources)
+            );
+            task.addTaskListener(new TaskListener() {
+                @Override
+                public void started(TaskEvent e) {
+                    if (cancelled.getAsBoolean()) {
+                        throw new CancellationException();
+                    }
+                }
+            });
+
+            try {
+                task.analyze();
+                return diagnostics.getDiagnostics();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                // javac wraps exceptions thrown by listeners
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("Superseded by a newer check");
+                }
+                throw e;
+            } finally {
+                fileManager.reset();
+            }
+        }
+
+        private static List<JavaFileObject> sourceFiles(Map<String, String> sources) {
+            List<JavaFileObject> sourceFiles = new ArrayList<>();
+            for (Map.Entry<String, String> e : sources.entrySet()) {
+                sourceFiles.add(new SourceCode(e.getKey(), e.getValue()));
+            }
+            return sourceFiles;
+        }
+    }
+
+    /**
+     * Adds up the time javac spends in each phase of one task. javac reports parsing per
+     * compilation unit and analysis and generation per class, but never runs two events of the
+     * same kind at once, so one start time per kind suffices.
+     */
+    private static class JavacPhaseListener implements TaskListener {
+
+        static final List<TaskEvent.Kind> TIMED = List.of(
+                TaskEvent.Kind.PARSE,
+                TaskEvent.Kind.ENTER,
+                TaskEvent.Kind.ANALYZE,
+                TaskEvent.Kind.GENERATE
+        );
+
+        private final Map<TaskEvent.Kind, Long> started = new EnumMap<>(TaskEvent.Kind.class);
+        private final Map<TaskEvent.Kind, Long> total = new EnumMap<>(TaskEvent.Kind.class);
+
+        @Override
+        public void started(TaskEvent e) {
+            started.put(e.getKind(), System.nanoTime());
+        }
+
+        @Override
+        public void finished(TaskEvent e) {
+            Long start = started.remove(e.getKind());
+            if (start != null) {
+                total.merge(e.getKind(), System.nanoTime() - start, Long::sum);
+            }
+        }
+
+        void recordTo(Map<TaskEvent.Kind, Timer> timers) {
+            for (Map.Entry<TaskEvent.Kind, Long> e : total.entrySet()) {
+                Timer timer = timers.get(e.getKey());
+                if (timer != null) {
+                    timer.record(e.getValue(), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
+
+    private static class SourceCode extends SimpleJavaFileObject {
+        private final String code;
+
+        SourceCode(String className, String code) {
+            super(
+                    URI.create(
+                            "string:///" +
+                                    className.replace('.', '/') +
+                                    Kind.SOURCE.extension
+                    ),
+                    Kind.SOURCE
+            );
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    private static class ByteCode extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream outputStream =
+                new ByteArrayOutputStream();
+
+        ByteCode(String className) {
+            super(
+                    URI.create(
+                            "bytes:///" +
+                                    className.replace('.', '/') +
+                                    Kind.CLASS.extension
+                    ),
+                    Kind.CLASS
+            );
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return outputStream;
+        }
+
+        byte[] getBytes() {
+            return outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * Captures class output in memory and memoizes listings of the read-only locations
+     * (platform modules and classpath), which javac otherwise walks again for every task.
+     */
+    private static class MemoryFileManager
+            extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final Map<String, ByteCode> compiled =
+                new HashMap<>();
+
+        private final Map<ListingKey, List<JavaFileObject>> listings =
+                new HashMap<>();
+
+        MemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public Iterable<JavaFileObject> list(
+                JavaFileManager.Location location,
+                String packageName,
+                Set<JavaFileObject.Kind> kinds,
+                boolean recurse
+        ) throws IOException {
+            if (location.isOutputLocation() || location == StandardLocation.SOURCE_PATH) {
+                return super.list(location, packageName, kinds, recurse);
+            }
+
+            ListingKey key = new ListingKey(location.getName(), packageName, Set.copyOf(kinds), recurse);
+            List<JavaFileObject> listing = listings.get(key);
+            if (listing == null) {
+                listing = new ArrayList<>();
+                for (JavaFileObject file : super.list(location, packageName, kinds, recurse)) {
+                    listing.add(file);
+                }
+                listings.put(key, listing);
+            }
+            return listing;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(
+                JavaFileManager.Location location,
+                String className,
+                JavaFileObject.Kind kind,
+                FileObject sibling
+        ) {
+            ByteCode byteCode = new ByteCode(className);
+            compiled.put(className, byteCode);
+            return byteCode;
+        }
+
+        Map<String, byte[]> getAllByteCode() {
+            Map<String, byte[]> out = new HashMap<>();
+            for (Map.Entry<String, ByteCode> e : compiled.entrySet()) {
+                out.put(e.getKey(), e.getValue().getBytes());
+            }
+            return out;
+        }
+
+        void reset() {
+            compiled.clear();
+        }
+    }
+
+    private record ListingKey(
+            String location,
+            String packageName,
+            Set<JavaFileObject.Kind> kinds,
+            boolean recurse
+    ) {}
+}
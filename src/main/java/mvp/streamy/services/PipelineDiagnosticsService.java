@@ -0,0 +1,171 @@
+package mvp.streamy.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.models.PipelineDiagnostic;
+import mvp.streamy.models.PipelineDiagnosticsDTO;
+import mvp.streamy.models.Riddle;
+import mvp.streamy.services.SubmissionAdmission.Ticket;
+import mvp.streamy.services.validation.InvalidPipelineException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Checks pipelines while they are typed, for the editor's live diagnostics. Nothing is turned
+ * into bytecode or run: the allowlist validator goes first, pipelines the engine already has
+ * cached or the interpreter understands are accepted without javac, and only the rest is
+ * parsed and type-checked by javac against the riddle's {@code dataType}.
+ *
+ * <p>Each check of a session supersedes the one before it. A check that is still waiting for
+ * a slot when a newer one arrives leaves the admission queue at once; one inside javac is
+ * abandoned at javac's next phase. Both are answered with {@code cancelled=true}, so one
+ * session keeps at most one place in the queue or compiler context busy.
+ *
+ * <p>javac runs only once {@link SubmissionAdmission} gives the check a slot, like a
+ * submission of the same client; a check that finds the queue full fails with an
+ * {@link AdmissionRejectedException}.
+ *
+ * <p>Checks are timed as
+ * {@code streamy.diagnostics{checked-by=validator|engine|javac,outcome}}, outcome being one of
+ * {@code valid}, {@code invalid}, {@code cancelled} and {@code rejected}.
+ */
+@Service
+public class PipelineDiagnosticsService {
+
+    private final StreamPipelineEngineServiceV2 engine;
+    private final RiddleRepository riddleRepository;
+    private final SubmissionAdmission admission;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Check> running = new ConcurrentHashMap<>();
+
+    public PipelineDiagnosticsService(
+            StreamPipelineEngineServiceV2 engine,
+            RiddleRepository riddleRepository,
+            SubmissionAdmission admission,
+            MeterRegistry meterRegistry
+    ) {
+        this.engine = engine;
+        this.riddleRepository = riddleRepository;
+        this.admission = admission;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public PipelineDiagnosticsDTO diagnose(String riddleId, String pipeline, String sessionId) {
+        return diagnose(riddleId, pipeline, sessionId, SubmissionAdmission.ANONYMOUS);
+    }
+
+    /**
+     * @param sessionId identifies the editor the check comes from; {@code null} checks are
+     *                  never superseded
+     * @param clientId  whose share of {@link SubmissionAdmission} a javac check waits in
+     */
+    public PipelineDiagnosticsDTO diagnose(String riddleId, String pipeline, String sessionId, String clientId) {
+        Riddle riddle = riddleRepository.findById(riddleId);
+        if (riddle == null) {
+            throw new IllegalArgumentException("Unknown riddle: " + riddleId);
+        }
+        String source = pipeline != null ? pipeline : "";
+
+        Check check = new Check();
+        if (sessionId != null) {
+            Check previous = running.put(sessionId, check);
+            if (previous != null) {
+                previous.supersede();
+            }
+        }
+
+        long start = System.nanoTime();
+        String checkedBy = "validator";
+        try {
+            List<PipelineDiagnostic> diagnostics =
+                    validate(source, riddle.dataType(), engine.executionBudget(riddleId).parallel());
+            if (diagnostics.isEmpty()) {
+                checkedBy = "engine";
+                if (engine.needsTypeCheck(source, riddle.dataType())) {
+                    checkedBy = "javac";
+                    diagnostics = typeCheck(source, riddle.dataType(), clientId, check);
+                }
+            }
+
+            boolean valid = diagnostics.stream()
+                    .noneMatch(d -> d.severity() == PipelineDiagnostic.Severity.ERROR);
+            record(start, checkedBy, valid ? "valid" : "invalid");
+            return new PipelineDiagnosticsDTO(valid, false, diagnostics);
+        } catch (CancellationException e) {
+            record(start, checkedBy, "cancelled");
+            return new PipelineDiagnosticsDTO(false, true, List.of());
+        } catch (AdmissionRejectedException e) {
+            record(start, checkedBy, "rejected");
+            throw e;
+        } finally {
+            if (sessionId != null) {
+                running.remove(sessionId, check);
+            }
+        }
+    }
+
+    private List<PipelineDiagnostic> typeCheck(String source, Class<?> elementType, String clientId, Check check) {
+        if (check.isSuperseded()) {
+            throw new CancellationException("Superseded before it was queued");
+        }
+        try (Ticket ticket = admission.enqueue(clientId)) {
+            check.queued(ticket);
+            ticket.await();
+            return engine.typeCheck(source, elementType, check::isSuperseded);
+        }
+    }
+
+    private List<PipelineDiagnostic> validate(String pipeline, Class<?> elementType, boolean allowParallel) {
+        try {
+            engine.validatePipeline(pipeline, elementType, allowParallel);
+            return List.of();
+        } catch (InvalidPipelineException e) {
+            return List.of(PipelineDiagnostic.error(e.getMessage(), e.position(), e.position()));
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            return List.of(PipelineDiagnostic.error(e.getMessage(), -1, -1));
+        }
+    }
+
+    /**
+     * A check that a newer one of the same session supersedes: it leaves the admission queue
+     * right away, or stops at javac's next phase once it has a slot.
+     */
+    private static final class Check {
+
+        private final AtomicBoolean superseded = new AtomicBoolean();
+        private volatile Ticket ticket;
+
+        void queued(Ticket ticket) {
+            this.ticket = ticket;
+            if (superseded.get()) {
+                ticket.cancel();
+            }
+        }
+
+        void supersede() {
+            superseded.set(true);
+            Ticket queued = ticket;
+            if (queued != null) {
+                queued.cancel();
+            }
+        }
+
+        boolean isSuperseded() {
+            return superseded.get();
+        }
+    }
+
+    private void record(long start, String checkedBy, String outcome) {
+        Timer.builder("streamy.diagnostics")
+                .tag("checked-by", checkedBy)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,168 @@
+package mvp.streamy.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.services.ExecutionWatchdog.RunningExecution;
+
+/**
+ * Runs pipelines on a pool of platform threads. The number of executions in flight is bounded
+ * by {@code streamy.engine.execution.max-concurrent-executions}; the time, CPU time and
+ * allocation limits are enforced by a shared {@link ExecutionWatchdog} instead of a dedicated
+ * thread per submission.
+ *
+ * <p>The workers are platform threads because HotSpot only counts CPU time and allocated
+ * bytes per platform thread; a virtual thread's work would be spread over its carriers.
+ *
+ * <p>A run with a {@link ExecutionBudget#parallel() parallel} budget is handed from its worker
+ * to a fork-join pool of {@link ParallelPools} with the budget's parallelism, which it keeps
+ * for as long as it holds its slot; {@code streamy.executions.parallel-pools} counts the
+ * pools created.
+ *
+ * <p>Run time on the worker is timed as {@code streamy.pipeline.phase{phase=execute}};
+ * {@code streamy.executions.active}, {@code streamy.executions.queued},
+ * {@code streamy.executions.stuck}, {@code streamy.executions.timeouts} and
+ * {@code streamy.executions.budget.exceeded{resource}} show how close the engine is to its
+ * limits.
+ */
+public class PipelineExecutor implements AutoCloseable {
+
+    private final ExecutorService workers;
+    private final ExecutionWatchdog watchdog;
+    private final ParallelPools parallelPools = new ParallelPools();
+    private final Semaphore slots;
+    private final EngineProperties.Execution properties;
+    private final ExecutionBudget defaultBudget;
+    private final Timer executeTimer;
+    private final Counter timeouts;
+    private final MeterRegistry meterRegistry;
+
+    public PipelineExecutor(EngineProperties.Execution properties) {
+        this(properties, new SimpleMeterRegistry());
+    }
+
+    public PipelineExecutor(EngineProperties.Execution properties, MeterRegistry meterRegistry) {
+        this.workers = Executors.newCachedThreadPool(
+                Thread.ofPlatform().name("pipeline-", 0).daemon().factory()
+        );
+        this.watchdog = new ExecutionWatchdog(properties.getWatchdogInterval());
+        this.slots = new Semaphore(properties.getMaxConcurrentExecutions(), true);
+        this.properties = properties;
+        this.defaultBudget = ExecutionBudget.of(properties);
+        this.meterRegistry = meterRegistry;
+        this.executeTimer = PipelinePhase.EXECUTE.timer(meterRegistry);
+        this.timeouts = meterRegistry.counter("streamy.executions.timeouts");
+        Gauge.builder("streamy.executions.active", this, PipelineExecutor::activeExecutions)
+                .register(meterRegistry);
+        Gauge.builder("streamy.executions.queued", this, PipelineExecutor::queuedExecutions)
+                .register(meterRegistry);
+        Gauge.builder("streamy.executions.stuck", this, PipelineExecutor::stuckExecutions)
+                .register(meterRegistry);
+        Gauge.builder("streamy.executions.parallel-pools", parallelPools, ParallelPools::createdPools)
+                .register(meterRegistry);
+    }
+
+    public Object execute(Callable<Object> task) {
+        return execute(task, defaultBudget).result();
+    }
+
+    public ExecutionReport execute(Callable<Object> task, ExecutionBudget budget) {
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an execution slot", e);
+        }
+
+        RunningExecution execution = watchdog.newExecution(budget, slots::release);
+        watchdog.register(execution);
+
+        workers.execute(() -> {
+            ParallelPools.Pool pool = budget.parallel() ? parallelPools.acquire(budget.parallelism()) : null;
+            execution.started(Thread.currentThread(), pool);
+            long start = System.nanoTime();
+            try {
+                Object result = pool != null ? pool.invoke(task) : task.call();
+                long wallTime = System.nanoTime() - start;
+                executeTimer.record(wallTime, TimeUnit.NANOSECONDS);
+                execution.result.complete(new ExecutionReport(
+                        result, execution.cpuTime(), execution.allocatedBytes(), wallTime
+                ));
+            } catch (Throwable t) {
+                executeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                execution.result.completeExceptionally(t);
+            } finally {
+                watchdog.unregister(execution);
+                ParallelPools.Pool idle = execution.detachPool();
+                if (idle != null) {
+                    parallelPools.release(idle);
+                }
+                execution.finished();
+            }
+        });
+
+        try {
+            return execution.result.get();
+        } catch (InterruptedException e) {
+            execution.abort(e);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the pipeline", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                timeouts.increment();
+                throw new RuntimeException("Execution timed out! Possible infinite loop detected.");
+            }
+            if (cause instanceof ExecutionBudgetExceededException overrun) {
+                meterRegistry.counter("streamy.executions.budget.exceeded", "resource", overrun.resource())
+                        .increment();
+                throw overrun;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    public ExecutionBudget defaultBudget() {
+        return defaultBudget;
+    }
+
+    /**
+     * The limits for runs of the given riddle, with overrides from
+     * {@code streamy.engine.execution.riddles.<id>} applied.
+     */
+    public ExecutionBudget budgetFor(String riddleId) {
+        return ExecutionBudget.forRiddle(properties, riddleId);
+    }
+
+    public int activeExecutions() {
+        return watchdog.runningCount();
+    }
+
+    /**
+     * Aborted runs whose pipeline ignored the interrupt and is still running on its worker.
+     */
+    public int stuckExecutions() {
+        return watchdog.stuckCount();
+    }
+
+    public int queuedExecutions() {
+        return slots.getQueueLength();
+    }
+
+    @Override
+    public void close() {
+        watchdog.close();
+        workers.shutdownNow();
+        parallelPools.close();
+    }
+}
@@ -0,0 +1,108 @@
+package mvp.streamy.services;
+
+/**
+ * Cache key for a submitted pipeline: the pipeline text with insignificant whitespace and
+ * comments removed, plus the element type it is compiled against. Two submissions that only
+ * differ in formatting map to the same key.
+ */
+public record PipelineKey(
+        String normalizedPipeline,
+        String elementType
+) {
+
+    public static PipelineKey of(String pipeline, Class<?> elementType) {
+        return new PipelineKey(normalize(pipeline), elementType.getName());
+    }
+
+    int weight() {
+        return normalizedPipeline.length() + elementType.length();
+    }
+
+    /**
+     * Collapses whitespace and drops comments outside of string, char and text block literals.
+     * A whitespace run is kept as a single space unless one side is a token that can never
+     * merge with its neighbour, so {@code a - -b} and {@code a--b} stay distinct.
+     */
+    static String normalize(String pipeline) {
+        StringBuilder out = new StringBuilder(pipeline.length());
+        boolean pendingSpace = false;
+        int i = 0;
+        int length = pipeline.length();
+
+        while (i < length) {
+            char c = pipeline.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            if (c == '/' && i + 1 < length && pipeline.charAt(i + 1) == '/') {
+                while (i < length && pipeline.charAt(i) != '\n') {
+                    i++;
+                }
+                pendingSpace = true;
+                continue;
+            }
+            if (c == '/' && i + 1 < length && pipeline.charAt(i + 1) == '*') {
+                int end = pipeline.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                pendingSpace = true;
+                continue;
+            }
+
+            if (pendingSpace && !out.isEmpty() && needsSeparator(out.charAt(out.length() - 1), c)) {
+                out.append(' ');
+            }
+            pendingSpace = false;
+
+            if (pipeline.startsWith("\"\"\"", i)) {
+                int end = pipeline.indexOf("\"\"\"", i + 3);
+                int stop = end < 0 ? length : end + 3;
+                out.append(pipeline, i, stop);
+                i = stop;
+            } else if (c == '"' || c == '\'') {
+                int stop = endOfLiteral(pipeline, i, c);
+                out.append(pipeline, i, stop);
+                i = stop;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    private static int endOfLiteral(String text, int start, char quote) {
+        int i = start + 1;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            i++;
+            if (c == quote) {
+                break;
+            }
+        }
+        return Math.min(i, text.length());
+    }
+
+    private static boolean needsSeparator(char before, char after) {
+        if (isStandalone(before) || isStandalone(after)) {
+            return false;
+        }
+        if (before == '.' && !Character.isDigit(after)) {
+            return false;
+        }
+        return after != '.' || Character.isDigit(before);
+    }
+
+    private static boolean isStandalone(char c) {
+        return switch (c) {
+            case '(', ')', '[', ']', '{', '}', ',', ';' -> true;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package mvp.streamy.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The steps a submission goes through, each timed as {@code streamy.pipeline.phase{phase=...}}.
+ * javac's own phases are broken down further in {@code streamy.javac.phase}.
+ */
+enum PipelinePhase {
+    VALIDATE,
+    COMPILE,
+    DEFINE,
+    EXECUTE,
+    INTERPRET,
+    COMPARE,
+    CONVERT;
+
+    Timer timer(MeterRegistry meterRegistry) {
+        return Timer.builder("streamy.pipeline.phase")
+                .tag("phase", name().toLowerCase())
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,152 @@
+package mvp.streamy.services;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import mvp.streamy.models.ResultType;
+import mvp.streamy.models.Riddle;
+import mvp.streamy.models.SafariAnimal;
+
+/**
+ * Precomputed summary of a riddle's expected output: its {@link ResultType} and its size.
+ *
+ * <p>{@link #matches} rejects a wrong type or size without looking at a single element and
+ * otherwise walks expected and actual output in lockstep, stopping at the first difference.
+ * Nothing is copied. Without a tie key, the result is the same as comparing the two
+ * {@link ResultValueFactory} values with {@code equals}.
+ *
+ * <p>With a {@link Riddle#tieKey() tie key}, animals only have to agree on their key: in a
+ * list, every position must hold an animal with the expected key and each run of equal keys
+ * the same animals in any order; a single animal, also as a map value, may be any animal with
+ * the expected key.
+ */
+public record ResultFingerprint(
+        ResultType type,
+        int size,
+        Object expected,
+        Function<SafariAnimal, ?> tieKey
+) {
+
+    public static ResultFingerprint of(Object expected) {
+        return of(expected, null);
+    }
+
+    public static ResultFingerprint of(Object expected, Function<SafariAnimal, ?> tieKey) {
+        return new ResultFingerprint(
+                ResultValueFactory.typeOf(expected),
+                sizeOf(expected),
+                expected,
+                tieKey
+        );
+    }
+
+    public boolean matches(Object actual) {
+        if (actual == null || expected == null) {
+            return actual == expected;
+        }
+        if (ResultValueFactory.typeOf(actual) != type || sizeOf(actual) != size) {
+            return false;
+        }
+        if (expected instanceof Collection<?> expectedItems) {
+            return sameSequence(expectedItems, (Collection<?>) actual);
+        }
+        return sameValue(expected, actual);
+    }
+
+    private boolean sameValue(Object expected, Object actual) {
+        if (expected instanceof List<?> expectedList) {
+            return actual instanceof List<?> actualList
+                    && expectedList.size() == actualList.size()
+                    && sameSequence(expectedList, actualList);
+        }
+        if (expected instanceof Map<?, ?> expectedMap) {
+            return actual instanceof Map<?, ?> actualMap
+                    && sameEntries(expectedMap, actualMap);
+        }
+        if (tieKey != null && expected instanceof SafariAnimal expectedAnimal) {
+            return actual instanceof SafariAnimal actualAnimal
+                    && Objects.equals(tieKey.apply(expectedAnimal), tieKey.apply(actualAnimal));
+        }
+        return Objects.equals(expected, actual);
+    }
+
+    private boolean sameSequence(Collection<?> expected, Collection<?> actual) {
+        if (tieKey != null) {
+            return sameSequenceUpToTies(expected, actual);
+        }
+        Iterator<?> expectedItems = expected.iterator();
+        Iterator<?> actualItems = actual.iterator();
+        while (expectedItems.hasNext() && actualItems.hasNext()) {
+            if (!sameValue(expectedItems.next(), actualItems.next())) {
+                return false;
+            }
+        }
+        return !expectedItems.hasNext() && !actualItems.hasNext();
+    }
+
+    /**
+     * Lockstep walk that compares each run of animals with equal keys as a multiset. Only
+     * animals that differ from the expected one at their position are counted, so an exact
+     * match allocates nothing.
+     */
+    private boolean sameSequenceUpToTies(Collection<?> expected, Collection<?> actual) {
+        Iterator<?> expectedItems = expected.iterator();
+        Iterator<?> actualItems = actual.iterator();
+        Map<Object, Integer> unmatched = new HashMap<>();
+        Object runKey = null;
+        while (expectedItems.hasNext() && actualItems.hasNext()) {
+            Object expectedItem = expectedItems.next();
+            Object actualItem = actualItems.next();
+            if (!(expectedItem instanceof SafariAnimal expectedAnimal)
+                    || !(actualItem instanceof SafariAnimal actualAnimal)) {
+                if (!unmatched.isEmpty() || !sameValue(expectedItem, actualItem)) {
+                    return false;
+                }
+                continue;
+            }
+            Object key = tieKey.apply(expectedAnimal);
+            if (!Objects.equals(key, tieKey.apply(actualAnimal))) {
+                return false;
+            }
+            if (!Objects.equals(key, runKey) && !unmatched.isEmpty()) {
+                return false;
+            }
+            runKey = key;
+            if (!expectedAnimal.equals(actualAnimal)) {
+                unmatched.merge(expectedAnimal, 1, (a, b) -> a + b == 0 ? null : a + b);
+                unmatched.merge(actualAnimal, -1, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+        return !expectedItems.hasNext() && !actualItems.hasNext() && unmatched.isEmpty();
+    }
+
+    private boolean sameEntries(Map<?, ?> expected, Map<?, ?> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (Map.Entry<?, ?> entry : actual.entrySet()) {
+            Object expectedValue = expected.get(entry.getKey());
+            if (expectedValue == null && !expected.containsKey(entry.getKey())) {
+                return false;
+            }
+            if (!sameValue(expectedValue, entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int sizeOf(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        return 1;
+    }
+}
@@ -4,9 +4,12 @@ import mvp.streamy.models.ResultType;
 import mvp.streamy.models.ResultValue;
 import mvp.streamy.models.SafariAnimal;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public final class ResultValueFactory {
 
@@ -23,7 +26,12 @@ public final class ResultValueFactory {
             return new ResultValue(ResultType.MAP, map);
         }
 
+        if (value instanceof List<?> list) {
+            return new ResultValue(ResultType.LIST, list);
+        }
+
         if (value instanceof Collection<?> collection) {
+            // other collections are graded as lists in iteration order
             return new ResultValue(ResultType.LIST, List.copyOf(collection));
         }
 
@@ -36,5 +44,113 @@ public final class ResultValueFactory {
         );
     }
 
+    /**
+     * The output as it is sent to the client: at most {@code limit} items, counting the items
+     * of nested collections and maps as well, taken from the front of the output. Only the
+     * references to those items are copied, so a response stays the same size however large
+     * the output is. Size and hash describe the whole output; the hash is order-aware for
+     * lists and order-insensitive for maps, so equal outputs have equal hashes.
+     */
+    public static ResultValue preview(Object value, int limit) {
+        ResultType type = typeOf(value);
+        if (type == null) {
+            throw new IllegalArgumentException(
+                    "Unsupported result type: " + value.getClass()
+            );
+        }
+
+        Budget budget = new Budget(limit);
+        Object preview = previewOf(value, budget);
+        return new ResultValue(
+                type,
+                preview,
+                ResultFingerprint.sizeOf(value),
+                budget.truncated,
+                Integer.toHexString(hashOf(value))
+        );
+    }
+
+    private static int hashOf(Object value) {
+        if (value instanceof Collection<?> collection) {
+            // same as List.hashCode, also for sets graded as lists
+            int hash = 1;
+            for (Object item : collection) {
+                hash = 31 * hash + Objects.hashCode(item);
+            }
+            return hash;
+        }
+        // Map.hashCode sums its entry hashes and does not depend on iteration order
+        return Objects.hashCode(value);
+    }
+
+    /**
+     * Only the items {@link #preview} would send, without size and hash, for the partial output
+     * of a submission.
+     */
+    static Object previewItems(Object value, int limit) {
+        return previewOf(value, new Budget(limit));
+    }
+
+    private static Object previewOf(Object value, Budget budget) {
+        if (value instanceof Collection<?> collection) {
+            List<Object> items = new ArrayList<>(Math.min(collection.size(), budget.remaining));
+            for (Object item : collection) {
+                if (!budget.take()) {
+                    break;
+                }
+                items.add(previewOf(item, budget));
+            }
+            return items;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> entries = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!budget.take()) {
+                    break;
+                }
+                entries.put(entry.getKey(), previewOf(entry.getValue(), budget));
+            }
+            return entries;
+        }
+        return value;
+    }
+
+    /**
+     * The {@link ResultType} {@link #from} would assign, without wrapping or copying the value.
+     */
+    static ResultType typeOf(Object value) {
+        if (value == null || value instanceof Number) {
+            return ResultType.NUMBER;
+        }
+        if (value instanceof Map<?, ?>) {
+            return ResultType.MAP;
+        }
+        if (value instanceof Collection<?>) {
+            return ResultType.LIST;
+        }
+        if (value instanceof SafariAnimal) {
+            return ResultType.SAFARIANIMAL;
+        }
+        return null;
+    }
+
+    private static class Budget {
+        int remaining;
+        boolean truncated;
+
+        Budget(int remaining) {
+            this.remaining = Math.max(0, remaining);
+        }
+
+        boolean take() {
+            if (remaining == 0) {
+                truncated = true;
+                return false;
+            }
+            remaining--;
+            return true;
+        }
+    }
+
     private ResultValueFactory() {}
 }
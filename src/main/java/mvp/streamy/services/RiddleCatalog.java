@@ -0,0 +1,143 @@
+package mvp.streamy.services;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.models.Riddle;
+import mvp.streamy.models.RiddleCatalogPageDTO;
+import mvp.streamy.models.RiddleInputPageDTO;
+import mvp.streamy.models.RiddleSummary;
+import mvp.streamy.models.SafariAnimal;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * The riddle catalog as the API serves it: pages of {@link RiddleSummary}s, and pages of the
+ * input of one riddle on demand.
+ *
+ * <p>Riddles never change at runtime, so every response body is serialized once, on its first
+ * request, and from then on served as the same bytes with a strong ETag (the quoted SHA-256 of
+ * those bytes). Pages past the end are not kept, so the number of stored bodies is bounded by
+ * the riddles and the page sizes in use. Of a riddle's input only a first page of
+ * {@link #MAX_INPUT_PAGE_SIZE} that holds the whole input is kept; every other input page,
+ * e.g. of the generated datasets of the larger tiers, is serialized on each request, so an
+ * input is never held in memory a second time as JSON.
+ */
+@Service
+public class RiddleCatalog {
+
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_INPUT_PAGE_SIZE = 1000;
+
+    private final RiddleRepository riddleRepository;
+    private final JsonMapper jsonMapper;
+    private final Map<String, SerializedBody> bodies = new ConcurrentHashMap<>();
+
+    public RiddleCatalog(RiddleRepository riddleRepository, JsonMapper jsonMapper) {
+        this.riddleRepository = riddleRepository;
+        this.jsonMapper = jsonMapper;
+    }
+
+    public SerializedBody page(int page, int size) {
+        checkPage(page, size, MAX_PAGE_SIZE);
+
+        List<Riddle> riddles = riddleRepository.findAll();
+        if ((long) page * size >= riddles.size()) {
+            return serialize(pageOf(page, size));
+        }
+        return bodies.computeIfAbsent("page:" + page + ":" + size, key -> serialize(pageOf(page, size)));
+    }
+
+    public SerializedBody summary(String riddleId) {
+        Riddle riddle = find(riddleId);
+        return bodies.computeIfAbsent("summary:" + riddleId, key -> serialize(RiddleSummary.of(riddle)));
+    }
+
+    public SerializedBody input(String riddleId, int page, int size) {
+        checkPage(page, size, MAX_INPUT_PAGE_SIZE);
+        Riddle riddle = find(riddleId);
+
+        if (page > 0 || size < MAX_INPUT_PAGE_SIZE || riddle.input().size() > MAX_INPUT_PAGE_SIZE) {
+            return serialize(inputPageOf(riddle, page, size));
+        }
+        return bodies.computeIfAbsent("input:" + riddleId, key -> serialize(inputPageOf(riddle, page, size)));
+    }
+
+    RiddleInputPageDTO inputPageOf(Riddle riddle, int page, int size) {
+        List<SafariAnimal> input = riddle.input();
+        int from = (int) Math.min((long) page * size, input.size());
+        int to = Math.min(from + size, input.size());
+        return new RiddleInputPageDTO(input.subList(from, to), page, size, input.size());
+    }
+
+    RiddleCatalogPageDTO pageOf(int page, int size) {
+        List<Riddle> riddles = riddleRepository.findAll();
+        int from = (int) Math.min((long) page * size, riddles.size());
+        int to = Math.min(from + size, riddles.size());
+        List<RiddleSummary> summaries = riddles.subList(from, to).stream()
+                .map(RiddleSummary::of)
+                .toList();
+        return new RiddleCatalogPageDTO(summaries, page, size, riddles.size());
+    }
+
+    private static void checkPage(int page, int size, int maxSize) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        if (size < 1 || size > maxSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxSize);
+        }
+    }
+
+    private Riddle find(String riddleId) {
+        Riddle riddle = riddleRepository.findById(riddleId);
+        if (riddle == null) {
+            throw new NoSuchElementException("Unknown riddle: " + riddleId);
+        }
+        return riddle;
+    }
+
+    private SerializedBody serialize(Object value) {
+        byte[] bytes = jsonMapper.writeValueAsBytes(value);
+        return new SerializedBody(bytes, "\"" + sha256(bytes) + "\"");
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A response body serialized ahead of time, with its strong ETag
+     */
+    public record SerializedBody(byte[] bytes, String etag) {
+
+        /**
+         * Whether an {@code If-None-Match} header names this body, so a 304 can be sent instead.
+         * If-None-Match compares weakly, so {@code W/"..."} matches as well.
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package mvp.streamy.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.RiddleResult;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Gets the engine hot before the instance takes traffic, so the first submission after a
+ * rollout or scale-up does not pay for loading javac and for a cold JIT. Spring Boot switches
+ * readiness to {@code ACCEPTING_TRAFFIC} only after every {@link ApplicationRunner} returned,
+ * so the readiness probe stays down until the warm-up is done.
+ *
+ * <p>First every pooled compiler context compiles a throwaway program, then every riddle's
+ * reference pipeline is submitted once: validation, interpreter or javac, the hidden datasets
+ * and the comparison all run before a user's pipeline does. A reference that does not pass is
+ * logged but does not keep the instance from becoming ready.
+ *
+ * <p>{@code streamy.startup.warm-up} is the time the warm-up took and
+ * {@code streamy.startup.time-to-ready} the JVM uptime when the instance became ready, which
+ * includes class loading before Spring starts and therefore shows the effect of an AOT cache.
+ */
+@Service
+@Slf4j
+public class StartupWarmUp implements ApplicationRunner {
+
+    private final PipelineCompiler pipelineCompiler;
+    private final StreamGameService streamGameService;
+    private final RiddleRepository riddleRepository;
+    private final EngineProperties properties;
+    private final ConfigurableApplicationContext context;
+    private final AtomicLong warmUpMillis = new AtomicLong();
+    private final AtomicLong timeToReadyMillis = new AtomicLong();
+
+    public StartupWarmUp(
+            PipelineCompiler pipelineCompiler,
+            StreamGameService streamGameService,
+            RiddleRepository riddleRepository,
+            EngineProperties properties,
+            ConfigurableApplicationContext context,
+            MeterRegistry meterRegistry
+    ) {
+        this.pipelineCompiler = pipelineCompiler;
+        this.streamGameService = streamGameService;
+        this.riddleRepository = riddleRepository;
+        this.properties = properties;
+        this.context = context;
+        Gauge.builder("streamy.startup.warm-up", warmUpMillis, millis -> millis.get() / 1000.0)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("streamy.startup.time-to-ready", timeToReadyMillis, millis -> millis.get() / 1000.0)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+        if (properties.getStartup().isExitAfterWarmUp()) {
+            log.info("Warm-up done, shutting down as requested by streamy.engine.startup.exit-after-warm-up");
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    /**
+     * @return the number of reference pipelines that did not pass their riddle
+     */
+    public int warmUp() {
+        long start = System.nanoTime();
+        if (properties.getCompiler().isWarmUp()) {
+            pipelineCompiler.warmUp();
+        }
+
+        int failed = 0;
+        if (properties.getStartup().isWarmUp()) {
+            for (Map.Entry<String, String> reference : riddleRepository.referencePipelines().entrySet()) {
+                if (!passes(reference.getKey(), reference.getValue())) {
+                    failed++;
+                }
+            }
+        }
+
+        warmUpMillis.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Warm-up took {} ms, {} reference pipelines failed", warmUpMillis.get(), failed);
+        return failed;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ready() {
+        timeToReadyMillis.set(ManagementFactory.getRuntimeMXBean().getUptime());
+        log.info("Ready {} ms after JVM start", timeToReadyMillis.get());
+    }
+
+    private boolean passes(String riddleId, String pipeline) {
+        try {
+            RiddleResult result = streamGameService.submitAnswerWithoutSpeedup(riddleId, pipeline);
+            if (!result.success()) {
+                log.warn("Reference pipeline of riddle {} did not pass: {}", riddleId, result.message());
+            }
+            return result.success();
+        } catch (RuntimeException e) {
+            log.warn("Reference pipeline of riddle {} failed", riddleId, e);
+            return false;
+        }
+    }
+}
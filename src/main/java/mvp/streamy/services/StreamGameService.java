@@ -1,51 +1,309 @@
 package mvp.streamy.services;
 
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.DatasetResult;
+import mvp.streamy.models.DatasetResult.Outcome;
+import mvp.streamy.models.ParallelSpeedup;
+import mvp.streamy.models.RiddleDataset;
 import mvp.streamy.models.RiddleResult;
 import mvp.streamy.models.ResultValue;
 import mvp.streamy.models.Riddle;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Service
-@AllArgsConstructor
 public class StreamGameService {
 
     private final RiddleRepository riddleRepository;
     private final StreamPipelineEngineService engine;
     private final StreamPipelineEngineServiceV2 engine2;
+    private final Map<String, ResultFingerprint> expectedFingerprints = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Timer compareTimer;
+    private final Timer convertTimer;
+    private final int resultPreviewSize;
+    private final int speedupSamples;
+    private final Set<String> speedupRiddles;
 
-    public List<Riddle> getAllRiddles() {
-        return riddleRepository.findAll();
+    public StreamGameService(
+            RiddleRepository riddleRepository,
+            StreamPipelineEngineService engine,
+            StreamPipelineEngineServiceV2 engine2,
+            MeterRegistry meterRegistry
+    ) {
+        this(riddleRepository, engine, engine2, meterRegistry, new EngineProperties());
+    }
+
+    @Autowired
+    public StreamGameService(
+            RiddleRepository riddleRepository,
+            StreamPipelineEngineService engine,
+            StreamPipelineEngineServiceV2 engine2,
+            MeterRegistry meterRegistry,
+            EngineProperties properties
+    ) {
+        this.riddleRepository = riddleRepository;
+        this.engine = engine;
+        this.engine2 = engine2;
+        this.meterRegistry = meterRegistry;
+        this.compareTimer = PipelinePhase.COMPARE.timer(meterRegistry);
+        this.convertTimer = PipelinePhase.CONVERT.timer(meterRegistry);
+        this.resultPreviewSize = properties.getSubmissions().getResultPreviewSize();
+        this.speedupSamples = Math.max(1, properties.getExecution().getSpeedupSamples());
+        this.speedupRiddles = properties.getExecution().getRiddles().entrySet().stream()
+                .filter(riddle -> riddle.getValue().isParallel() && riddle.getValue().isSpeedup())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableSet());
+        // Riddles on generated datasets are fingerprinted on their first submission instead.
+        for (Riddle riddle : riddleRepository.findAll()) {
+            if (riddle.expectedOutputReady()) {
+                expectedFingerprints.put(
+                        riddle.id(), ResultFingerprint.of(riddle.expectedOutput(), riddle.tieKey()));
+            }
+        }
     }
 
     public RiddleResult submitAnswer(
             String riddleId,
             String pipeline
+    ) {
+        return submitAnswer(riddleId, pipeline, SubmissionProgress.NONE);
+    }
+
+    public RiddleResult submitAnswer(
+            String riddleId,
+            String pipeline,
+            SubmissionProgress progress
+    ) {
+        return submitAnswer(riddleId, pipeline, progress, true);
+    }
+
+    /**
+     * Grades like {@link #submitAnswer(String, String)}, but never times the speedup of a
+     * parallel answer; for bulk grading and warm-up, where nobody looks at it.
+     */
+    public RiddleResult submitAnswerWithoutSpeedup(String riddleId, String pipeline) {
+        return submitAnswer(riddleId, pipeline, SubmissionProgress.NONE, false);
+    }
+
+    /**
+     * Execution slots a submission to the riddle keeps busy: the workers of its fork-join pool
+     * if it allows {@code .parallel()}, one otherwise. Submissions are admitted with this
+     * weight.
+     */
+    public int slotsFor(String riddleId) {
+        return Math.max(1, engine2.executionBudget(riddleId).parallelism());
+    }
+
+    private RiddleResult submitAnswer(
+            String riddleId,
+            String pipeline,
+            SubmissionProgress progress,
+            boolean timeSpeedup
+    ) {
+        Timer.Sample submission = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            RiddleResult result = grade(riddleId, pipeline, progress, timeSpeedup);
+            outcome = result.success() ? "correct" : "incorrect";
+            return result;
+        } finally {
+            submission.stop(meterRegistry.timer("streamy.submissions", "outcome", outcome));
+        }
+    }
+
+    private RiddleResult grade(
+            String riddleId,
+            String pipeline,
+            SubmissionProgress progress,
+            boolean timeSpeedup
     ) {
         Riddle riddle = riddleRepository.findById(riddleId);
+        ExecutionBudget budget = engine2.executionBudget(riddleId);
 
-        Object rawActual =
-                engine2.execute(riddle.input(), pipeline, riddle.dataType());
+        long start = System.nanoTime();
+        ExecutionReport report =
+                engine2.execute(riddle.input(), pipeline, riddle.dataType(), budget, progress);
+        Object rawActual = report.result();
+        progress.produced(rawActual);
 
         ResultValue actual =
-                ResultValueFactory.from(rawActual);
-
-        ResultValue expected =
-                ResultValueFactory.from(riddle.expectedOutput());
+                convertTimer.record(() -> ResultValueFactory.preview(rawActual, resultPreviewSize));
 
+        ResultFingerprint expected =
+                expectedFingerprints
+                        .computeIfAbsent(riddleId, id -> ResultFingerprint.of(riddle.expectedOutput(), riddle.tieKey()));
         boolean success =
-                actual.equals(expected);
+                compareTimer.record(() -> expected.matches(rawActual));
+
+        List<DatasetResult> datasets = new ArrayList<>();
+        datasets.add(new DatasetResult(
+                "visible",
+                riddle.input().size(),
+                success ? Outcome.PASSED : Outcome.FAILED,
+                microsSince(start),
+                micros(report.cpuTimeNanos()),
+                report.allocatedBytes()
+        ));
 
         String message =
                 success
                         ? "Correct solution 🎉"
                         : "Incorrect result, try again";
 
-        return new RiddleResult(success, actual, message);
+        if (success && !riddle.hiddenDatasets().isEmpty()) {
+            success = passesHiddenDatasets(riddle, pipeline, budget, datasets);
+            if (!success) {
+                message = "Correct for the visible animals, but not for all hidden datasets, try again";
+            }
+        }
+
+        ParallelSpeedup parallel = success && timeSpeedup && budget.parallel() && speedupRiddles.contains(riddleId)
+                ? measureSpeedup(riddle, pipeline, budget)
+                : null;
+
+        return new RiddleResult(success, actual, message, List.copyOf(datasets), parallel);
+    }
+
+    /**
+     * Times the already compiled pipeline on the visible input on a pool of one worker and on
+     * the riddle's pool, alternating for {@code speedup-samples} runs each, and compares the
+     * fastest run of each side. The graded run is not one of them, so neither side pays for
+     * a cold start. Only correct answers to riddles with {@code speedup} are timed.
+     * {@code null} if the pipeline never goes parallel or a run fails.
+     */
+    private ParallelSpeedup measureSpeedup(Riddle riddle, String pipeline, ExecutionBudget budget) {
+        if (!StreamPipelineEngineServiceV2.goesParallel(pipeline)) {
+            return null;
+        }
+        ExecutionBudget singleWorker = budget.withParallelism(1);
+        long sequentialNanos = Long.MAX_VALUE;
+        long parallelNanos = Long.MAX_VALUE;
+        try {
+            for (int i = 0; i < speedupSamples; i++) {
+                sequentialNanos = Math.min(sequentialNanos, wallTime(riddle, pipeline, singleWorker));
+                parallelNanos = Math.min(parallelNanos, wallTime(riddle, pipeline, budget));
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return ParallelSpeedup.of(budget.parallelism(), micros(sequentialNanos), micros(parallelNanos));
+    }
+
+    private long wallTime(Riddle riddle, String pipeline, ExecutionBudget budget) {
+        return engine2.execute(riddle.input(), pipeline, riddle.dataType(), budget, SubmissionProgress.NONE)
+                .wallTimeNanos();
+    }
+
+    /**
+     * Runs the pipeline on all hidden datasets of the riddle at once. It was compiled and cached
+     * for the visible input already, so every dataset only executes it. The first dataset that
+     * fails cancels the ones still running, which are reported as skipped.
+     *
+     * <p>The datasets are forked on a virtual thread per dataset that is closed before this
+     * method returns, like a {@code StructuredTaskScope} that shuts down on failure; the
+     * structured concurrency API itself is still a preview feature.
+     */
+    private boolean passesHiddenDatasets(
+            Riddle riddle,
+            String pipeline,
+            ExecutionBudget budget,
+            List<DatasetResult> datasets
+    ) {
+        List<RiddleDataset> hidden = riddle.hiddenDatasets();
+        DatasetResult[] results = new DatasetResult[hidden.size()];
+        boolean[] reported = new boolean[hidden.size()];
+        boolean passed = true;
+
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<Integer> completion = new ExecutorCompletionService<>(scope);
+            for (int i = 0; i < hidden.size(); i++) {
+                int index = i;
+                completion.submit(() -> {
+                    results[index] = runDataset(riddle, hidden.get(index), pipeline, budget);
+                    return index;
+                });
+            }
+
+            for (int remaining = hidden.size(); remaining > 0 && passed; remaining--) {
+                int index = completion.take().get();
+                reported[index] = true;
+                passed = results[index].outcome() == Outcome.PASSED;
+            }
+            if (!passed) {
+                scope.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running hidden datasets", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        for (int i = 0; i < hidden.size(); i++) {
+            RiddleDataset dataset = hidden.get(i);
+            datasets.add(reported[i]
+                    ? results[i]
+                    : new DatasetResult(dataset.name(), dataset.input().size(), Outcome.SKIPPED, 0, -1, -1));
+        }
+        return passed;
     }
 
+    private DatasetResult runDataset(
+            Riddle riddle,
+            RiddleDataset dataset,
+            String pipeline,
+            ExecutionBudget budget
+    ) {
+        long start = System.nanoTime();
+        Outcome outcome;
+        long cpuTimeMicros = -1;
+        long allocatedBytes = -1;
+        try {
+            ExecutionReport report = engine2.execute(
+                    dataset.input(), pipeline, riddle.dataType(), budget, SubmissionProgress.NONE);
+            cpuTimeMicros = micros(report.cpuTimeNanos());
+            allocatedBytes = report.allocatedBytes();
+            Object actual = report.result();
+            ResultFingerprint expected = expectedFingerprints.computeIfAbsent(
+                    riddle.id() + "/" + dataset.name(),
+                    key -> ResultFingerprint.of(dataset.expectedOutput(), riddle.tieKey())
+            );
+            outcome = compareTimer.record(() -> expected.matches(actual)) ? Outcome.PASSED : Outcome.FAILED;
+        } catch (RuntimeException e) {
+            outcome = Outcome.ERROR;
+        }
+        return new DatasetResult(
+                dataset.name(),
+                dataset.input().size(),
+                outcome,
+                microsSince(start),
+                cpuTimeMicros,
+                allocatedBytes
+        );
+    }
 
+    private static long microsSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    }
+
+    private static long micros(long nanos) {
+        return nanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
 }
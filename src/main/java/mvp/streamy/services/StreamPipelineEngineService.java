@@ -1,33 +1,64 @@
 package mvp.streamy.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import mvp.streamy.services.PipelineCompiler.CompilationResult;
+import mvp.streamy.services.validation.PipelineValidator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.tools.*;
-import java.io.ByteArrayOutputStream;
-import java.io.OutputStream;
-import java.lang.reflect.Method;
-import java.net.URI;
 import java.util.*;
+import java.util.function.Function;
 
 @Service
 @Slf4j
 public class StreamPipelineEngineService {
 
+    private final PipelineCompiler pipelineCompiler;
+    private final PipelineClassDefiner pipelineClassDefiner;
+    private final PipelineValidator pipelineValidator = new PipelineValidator();
+    private final Timer validateTimer;
+    private final Timer executeTimer;
+
+    public StreamPipelineEngineService(
+            PipelineCompiler pipelineCompiler,
+            PipelineClassDefiner pipelineClassDefiner
+    ) {
+        this(pipelineCompiler, pipelineClassDefiner, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public StreamPipelineEngineService(
+            PipelineCompiler pipelineCompiler,
+            PipelineClassDefiner pipelineClassDefiner,
+            MeterRegistry meterRegistry
+    ) {
+        this.pipelineCompiler = pipelineCompiler;
+        this.pipelineClassDefiner = pipelineClassDefiner;
+        this.validateTimer = PipelinePhase.VALIDATE.timer(meterRegistry);
+        this.executeTimer = PipelinePhase.EXECUTE.timer(meterRegistry);
+    }
+
     public List<Integer> execute(
             List<Integer> input,
             String pipeline
     ) {
 
-        validatePipeline(pipeline);
+        validateTimer.record(() -> validatePipeline(pipeline));
+
+        String packageName = pipelineClassDefiner.packageName();
+        String className = packageName + ".StreamProgram";
 
         Map<String, String> sources = new HashMap<>();
         sources.put(
-                "demo.StreamProgram",
-                generateSource(pipeline)
+                className,
+                generateSource(packageName, pipeline)
         );
 
-        CompilationResult result = compile(sources);
+        CompilationResult result = pipelineCompiler.compile(sources);
 
         if (!result.success) {
             StringBuilder sb = new StringBuilder();
@@ -38,75 +69,43 @@ public class StreamPipelineEngineService {
         }
 
         try {
-            ClassLoader isolatedLoader =
-                    new IsolatedClassLoader(
-                            result.compiledClasses,
-                            ClassLoader.getSystemClassLoader()
-                    );
-
             Class<?> programClass =
-                    isolatedLoader.loadClass("demo.StreamProgram");
-
-            Method runMethod =
-                    programClass.getMethod("run", List.class);
+                    pipelineClassDefiner.define(className, result.compiledClasses);
 
             @SuppressWarnings("unchecked")
-            List<Integer> output =
-                    (List<Integer>) runMethod.invoke(null, input);
+            Function<List<Integer>, List<Integer>> program =
+                    (Function<List<Integer>, List<Integer>>) programClass.getDeclaredConstructor().newInstance();
 
-            return output;
+            return executeTimer.record(() -> program.apply(input));
 
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void validatePipeline(String pipeline)  {
-
-        Set<String> forbidden =
-                Set.of(
-                        "parallel",
-                        "forEach",
-                        "peek",
-                        "collect(",
-                        "new ",
-                        "System",
-                        "Runtime",
-                        "Thread"
-                );
-        for (String token : forbidden) {
-            if (pipeline.contains(token)) {
-                throw new IllegalArgumentException(
-                        "Forbidden construct detected: " + token
-                );
-            }
-        }
-//        if (!pipeline.trim().startsWith(".stream()")) {
-//            throw new IllegalArgumentException(
-//                    "Pipeline must start with .stream()"
-//            );
-//        }
-//
-//        if (!pipeline.trim().endsWith("toList()")) {
-//            throw new IllegalArgumentException(
-//                    "Pipeline must end with toList()"
-//            );
-//        }
+    void validatePipeline(String pipeline) {
+        pipelineValidator.validate(pipeline, Integer.class);
     }
 
-    private String generateSource(String pipeline) {
+    String generateSource(String packageName, String pipeline) {
 
         return
                 """
-                package demo;
+                package %s;
 
                 import java.util.List;
+                import java.util.function.Function;
 
-                public class StreamProgram {
+                public class StreamProgram implements Function<List<Integer>, List<Integer>> {
+
+                    @Override
+                    public List<Integer> apply(List<Integer> input) {
+                        return run(input);
+                    }
 
                     public static List<Integer> run(List<Integer> input) {
                         return input.stream()
-                """ +
+                """.formatted(packageName) +
                         pipeline +
                         """
                                 .toList();
@@ -114,164 +113,4 @@ public class StreamPipelineEngineService {
                         }
                         """;
     }
-
-    private CompilationResult compile(Map<String, String> sources) {
-
-        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-        if (compiler == null) {
-            throw new IllegalStateException("Compiler not available");
-        }
-
-        DiagnosticCollector<JavaFileObject> diagnostics =
-                new DiagnosticCollector<>();
-
-        StandardJavaFileManager standardFileManager =
-                compiler.getStandardFileManager(diagnostics, null, null);
-
-        MemoryFileManager fileManager =
-                new MemoryFileManager(standardFileManager);
-
-        List<JavaFileObject> sourceFiles = new ArrayList<>();
-
-        for (Map.Entry<String, String> e : sources.entrySet()) {
-            sourceFiles.add(new SourceCode(e.getKey(), e.getValue()));
-        }
-
-        JavaCompiler.CompilationTask task =
-                compiler.getTask(
-                        null,
-                        fileManager,
-                        diagnostics,
-                        null,
-                        null,
-                        sourceFiles
-                );
-
-        boolean success = Boolean.TRUE.equals(task.call());
-
-        return new CompilationResult(
-                success,
-                diagnostics.getDiagnostics(),
-                fileManager.getAllByteCode()
-        );
-    }
-
-    private static class CompilationResult {
-        final boolean success;
-        final List<Diagnostic<? extends JavaFileObject>> diagnostics;
-        final Map<String, byte[]> compiledClasses;
-
-        CompilationResult(
-                boolean success,
-                List<Diagnostic<? extends JavaFileObject>> diagnostics,
-                Map<String, byte[]> compiledClasses
-        ) {
-            this.success = success;
-            this.diagnostics = diagnostics;
-            this.compiledClasses = compiledClasses;
-        }
-    }
-
-    private static class SourceCode extends SimpleJavaFileObject {
-
-        private final String code;
-
-        SourceCode(String className, String code) {
-            super(
-                    URI.create(
-                            "string:///" +
-                                    className.replace('.', '/') +
-                                    Kind.SOURCE.extension
-                    ),
-                    Kind.SOURCE
-            );
-            this.code = code;
-        }
-
-        @Override
-        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
-            return code;
-        }
-    }
-
-    private static class ByteCode extends SimpleJavaFileObject {
-
-        private final ByteArrayOutputStream outputStream =
-                new ByteArrayOutputStream();
-
-        ByteCode(String className) {
-            super(
-                    URI.create(
-                            "bytes:///" +
-                                    className.replace('.', '/') +
-                                    Kind.CLASS.extension
-                    ),
-                    Kind.CLASS
-            );
-        }
-
-        @Override
-        public OutputStream openOutputStream() {
-            return outputStream;
-        }
-
-        byte[] getBytes() {
-            return outputStream.toByteArray();
-        }
-    }
-
-    private static class MemoryFileManager
-            extends ForwardingJavaFileManager<StandardJavaFileManager> {
-
-        private final Map<String, ByteCode> compiled =
-                new HashMap<>();
-
-        MemoryFileManager(StandardJavaFileManager fileManager) {
-            super(fileManager);
-        }
-
-        @Override
-        public JavaFileObject getJavaFileForOutput(
-                JavaFileManager.Location location,
-                String className,
-                JavaFileObject.Kind kind,
-                FileObject sibling
-        ) {
-            ByteCode byteCode = new ByteCode(className);
-            compiled.put(className, byteCode);
-            return byteCode;
-        }
-
-        Map<String, byte[]> getAllByteCode() {
-            Map<String, byte[]> out = new HashMap<>();
-            for (Map.Entry<String, ByteCode> e : compiled.entrySet()) {
-                out.put(e.getKey(), e.getValue().getBytes());
-            }
-            return out;
-        }
-    }
-
-    private static class IsolatedClassLoader extends ClassLoader {
-
-        private final Map<String, byte[]> classes;
-
-        IsolatedClassLoader(
-                Map<String, byte[]> classes,
-                ClassLoader parent
-        ) {
-            super(parent);
-            this.classes = classes;
-        }
-
-        @Override
-        protected Class<?> findClass(String name)
-                throws ClassNotFoundException {
-
-            byte[] bytes = classes.get(name);
-            if (bytes == null) {
-                return super.findClass(name);
-            }
-            return defineClass(name, bytes, 0, bytes.length);
-        }
-    }
 }
@@ -1,298 +1,394 @@
 package mvp.streamy.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.PipelineDiagnostic;
+import mvp.streamy.services.PipelineCompiler.CompilationResult;
+import mvp.streamy.services.interpreter.InterpretedPipeline;
+import mvp.streamy.services.interpreter.PipelineInterpreter;
+import mvp.streamy.services.validation.PipelineValidator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import javax.tools.*;
-import java.io.ByteArrayOutputStream;
-import java.io.OutputStream;
-import java.lang.reflect.Method;
-import java.net.URI;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
 
 @Service
 @Slf4j
 public class StreamPipelineEngineServiceV2 {
 
+    private static final Pattern PARALLEL_CALL = Pattern.compile("\\.\\s*parallel\\s*\\(\\s*\\)");
+
+    private final BatchingPipelineCompiler pipelineCompiler;
+    private final PipelineCache pipelineCache;
+    private final PipelineExecutor pipelineExecutor;
+    private final PipelineClassDefiner pipelineClassDefiner;
+    private final PipelineInterpreter pipelineInterpreter;
+    private final PipelineValidator pipelineValidator = new PipelineValidator();
+    private final boolean interpreterEnabled;
+    private final TieringPolicy tieringPolicy;
+    private final Timer validateTimer;
+    private final Timer interpretTimer;
+
+    public StreamPipelineEngineServiceV2() {
+        this(new EngineProperties());
+    }
+
+    public StreamPipelineEngineServiceV2(EngineProperties properties) {
+        this(properties, new SimpleMeterRegistry());
+    }
+
+    private StreamPipelineEngineServiceV2(EngineProperties properties, MeterRegistry meterRegistry) {
+        this(
+                properties,
+                new BatchingPipelineCompiler(
+                        new PipelineCompiler(properties.getCompiler(), meterRegistry),
+                        properties.getCompiler()
+                ),
+                new PipelineExecutor(properties.getExecution(), meterRegistry),
+                new PipelineClassDefiner(properties.getCompiler(), meterRegistry),
+                meterRegistry
+        );
+    }
+
+    @Autowired
+    public StreamPipelineEngineServiceV2(
+            EngineProperties properties,
+            BatchingPipelineCompiler pipelineCompiler,
+            PipelineExecutor pipelineExecutor,
+            PipelineClassDefiner pipelineClassDefiner,
+            MeterRegistry meterRegistry
+    ) {
+        this.pipelineCompiler = pipelineCompiler;
+        this.pipelineExecutor = pipelineExecutor;
+        this.pipelineClassDefiner = pipelineClassDefiner;
+        this.pipelineInterpreter = new PipelineInterpreter();
+        this.interpreterEnabled = properties.getInterpreter().isEnabled();
+        this.tieringPolicy =
+                new TieringPolicy(properties.getInterpreter(), meterRegistry);
+        this.pipelineCache =
+                new PipelineCache(properties.getCache(), meterRegistry);
+        this.validateTimer = PipelinePhase.VALIDATE.timer(meterRegistry);
+        this.interpretTimer = PipelinePhase.INTERPRET.timer(meterRegistry);
+    }
+
     public <T> Object execute(
             List<?> input,
             String pipeline,
             Class<T> elementType
     ) {
-        validatePipeline(pipeline);
+        return execute(input, pipeline, elementType, SubmissionProgress.NONE);
+    }
 
-        String typeImport = getTypeImport(elementType);
-        String typeName = elementType.getSimpleName();
+    public <T> Object execute(
+            List<?> input,
+            String pipeline,
+            Class<T> elementType,
+            SubmissionProgress progress
+    ) {
+        return execute(input, pipeline, elementType, pipelineExecutor.defaultBudget(), progress).result();
+    }
 
-        Map<String, String> sources = new HashMap<>();
-        sources.put(
-                "demo.StreamProgram",
-                generateSource(pipeline, typeImport, typeName)
-        );
+    /**
+     * Runs the pipeline within the given limits and reports the CPU time and heap it used.
+     */
+    public <T> ExecutionReport execute(
+            List<?> input,
+            String pipeline,
+            Class<T> elementType,
+            ExecutionBudget budget,
+            SubmissionProgress progress
+    ) {
+        validateTimer.record(() -> validatePipeline(pipeline, elementType, budget.parallel()));
 
-        CompilationResult result = compile(sources);
+        PipelineKey key = PipelineKey.of(pipeline, elementType);
+        CompiledPipeline compiled =
+                pipelineCache.get(
+                        key,
+                        k -> preparePipeline(k.normalizedPipeline(), elementType)
+                );
 
-        if (!result.success) {
-            StringBuilder sb = new StringBuilder();
-            for (Diagnostic<? extends JavaFileObject> d : result.diagnostics) {
-                sb.append(d.getMessage(null));
+        if (compiled.failed()) {
+            throw new IllegalArgumentException(compiled.compileError());
+        }
+
+        progress.compiled(compiled.isInterpreted());
+
+        if (compiled.isInterpreted()) {
+            if (tieringPolicy.recordInterpretedRun(compiled)) {
+                tieringPolicy.promoteInBackground(() -> promote(key, elementType));
             }
-            throw new IllegalArgumentException(sb.toString());
+            progress.running();
+            return runInterpreted(compiled.interpreted(), input, budget);
         }
 
-        try {
-            ClassLoader isolatedLoader =
-                    new IsolatedClassLoader(
-                            result.compiledClasses,
-                            ClassLoader.getSystemClassLoader()
-                    );
+        tieringPolicy.recordCompiledRun();
+        Function<List<?>, Object> program = compiled.program();
 
-            Class<?> programClass =
-                    isolatedLoader.loadClass("demo.StreamProgram");
+        return pipelineExecutor.execute(() -> {
+            progress.running();
+            return program.apply(input);
+        }, budget);
+    }
 
-            Method runMethod =
-                    programClass.getMethod("run", List.class);
+    public ExecutionBudget executionBudget(String riddleId) {
+        return pipelineExecutor.budgetFor(riddleId);
+    }
 
-            ExecutorService executor = Executors.newSingleThreadExecutor();
-            Future<Object> future = executor.submit(() -> {
-                try {
-                    return runMethod.invoke(null, input);
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            });
+    /**
+     * Prepares pipelines that are about to be executed together. The ones that are neither
+     * cached nor interpretable are compiled in shared javac tasks instead of one by one.
+     * Invalid pipelines are skipped here and fail with their own error once executed.
+     *
+     * @param allowParallel whether the pipelines run with a {@link ExecutionBudget#parallel()
+     *                      parallel} budget and may call {@code .parallel()}
+     */
+    public void prepareAll(Collection<String> pipelines, Class<?> elementType, boolean allowParallel) {
+        String typeImport = getTypeImport(elementType);
+        String typeName = elementType.getSimpleName();
 
+        Set<PipelineKey> seen = new HashSet<>();
+        Map<String, PipelineKey> keys = new LinkedHashMap<>();
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (String pipeline : pipelines) {
             try {
-                return future.get(5, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-                future.cancel(true);
-                throw new RuntimeException("Execution timed out! Possible infinite loop detected.");
-            } finally {
-                executor.shutdownNow();
+                validatePipeline(pipeline, elementType, allowParallel);
+            } catch (RuntimeException e) {
+                continue;
+            }
+
+            PipelineKey key = PipelineKey.of(pipeline, elementType);
+            if (!seen.add(key) || pipelineCache.contains(key)) {
+                continue;
+            }
+            if (interpreterEnabled) {
+                Optional<InterpretedPipeline> interpreted =
+                        pipelineInterpreter.parse(key.normalizedPipeline(), elementType);
+                if (interpreted.isPresent()) {
+                    pipelineCache.put(key, CompiledPipeline.interpreted(interpreted.get()));
+                    continue;
+                }
             }
 
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            String className =
+                    pipelineCompiler.nextClassName(pipelineClassDefiner.packageName());
+            keys.put(className, key);
+            sources.put(className, generateSource(className, key.normalizedPipeline(), typeImport, typeName));
         }
-    }
 
-    private String getTypeImport(Class<?> type) {
-        // Only add import if it's not in java.lang package
-        if (type.getPackage() != null &&
-                !type.getPackage().getName().equals("java.lang")) {
-            return "import " + type.getName() + ";\n";
+        if (sources.isEmpty()) {
+            return;
         }
-        return "";
+        log.debug("Compiling {} pipelines together", sources.size());
+        pipelineCompiler.compileAll(sources).forEach((className, result) -> {
+            PipelineKey key = keys.get(className);
+            pipelineCache.put(key, loadPipeline(className, result, key.normalizedPipeline()));
+        });
     }
 
-    private void validatePipeline(String pipeline) {
-        Set<String> forbidden =
-                Set.of(
-                        "parallel",
-                        "forEach",
-                        "peek",
-                        "new ",
-                        "System",
-                        "Runtime",
-                        "Thread",
-                        "while",
-                        "for",
-                        "do",
-                        "exec",
-                        "ProcessBuilder"
-                );
-        for (String token : forbidden) {
-            if (pipeline.contains(token)) {
-                throw new UnsupportedOperationException(
-                        "Forbidden construct detected: " + token
-                );
-            }
-        }
-                if (!pipeline.trim().startsWith(".")) {
-            throw new IllegalArgumentException(
-                    "Pipeline must start with a method call (.)"
-            );
+    /**
+     * Whether only javac can tell if the pipeline is well-typed: it is neither cached as
+     * runnable nor understood by the interpreter.
+     */
+    boolean needsTypeCheck(String pipeline, Class<?> elementType) {
+        PipelineKey key = PipelineKey.of(pipeline, elementType);
+        CompiledPipeline cached = pipelineCache.getIfPresent(key);
+        if (cached != null) {
+            return cached.failed();
         }
+        return !interpreterEnabled
+                || pipelineInterpreter.parse(key.normalizedPipeline(), elementType).isEmpty();
     }
 
-    private String generateSource(String pipeline, String typeImport, String typeName) {
-        return """
-            package demo;
-
-            import java.util.List;
-            import java.util.stream.Collectors;
-            import java.util.Optional;
-            import java.util.Comparator;
-            %s
-
-            public class StreamProgram {
-
-                public static Object run(List<%s> input) {
-                    return input.stream()
-                            %s
-                            ;
-                }
+    /**
+     * Parses and type-checks the pipeline with javac, without generating bytecode. Positions
+     * are mapped back into the pipeline; problems javac reports past its end, like a missing
+     * parenthesis, are placed at the end.
+     */
+    List<PipelineDiagnostic> typeCheck(
+            String pipeline,
+            Class<?> elementType,
+            BooleanSupplier cancelled
+    ) {
+        String className =
+                pipelineCompiler.nextClassName(pipelineClassDefiner.packageName());
+        String source = generateSource(
+                className, pipeline, getTypeImport(elementType), elementType.getSimpleName()
+        );
+        int offset = source.indexOf(pipeline, source.indexOf("return input.stream()"));
+
+        List<PipelineDiagnostic> diagnostics = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : pipelineCompiler.analyze(className, source, cancelled)) {
+            PipelineDiagnostic.Severity severity = switch (d.getKind()) {
+                case ERROR -> PipelineDiagnostic.Severity.ERROR;
+                case WARNING, MANDATORY_WARNING -> PipelineDiagnostic.Severity.WARNING;
+                default -> null;
+            };
+            if (severity != null) {
+                diagnostics.add(new PipelineDiagnostic(
+                        severity,
+                        d.getMessage(null),
+                        positionIn(pipeline, offset, d.getStartPosition()),
+                        positionIn(pipeline, offset, d.getEndPosition())
+                ));
             }
-            """.formatted(typeImport, typeName, pipeline);
+        }
+        return diagnostics;
     }
 
-
-    private CompilationResult compile(Map<String, String> sources) {
-        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-        if (compiler == null) {
-            throw new IllegalStateException("Compiler not available");
+    private static int positionIn(String pipeline, int offset, long position) {
+        if (position == Diagnostic.NOPOS) {
+            return -1;
         }
+        return (int) Math.max(0, Math.min(position - offset, pipeline.length()));
+    }
 
-        DiagnosticCollector<JavaFileObject> diagnostics =
-                new DiagnosticCollector<>();
-
-        StandardJavaFileManager standardFileManager =
-                compiler.getStandardFileManager(diagnostics, null, null);
-
-        MemoryFileManager fileManager =
-                new MemoryFileManager(standardFileManager);
-
-        List<JavaFileObject> sourceFiles = new ArrayList<>();
+    public PipelineCache pipelineCache() {
+        return pipelineCache;
+    }
 
-        for (Map.Entry<String, String> e : sources.entrySet()) {
-            sourceFiles.add(new SourceCode(e.getKey(), e.getValue()));
+    private CompiledPipeline preparePipeline(String pipeline, Class<?> elementType) {
+        if (interpreterEnabled) {
+            Optional<InterpretedPipeline> interpreted =
+                    pipelineInterpreter.parse(pipeline, elementType);
+            if (interpreted.isPresent()) {
+                return CompiledPipeline.interpreted(interpreted.get());
+            }
         }
+        return compilePipeline(pipeline, elementType);
+    }
 
-        JavaCompiler.CompilationTask task =
-                compiler.getTask(
-                        null,
-                        fileManager,
-                        diagnostics,
-                        null,
-                        null,
-                        sourceFiles
-                );
-
-        boolean success = Boolean.TRUE.equals(task.call());
+    private void promote(PipelineKey key, Class<?> elementType) {
+        try {
+            CompiledPipeline compiled =
+                    compilePipeline(key.normalizedPipeline(), elementType);
+            if (compiled.failed()) {
+                log.warn("Interpretable pipeline did not compile: {}", compiled.compileError());
+                tieringPolicy.promotionFailed();
+                return;
+            }
+            pipelineCache.put(key, compiled);
+            tieringPolicy.promotionSucceeded();
+        } catch (RuntimeException e) {
+            log.warn("Compiling hot pipeline failed", e);
+            tieringPolicy.promotionFailed();
+        }
+    }
 
-        return new CompilationResult(
-                success,
-                diagnostics.getDiagnostics(),
-                fileManager.getAllByteCode()
+    private ExecutionReport runInterpreted(
+            InterpretedPipeline interpreted,
+            List<?> input,
+            ExecutionBudget budget
+    ) {
+        // Interpretable pipelines always terminate, but can still allocate without bound
+        // (sorted over a large input), so they run on a worker within the same budget.
+        return pipelineExecutor.execute(
+                () -> interpretTimer.record(() -> interpreted.run(input)),
+                budget
         );
     }
 
+    private CompiledPipeline compilePipeline(String pipeline, Class<?> elementType) {
+        String typeImport = getTypeImport(elementType);
+        String typeName = elementType.getSimpleName();
 
+        String className =
+                pipelineCompiler.nextClassName(pipelineClassDefiner.packageName());
 
-    private static class CompilationResult {
-        final boolean success;
-        final List<Diagnostic<? extends JavaFileObject>> diagnostics;
-        final Map<String, byte[]> compiledClasses;
+        CompilationResult result =
+                pipelineCompiler.compile(
+                        className,
+                        generateSource(className, pipeline, typeImport, typeName)
+                );
 
-        CompilationResult(
-                boolean success,
-                List<Diagnostic<? extends JavaFileObject>> diagnostics,
-                Map<String, byte[]> compiledClasses
-        ) {
-            this.success = success;
-            this.diagnostics = diagnostics;
-            this.compiledClasses = compiledClasses;
-        }
+        return loadPipeline(className, result, pipeline);
     }
 
-    private static class SourceCode extends SimpleJavaFileObject {
-        private final String code;
-
-        SourceCode(String className, String code) {
-            super(
-                    URI.create(
-                            "string:///" +
-                                    className.replace('.', '/') +
-                                    Kind.SOURCE.extension
-                    ),
-                    Kind.SOURCE
-            );
-            this.code = code;
+    private CompiledPipeline loadPipeline(String className, CompilationResult result, String pipeline) {
+        if (!result.success) {
+            log.debug("Caching compile failure for pipeline {}", pipeline);
+            return CompiledPipeline.failed(result.errorMessage());
         }
 
-        @Override
-        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
-            return code;
-        }
-    }
+        try {
+            Class<?> programClass =
+                    pipelineClassDefiner.define(className, result.compiledClasses);
 
-    private static class ByteCode extends SimpleJavaFileObject {
-        private final ByteArrayOutputStream outputStream =
-                new ByteArrayOutputStream();
-
-        ByteCode(String className) {
-            super(
-                    URI.create(
-                            "bytes:///" +
-                                    className.replace('.', '/') +
-                                    Kind.CLASS.extension
-                    ),
-                    Kind.CLASS
-            );
-        }
+            @SuppressWarnings("unchecked")
+            Function<List<?>, Object> program =
+                    (Function<List<?>, Object>) programClass.getDeclaredConstructor().newInstance();
 
-        @Override
-        public OutputStream openOutputStream() {
-            return outputStream;
-        }
+            return CompiledPipeline.compiled(program, result.byteCodeSize());
 
-        byte[] getBytes() {
-            return outputStream.toByteArray();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
         }
     }
 
-    private static class MemoryFileManager
-            extends ForwardingJavaFileManager<StandardJavaFileManager> {
-
-        private final Map<String, ByteCode> compiled =
-                new HashMap<>();
-
-        MemoryFileManager(StandardJavaFileManager fileManager) {
-            super(fileManager);
+    String getTypeImport(Class<?> type) {
+        // Only add import if it's not in java.lang package
+        if (type.getPackage() != null &&
+                !type.getPackage().getName().equals("java.lang")) {
+            return "import " + type.getName() + ";\n";
         }
+        return "";
+    }
 
-        @Override
-        public JavaFileObject getJavaFileForOutput(
-                JavaFileManager.Location location,
-                String className,
-                JavaFileObject.Kind kind,
-                FileObject sibling
-        ) {
-            ByteCode byteCode = new ByteCode(className);
-            compiled.put(className, byteCode);
-            return byteCode;
-        }
+    void validatePipeline(String pipeline, Class<?> elementType) {
+        pipelineValidator.validate(pipeline, elementType);
+    }
 
-        Map<String, byte[]> getAllByteCode() {
-            Map<String, byte[]> out = new HashMap<>();
-            for (Map.Entry<String, ByteCode> e : compiled.entrySet()) {
-                out.put(e.getKey(), e.getValue().getBytes());
-            }
-            return out;
-        }
+    void validatePipeline(String pipeline, Class<?> elementType, boolean allowParallel) {
+        pipelineValidator.validate(pipeline, elementType, allowParallel);
     }
 
-    private static class IsolatedClassLoader extends ClassLoader {
-        private final Map<String, byte[]> classes;
+    /**
+     * Whether the pipeline calls {@code .parallel()} at all.
+     */
+    static boolean goesParallel(String pipeline) {
+        return PARALLEL_CALL.matcher(pipeline).find();
+    }
 
-        IsolatedClassLoader(
-                Map<String, byte[]> classes,
-                ClassLoader parent
-        ) {
-            super(parent);
-            this.classes = classes;
-        }
+    String generateSource(String className, String pipeline, String typeImport, String typeName) {
+        int lastDot = className.lastIndexOf('.');
+        return """
+            package %s;
 
-        @Override
-        protected Class<?> findClass(String name)
-                throws ClassNotFoundException {
+            import java.util.List;
+            import java.util.stream.Collectors;
+            import java.util.Optional;
+            import java.util.Comparator;
+            import java.util.function.Function;
+            %s
+
+            public class %s implements Function<List<?>, Object> {
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object apply(List<?> input) {
+                    return run((List<%s>) input);
+                }
 
-            byte[] bytes = classes.get(name);
-            if (bytes == null) {
-                return super.findClass(name);
+                public static Object run(List<%s> input) {
+                    return input.stream()
+                            %s
+                            ;
+                }
             }
-            return defineClass(name, bytes, 0, bytes.length);
-        }
+            """.formatted(
+                className.substring(0, lastDot),
+                typeImport,
+                className.substring(lastDot + 1),
+                typeName,
+                typeName,
+                pipeline
+        );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,282 @@
+package mvp.streamy.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import mvp.streamy.config.EngineProperties;
+import org.springframework.stereotype.Service;
+
+/**
+ * Admission control in front of the engine. At most {@code streamy.engine.admission.max-concurrent}
+ * submissions are compiled and run at once; the others wait in a bounded queue that is served
+ * round-robin by client, so a burst from one client does not delay everybody else. Submissions
+ * that find the queue or their client's share of it full, or that wait longer than
+ * {@code max-wait}, are turned away with an {@link AdmissionRejectedException}.
+ *
+ * <p>Work that keeps more than one thread busy, like grading a batch of pipelines, takes a
+ * ticket with a weight and holds that many slots. A waiting ticket that does not fit yet holds
+ * up the ones behind it, so heavy tickets are not starved by a stream of light ones.
+ *
+ * <p>Time spent waiting is recorded as {@code streamy.admission.wait{outcome=admitted|timeout}},
+ * rejections as {@code streamy.admission.rejected{reason}}; {@code streamy.admission.active} and
+ * {@code streamy.admission.queued} show the current load.
+ */
+@Service
+public class SubmissionAdmission {
+
+    /**
+     * Client id of submissions made without one; they share a single fair share.
+     */
+    public static final String ANONYMOUS = "anonymous";
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final int maxQueuedPerClient;
+    private final Duration maxWait;
+    private final ReentrantLock lock = new ReentrantLock();
+    // clients with waiting submissions, in the order they are served next
+    private final Map<String, ArrayDeque<Ticket>> waiting = new LinkedHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Timer admittedWait;
+    private final Timer timedOutWait;
+    private volatile int active;
+    private volatile int queued;
+    private long averageHoldNanos;
+
+    public SubmissionAdmission(EngineProperties properties, MeterRegistry meterRegistry) {
+        EngineProperties.Admission admission = properties.getAdmission();
+        this.maxConcurrent = admission.getMaxConcurrent();
+        this.maxQueued = admission.getMaxQueued();
+        this.maxQueuedPerClient = admission.getMaxQueuedPerClient();
+        this.maxWait = admission.getMaxWait();
+        this.meterRegistry = meterRegistry;
+        this.admittedWait = meterRegistry.timer("streamy.admission.wait", "outcome", "admitted");
+        this.timedOutWait = meterRegistry.timer("streamy.admission.wait", "outcome", "timeout");
+        Gauge.builder("streamy.admission.active", this, SubmissionAdmission::active)
+                .register(meterRegistry);
+        Gauge.builder("streamy.admission.queued", this, SubmissionAdmission::queued)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code work} once a slot is free, on the calling thread.
+     */
+    public <T> T admit(String clientId, Supplier<T> work) {
+        return admit(clientId, 1, work);
+    }
+
+    /**
+     * Like {@link #admit(String, Supplier)}, for work that holds {@code weight} slots at once.
+     */
+    public <T> T admit(String clientId, int weight, Supplier<T> work) {
+        try (Ticket ticket = enqueue(clientId, weight)) {
+            ticket.await();
+            return work.get();
+        }
+    }
+
+    /**
+     * Takes a place in the queue right away, or fails if there is none. The slot itself is
+     * waited for with {@link Ticket#await()}, possibly on another thread, and given back by
+     * closing the ticket.
+     */
+    public Ticket enqueue(String clientId) {
+        return enqueue(clientId, 1);
+    }
+
+    /**
+     * Like {@link #enqueue(String)}, for work that holds {@code weight} slots at once. The weight
+     * is capped at {@code max-concurrent}, so every ticket can be admitted eventually.
+     */
+    public Ticket enqueue(String clientId, int weight) {
+        lock.lock();
+        try {
+            Ticket ticket = new Ticket(clientId, Math.clamp(weight, 1, maxConcurrent));
+            if (active + ticket.weight <= maxConcurrent && queued == 0) {
+                active += ticket.weight;
+                ticket.admitted.countDown();
+                return ticket;
+            }
+            if (queued >= maxQueued) {
+                throw reject("queue-full", "Too many submissions are waiting, try again later");
+            }
+            ArrayDeque<Ticket> clientQueue = waiting.get(clientId);
+            if ((clientQueue == null ? 0 : clientQueue.size()) >= maxQueuedPerClient) {
+                throw reject("client-limit", "Too many of your submissions are waiting, try again later");
+            }
+            waiting.computeIfAbsent(clientId, id -> new ArrayDeque<>()).add(ticket);
+            queued++;
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int active() {
+        return active;
+    }
+
+    public int queued() {
+        return queued;
+    }
+
+    private AdmissionRejectedException reject(String reason, String message) {
+        meterRegistry.counter("streamy.admission.rejected", "reason", reason).increment();
+        return new AdmissionRejectedException(reason, message, retryAfter());
+    }
+
+    /**
+     * Time until the queue in front of a new submission is likely drained, from the average
+     * time a slot was held recently. Called with the lock held.
+     */
+    private Duration retryAfter() {
+        long nanos = (queued + 1L) * averageHoldNanos / Math.max(1, maxConcurrent);
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        return Duration.ofSeconds(Math.min(seconds, Math.max(1, maxWait.toSeconds())));
+    }
+
+    /**
+     * Hands free slots to waiting submissions, taking one from each client in turn, until the
+     * next one in line does not fit. Called with the lock held.
+     */
+    private void dispatch() {
+        while (queued > 0) {
+            Iterator<Map.Entry<String, ArrayDeque<Ticket>>> clients = waiting.entrySet().iterator();
+            Map.Entry<String, ArrayDeque<Ticket>> next = clients.next();
+            ArrayDeque<Ticket> clientQueue = next.getValue();
+            if (active + clientQueue.peek().weight > maxConcurrent) {
+                return;
+            }
+            clients.remove();
+            Ticket ticket = clientQueue.poll();
+            if (!clientQueue.isEmpty()) {
+                waiting.put(next.getKey(), clientQueue);
+            }
+            queued--;
+            active += ticket.weight;
+            ticket.admitted.countDown();
+        }
+    }
+
+    /**
+     * A submission's place in the queue, then its slot.
+     */
+    public final class Ticket implements AutoCloseable {
+
+        private final String clientId;
+        private final int weight;
+        private final long enqueuedAt = System.nanoTime();
+        private final CountDownLatch admitted = new CountDownLatch(1);
+        private long admittedAt;
+        private boolean closed;
+        private volatile boolean cancelled;
+
+        private Ticket(String clientId, int weight) {
+            this.clientId = clientId;
+            this.weight = weight;
+        }
+
+        /**
+         * Blocks until the submission may run, or fails once it has waited {@code max-wait}.
+         */
+        public void await() {
+            try {
+                long remaining = maxWait.toNanos() - (System.nanoTime() - enqueuedAt);
+                if (!admitted.await(remaining, TimeUnit.NANOSECONDS) && leaveQueue()) {
+                    timedOutWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                    lock.lock();
+                    try {
+                        throw reject("timeout", "Waited too long for a free slot, try again later");
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            } catch (InterruptedException e) {
+                leaveQueue();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a free slot", e);
+            }
+            if (cancelled) {
+                throw new CancellationException("Left the queue before getting a free slot");
+            }
+            admittedAt = System.nanoTime();
+            admittedWait.record(admittedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+        }
+
+        boolean isAdmitted() {
+            return admitted.getCount() == 0 && !cancelled;
+        }
+
+        /**
+         * Gives up the place in the queue, from any thread, once the work is no longer wanted;
+         * {@link #await()} then fails with a {@link CancellationException}. Does nothing if the
+         * ticket has been admitted already.
+         */
+        public void cancel() {
+            if (leaveQueue()) {
+                cancelled = true;
+                admitted.countDown();
+            }
+        }
+
+        /**
+         * Gives the slot back, or the place in the queue if the submission never got a slot.
+         */
+        @Override
+        public void close() {
+            if (leaveQueue()) {
+                return;
+            }
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                active -= weight;
+                if (admittedAt != 0) {
+                    long held = System.nanoTime() - admittedAt;
+                    averageHoldNanos = averageHoldNanos == 0 ? held : (7 * averageHoldNanos + held) / 8;
+                }
+                dispatch();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Removes the ticket from the queue unless it has been admitted in the meantime.
+         */
+        private boolean leaveQueue() {
+            lock.lock();
+            try {
+                if (isAdmitted() || closed) {
+                    return false;
+                }
+                ArrayDeque<Ticket> clientQueue = waiting.get(clientId);
+                if (clientQueue != null && clientQueue.remove(this)) {
+                    queued--;
+                    if (clientQueue.isEmpty()) {
+                        waiting.remove(clientId);
+                    }
+                    // a heavier ticket may have held up lighter ones behind it
+                    dispatch();
+                }
+                closed = true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
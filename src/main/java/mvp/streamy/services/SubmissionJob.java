@@ -0,0 +1,111 @@
+package mvp.streamy.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import mvp.streamy.models.SubmissionEvent;
+
+/**
+ * The events of one asynchronous submission. Every event is kept, so a client that subscribes
+ * late, or reconnects, still receives the whole sequence in order.
+ *
+ * <p>Events are handed to subscribers on a virtual thread of their own, one delivery after the
+ * other, never on the thread that publishes them: {@link #publish} is called from the
+ * pipeline's worker, and a slow client must not eat into the pipeline's time budget or hold
+ * its execution slot.
+ */
+@Slf4j
+public class SubmissionJob {
+
+    private final String id;
+    private final List<SubmissionEvent> events = new ArrayList<>();
+    private final List<Consumer<SubmissionEvent>> subscribers = new CopyOnWriteArrayList<>();
+    private final Queue<Runnable> deliveries = new ArrayDeque<>();
+    private boolean delivering;
+    private boolean finished;
+
+    SubmissionJob(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public synchronized boolean finished() {
+        return finished;
+    }
+
+    /**
+     * Replays the events so far to {@code subscriber} and passes on every later one until the
+     * submission is finished.
+     */
+    public synchronized void subscribe(Consumer<SubmissionEvent> subscriber) {
+        List<SubmissionEvent> replay = List.copyOf(events);
+        deliver(() -> replay.forEach(subscriber));
+        if (!finished) {
+            subscribers.add(subscriber);
+        }
+    }
+
+    public void unsubscribe(Consumer<SubmissionEvent> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    synchronized void publish(SubmissionEvent event) {
+        if (finished) {
+            return;
+        }
+        events.add(event);
+        finished = event.terminal();
+        List<Consumer<SubmissionEvent>> recipients = List.copyOf(subscribers);
+        deliver(() -> {
+            for (Consumer<SubmissionEvent> subscriber : recipients) {
+                if (subscribers.contains(subscriber)) {
+                    subscriber.accept(event);
+                }
+            }
+            if (event.terminal()) {
+                subscribers.clear();
+            }
+        });
+    }
+
+    synchronized List<SubmissionEvent> events() {
+        return List.copyOf(events);
+    }
+
+    /**
+     * Queues a delivery behind the ones before it. Called with the lock held, so deliveries
+     * run in the order the events were published and subscribers were added.
+     */
+    private void deliver(Runnable delivery) {
+        deliveries.add(delivery);
+        if (!delivering) {
+            delivering = true;
+            Thread.ofVirtual().name("submission-events-" + id).start(this::drainDeliveries);
+        }
+    }
+
+    private void drainDeliveries() {
+        while (true) {
+            Runnable delivery;
+            synchronized (this) {
+                delivery = deliveries.poll();
+                if (delivery == null) {
+                    delivering = false;
+                    return;
+                }
+            }
+            try {
+                delivery.run();
+            } catch (RuntimeException e) {
+                log.debug("Delivering an event of submission {} failed", id, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package mvp.streamy.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.RiddleResult;
+import mvp.streamy.models.SubmissionEvent;
+import mvp.streamy.services.SubmissionAdmission.Ticket;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs submissions in the background so the request that starts them can return right away.
+ * Each submission gets a job id under which its {@link SubmissionJob events} can be followed;
+ * finished jobs are forgotten after {@code streamy.engine.submissions.retention}.
+ *
+ * <p>Generated programs only hand over their output once the terminal operation is done, so
+ * the partial output is the first {@code preview-size} elements of that output, nested
+ * elements included, sent before it is converted and graded.
+ *
+ * <p>A submission takes its place in the {@link SubmissionAdmission} queue before the job is
+ * created, so a saturated engine turns it away right away instead of failing it later. It
+ * holds as many slots as {@link StreamGameService#slotsFor} says a run of the riddle uses.
+ */
+@Service
+@Slf4j
+public class SubmissionJobService implements AutoCloseable {
+
+    private final StreamGameService streamGameService;
+    private final RiddleRepository riddleRepository;
+    private final SubmissionAdmission admission;
+    private final int previewSize;
+    private final Duration eventTimeout;
+    private final Cache<String, SubmissionJob> jobs;
+    private final ExecutorService runner =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("submission-", 0).factory());
+
+    public SubmissionJobService(
+            StreamGameService streamGameService,
+            RiddleRepository riddleRepository,
+            SubmissionAdmission admission,
+            EngineProperties properties
+    ) {
+        this.streamGameService = streamGameService;
+        this.riddleRepository = riddleRepository;
+        this.admission = admission;
+        this.previewSize = properties.getSubmissions().getPreviewSize();
+        this.eventTimeout = properties.getSubmissions().getEventTimeout();
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getSubmissions().getRetention())
+                .build();
+    }
+
+    public SubmissionJob submit(String riddleId, String pipeline) {
+        return submit(riddleId, pipeline, SubmissionAdmission.ANONYMOUS);
+    }
+
+    public SubmissionJob submit(String riddleId, String pipeline, String clientId) {
+        if (riddleRepository.findById(riddleId) == null) {
+            throw new IllegalArgumentException("Unknown riddle: " + riddleId);
+        }
+
+        Ticket ticket = admission.enqueue(clientId, streamGameService.slotsFor(riddleId));
+        SubmissionJob job = new SubmissionJob(UUID.randomUUID().toString());
+        jobs.put(job.id(), job);
+        runner.execute(() -> {
+            try (ticket) {
+                run(job, ticket, riddleId, pipeline);
+            }
+        });
+        return job;
+    }
+
+    public SubmissionJob find(String jobId) {
+        SubmissionJob job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new NoSuchElementException("Unknown or expired submission: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * How long a client may stay subscribed to the events of a submission.
+     */
+    public Duration eventTimeout() {
+        return eventTimeout;
+    }
+
+    private void run(SubmissionJob job, Ticket ticket, String riddleId, String pipeline) {
+        SubmissionProgress progress = new SubmissionProgress() {
+            @Override
+            public void compiled(boolean interpreted) {
+                job.publish(SubmissionEvent.compiled(interpreted ? "interpreted" : "compiled"));
+            }
+
+            @Override
+            public void running() {
+                job.publish(SubmissionEvent.running());
+            }
+
+            @Override
+            public void produced(Object output) {
+                SubmissionEvent preview = preview(output);
+                if (preview != null) {
+                    job.publish(preview);
+                }
+            }
+        };
+
+        try {
+            ticket.await();
+            RiddleResult result = streamGameService.submitAnswer(riddleId, pipeline, progress);
+            job.publish(SubmissionEvent.result(result));
+        } catch (RuntimeException e) {
+            log.debug("Submission {} failed: {}", job.id(), e.getMessage());
+            job.publish(SubmissionEvent.error(exceptionName(e), e.getMessage()));
+        }
+    }
+
+    private SubmissionEvent preview(Object output) {
+        if (output instanceof Collection<?> || output instanceof Map<?, ?>) {
+            return SubmissionEvent.partialOutput(
+                    ResultValueFactory.previewItems(output, previewSize),
+                    ResultFingerprint.sizeOf(output)
+            );
+        }
+        return null;
+    }
+
+    /**
+     * Same names as the error responses of the synchronous endpoint.
+     */
+    private static String exceptionName(RuntimeException e) {
+        if (e instanceof IllegalArgumentException) {
+            return IllegalArgumentException.class.getSimpleName();
+        }
+        if (e instanceof UnsupportedOperationException) {
+            return UnsupportedOperationException.class.getSimpleName();
+        }
+        if (e instanceof AdmissionRejectedException) {
+            return AdmissionRejectedException.class.getSimpleName();
+        }
+        return RuntimeException.class.getSimpleName();
+    }
+
+    @Override
+    public void close() {
+        runner.shutdownNow();
+    }
+}
@@ -0,0 +1,22 @@
+package mvp.streamy.services;
+
+/**
+ * Callbacks for the steps of a single submission, in the order they happen. Used to report
+ * progress of asynchronous submissions; synchronous ones pass {@link #NONE}.
+ */
+public interface SubmissionProgress {
+
+    SubmissionProgress NONE = new SubmissionProgress() {};
+
+    /**
+     * The pipeline passed validation and is ready to run, either interpreted or as bytecode.
+     */
+    default void compiled(boolean interpreted) {}
+
+    default void running() {}
+
+    /**
+     * The pipeline produced its output; grading has not started yet.
+     */
+    default void produced(Object output) {}
+}
@@ -0,0 +1,47 @@
+package mvp.streamy.services;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * CPU time and allocated bytes of platform threads, as counted by HotSpot. Every method
+ * returns {@code -1} where the JVM does not support the measurement; virtual threads are not
+ * measured either.
+ */
+final class ThreadUsage {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean hotSpot
+                    ? hotSpot
+                    : null;
+    private static final boolean CPU_TIME = THREADS != null && THREADS.isThreadCpuTimeSupported();
+    private static final boolean ALLOCATION =
+            THREADS != null && THREADS.isThreadAllocatedMemorySupported();
+
+    static {
+        if (CPU_TIME) {
+            THREADS.setThreadCpuTimeEnabled(true);
+        }
+        if (ALLOCATION) {
+            THREADS.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    private ThreadUsage() {
+    }
+
+    static long cpuTime(Thread thread) {
+        return CPU_TIME ? THREADS.getThreadCpuTime(thread.threadId()) : -1;
+    }
+
+    static long allocatedBytes(Thread thread) {
+        return ALLOCATION ? THREADS.getThreadAllocatedBytes(thread.threadId()) : -1;
+    }
+
+    static long currentCpuTime() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    static long currentAllocatedBytes() {
+        return ALLOCATION ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+}
@@ -0,0 +1,72 @@
+package mvp.streamy.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import mvp.streamy.config.EngineProperties;
+
+/**
+ * Decides when an interpreted pipeline is compiled to bytecode.
+ *
+ * <p>A pipeline starts out interpreted, which costs nothing up front. Once it has run
+ * {@code streamy.engine.interpreter.compile-threshold} times it is compiled on a background
+ * thread, and the cache entry is swapped for the compiled class, so later runs of shared
+ * solutions, reference checks and replays get JIT-compiled bytecode. The submission that
+ * crosses the threshold is still interpreted and never waits for javac.
+ *
+ * <p>Transitions are counted in {@code streamy.pipeline.tier.transitions}, runs per tier in
+ * {@code streamy.pipeline.runs}.
+ */
+public class TieringPolicy implements AutoCloseable {
+
+    private final int compileThreshold;
+    private final ExecutorService background =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("pipeline-tier-up-", 0).factory());
+
+    private final Counter interpretedRuns;
+    private final Counter compiledRuns;
+    private final Counter promoted;
+    private final Counter promotionFailed;
+
+    public TieringPolicy(EngineProperties.Interpreter properties, MeterRegistry meterRegistry) {
+        this.compileThreshold = properties.getCompileThreshold();
+        this.interpretedRuns = meterRegistry.counter("streamy.pipeline.runs", "tier", "interpreted");
+        this.compiledRuns = meterRegistry.counter("streamy.pipeline.runs", "tier", "compiled");
+        this.promoted = meterRegistry.counter(
+                "streamy.pipeline.tier.transitions", "from", "interpreted", "to", "compiled", "outcome", "success");
+        this.promotionFailed = meterRegistry.counter(
+                "streamy.pipeline.tier.transitions", "from", "interpreted", "to", "compiled", "outcome", "failure");
+    }
+
+    /**
+     * Counts an interpreted run and returns {@code true} for exactly one caller: the one whose
+     * run makes the pipeline hot. A threshold of zero or less keeps pipelines interpreted.
+     */
+    boolean recordInterpretedRun(CompiledPipeline pipeline) {
+        interpretedRuns.increment();
+        return compileThreshold > 0
+                && pipeline.runs().incrementAndGet() == compileThreshold;
+    }
+
+    void recordCompiledRun() {
+        compiledRuns.increment();
+    }
+
+    void promoteInBackground(Runnable compilation) {
+        background.execute(compilation);
+    }
+
+    void promotionSucceeded() {
+        promoted.increment();
+    }
+
+    void promotionFailed() {
+        promotionFailed.increment();
+    }
+
+    @Override
+    public void close() {
+        background.shutdownNow();
+    }
+}
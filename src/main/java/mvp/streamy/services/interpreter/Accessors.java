@@ -0,0 +1,81 @@
+package mvp.streamy.services.interpreter;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.Function;
+import mvp.streamy.models.AnimalClass;
+import mvp.streamy.models.AnimalSpecies;
+import mvp.streamy.models.SafariAnimal;
+
+/**
+ * Prebuilt lambdas for the no-argument methods a pipeline may call, per receiver type. Lookups
+ * happen once while parsing; evaluation is a plain {@link Function#apply} without reflection.
+ */
+final class Accessors {
+
+    /**
+     * @param primitive whether javac sees an {@code int}/{@code boolean} rather than the boxed type;
+     *                  matters for {@code ==}, which compares references on boxed values
+     */
+    record Accessor(
+            Class<?> type,
+            boolean primitive,
+            Function<Object, Object> function
+    ) {}
+
+    private static final Map<String, Accessor> SAFARI_ANIMAL = Map.of(
+            "name", new Accessor(String.class, false, a -> ((SafariAnimal) a).name()),
+            "species", new Accessor(AnimalSpecies.class, false, a -> ((SafariAnimal) a).species()),
+            "animalClass", new Accessor(AnimalClass.class, false, a -> ((SafariAnimal) a).animalClass()),
+            "age", new Accessor(Integer.class, true, a -> ((SafariAnimal) a).age()),
+            "weight", new Accessor(Integer.class, true, a -> ((SafariAnimal) a).weight()),
+            "predator", new Accessor(Boolean.class, true, a -> ((SafariAnimal) a).predator())
+    );
+
+    private static final Map<String, Accessor> STRING = Map.of(
+            "toUpperCase", new Accessor(String.class, false, s -> ((String) s).toUpperCase()),
+            "toLowerCase", new Accessor(String.class, false, s -> ((String) s).toLowerCase()),
+            "trim", new Accessor(String.class, false, s -> ((String) s).trim()),
+            "strip", new Accessor(String.class, false, s -> ((String) s).strip()),
+            "length", new Accessor(Integer.class, true, s -> ((String) s).length()),
+            "isEmpty", new Accessor(Boolean.class, true, s -> ((String) s).isEmpty())
+    );
+
+    private static final Map<String, Accessor> ENUM = Map.of(
+            "name", new Accessor(String.class, false, e -> ((Enum<?>) e).name()),
+            "ordinal", new Accessor(Integer.class, true, e -> ((Enum<?>) e).ordinal())
+    );
+
+    private static final Map<String, Comparator<SafariAnimal>> SAFARI_ANIMAL_COMPARATORS = Map.of(
+            "BY_AGE", SafariAnimal.BY_AGE,
+            "BY_WEIGHT", SafariAnimal.BY_WEIGHT,
+            "BY_NAME", SafariAnimal.BY_NAME,
+            "PREDATORS_FIRST", SafariAnimal.PREDATORS_FIRST
+    );
+
+    private Accessors() {}
+
+    static Accessor find(Class<?> receiver, String method) {
+        Accessor accessor = null;
+        if (receiver == SafariAnimal.class) {
+            accessor = SAFARI_ANIMAL.get(method);
+        } else if (receiver == String.class) {
+            accessor = STRING.get(method);
+        } else if (receiver.isEnum()) {
+            accessor = ENUM.get(method);
+        }
+
+        if (accessor == null) {
+            throw new UnsupportedPipelineException(receiver.getSimpleName() + "." + method + "()");
+        }
+        return accessor;
+    }
+
+    static Comparator<SafariAnimal> comparatorConstant(String name) {
+        Comparator<SafariAnimal> comparator = SAFARI_ANIMAL_COMPARATORS.get(name);
+        if (comparator == null) {
+            throw new UnsupportedPipelineException("SafariAnimal." + name);
+        }
+        return comparator;
+    }
+}
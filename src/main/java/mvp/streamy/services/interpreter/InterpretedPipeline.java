@@ -0,0 +1,46 @@
+package mvp.streamy.services.interpreter;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A parsed pipeline: the chain of stream operations, each bound to prebuilt lambdas.
+ * Running it calls the same {@code java.util.stream} methods the compiled program would,
+ * so the results are identical, just without javac and class loading.
+ *
+ * <p>The {@code source} turns the input list into the first stream, usually
+ * {@code input.stream()}; a leading {@code mapToInt} over an int column reads
+ * {@link mvp.streamy.models.SafariAnimalColumns} directly.
+ */
+public final class InterpretedPipeline {
+
+    record Operation(
+            String description,
+            UnaryOperator<Object> function
+    ) {}
+
+    private final Operation source;
+    private final List<Operation> operations;
+
+    InterpretedPipeline(Operation source, List<Operation> operations) {
+        this.source = source;
+        this.operations = List.copyOf(operations);
+    }
+
+    public Object run(List<?> input) {
+        Object current = source.function().apply(input);
+        for (Operation operation : operations) {
+            current = operation.function().apply(current);
+        }
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        return Stream.concat(Stream.of(source), operations.stream())
+                .map(Operation::description)
+                .collect(Collectors.joining("."));
+    }
+}
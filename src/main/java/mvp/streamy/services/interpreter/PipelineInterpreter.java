@@ -0,0 +1,31 @@
+package mvp.streamy.services.interpreter;
+
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import mvp.streamy.models.SafariAnimal;
+
+/**
+ * Execution backend for the pipelines most riddle answers are made of: {@code filter},
+ * {@code map}, {@code sorted}, {@code distinct}, {@code max}/{@code min},
+ * {@code mapToInt(...).sum()} and the common {@code Collectors}, with method references or
+ * simple expression lambdas over {@link SafariAnimal} accessors.
+ *
+ * <p>The parser only accepts what javac would accept with the same meaning. Everything else
+ * yields an empty result and the caller compiles the pipeline instead.
+ */
+@Slf4j
+public class PipelineInterpreter {
+
+    public Optional<InterpretedPipeline> parse(String pipeline, Class<?> elementType) {
+        if (elementType != SafariAnimal.class) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(new PipelineParser(pipeline, elementType).parse());
+        } catch (UnsupportedPipelineException e) {
+            log.debug("Pipeline not interpretable ({}), falling back to javac", e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package mvp.streamy.services.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a pipeline into the handful of token kinds the interpreter understands. Anything
+ * else (char literals, blocks, semicolons, ...) is reported as unsupported, which makes the
+ * engine fall back to javac.
+ */
+final class PipelineLexer {
+
+    enum Kind { IDENTIFIER, INT, STRING, SYMBOL, END }
+
+    record Token(Kind kind, String text) {
+
+        boolean is(String symbol) {
+            return kind != Kind.STRING && kind != Kind.END && text.equals(symbol);
+        }
+    }
+
+    private static final List<String> SYMBOLS = List.of(
+            "->", "::", "&&", "||", "==", "!=", "<=", ">=",
+            ".", "(", ")", ",", "<", ">", "!", "+", "-", "*", "/", "%"
+    );
+
+    private PipelineLexer() {}
+
+    static List<Token> tokenize(String pipeline) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+
+        while (i < pipeline.length()) {
+            char c = pipeline.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (pipeline.startsWith("//", i)) {
+                int end = pipeline.indexOf('\n', i);
+                i = end < 0 ? pipeline.length() : end;
+            } else if (pipeline.startsWith("/*", i)) {
+                int end = pipeline.indexOf("*/", i + 2);
+                if (end < 0) {
+                    throw new UnsupportedPipelineException("unterminated comment");
+                }
+                i = end + 2;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < pipeline.length() && Character.isJavaIdentifierPart(pipeline.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.IDENTIFIER, pipeline.substring(start, i)));
+            } else if (Character.isDigit(c)) {
+                int start = i;
+                while (i < pipeline.length() && Character.isDigit(pipeline.charAt(i))) {
+                    i++;
+                }
+                if (i < pipeline.length() && Character.isJavaIdentifierPart(pipeline.charAt(i))) {
+                    throw new UnsupportedPipelineException("numeric literal " + pipeline.substring(start, i + 1));
+                }
+                tokens.add(new Token(Kind.INT, pipeline.substring(start, i)));
+            } else if (c == '"') {
+                int end = pipeline.indexOf('"', i + 1);
+                String literal = end < 0 ? "" : pipeline.substring(i + 1, end);
+                if (end < 0 || literal.indexOf('\\') >= 0 || literal.indexOf('\n') >= 0) {
+                    throw new UnsupportedPipelineException("string literal");
+                }
+                tokens.add(new Token(Kind.STRING, literal));
+                i = end + 1;
+            } else {
+                String symbol = symbolAt(pipeline, i);
+                tokens.add(new Token(Kind.SYMBOL, symbol));
+                i += symbol.length();
+            }
+        }
+
+        tokens.add(new Token(Kind.END, ""));
+        return tokens;
+    }
+
+    private static String symbolAt(String pipeline, int i) {
+        for (String symbol : SYMBOLS) {
+            if (pipeline.startsWith(symbol, i)) {
+                return symbol;
+            }
+        }
+        throw new UnsupportedPipelineException("symbol " + pipeline.charAt(i));
+    }
+}
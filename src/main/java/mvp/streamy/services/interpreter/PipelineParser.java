@@ -0,0 +1,679 @@
+package mvp.streamy.services.interpreter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import mvp.streamy.models.SafariAnimal;
+import mvp.streamy.models.SafariAnimalColumns;
+import mvp.streamy.services.interpreter.Accessors.Accessor;
+import mvp.streamy.services.interpreter.InterpretedPipeline.Operation;
+import mvp.streamy.services.interpreter.PipelineLexer.Kind;
+import mvp.streamy.services.interpreter.PipelineLexer.Token;
+
+/**
+ * Recursive descent parser from pipeline text to an {@link InterpretedPipeline}.
+ *
+ * <p>Types are tracked the way javac sees them in the generated program, so that a pipeline
+ * that would not compile (wrong accessor, non-boolean filter, a type that is not imported)
+ * is rejected here too instead of producing a result javac never would.
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+final class PipelineParser {
+
+    private enum Shape { STREAM, INT_STREAM, OPTIONAL, OPTIONAL_INT, OPTIONAL_DOUBLE, VALUE }
+
+    /**
+     * A typed expression, evaluated against the current lambda argument.
+     */
+    private record Typed(
+            Class<?> type,
+            boolean primitive,
+            Function<Object, Object> function
+    ) {
+
+        boolean isInt() {
+            return type == Integer.class;
+        }
+
+        boolean isBoolean() {
+            return type == Boolean.class;
+        }
+    }
+
+    private record Parameter(
+            String name,
+            Class<?> type,
+            boolean primitive
+    ) {}
+
+    private record CollectorSpec(
+            Collector collector,
+            boolean optionalResult
+    ) {}
+
+    private static final Set<String> RESERVED = Set.of(
+            "input", "true", "false", "null", "this", "super", "new", "var", "_",
+            "int", "long", "boolean", "double", "float", "char", "byte", "short", "void",
+            "class", "return", "if", "else", "switch", "case", "default", "instanceof"
+    );
+
+    private final List<Token> tokens;
+    private final Class<?> elementType;
+    private Operation source = new Operation("stream()", input -> ((List<?>) input).stream());
+    private final List<Operation> operations = new ArrayList<>();
+    private int position;
+
+    private Shape shape = Shape.STREAM;
+    private Class<?> current;
+
+    PipelineParser(String pipeline, Class<?> elementType) {
+        this.tokens = PipelineLexer.tokenize(pipeline);
+        this.elementType = elementType;
+        this.current = elementType;
+    }
+
+    InterpretedPipeline parse() {
+        while (peek().kind() != Kind.END) {
+            expect(".");
+            String method = identifier();
+            expect("(");
+            switch (shape) {
+                case STREAM -> streamOperation(method);
+                case INT_STREAM -> intStreamOperation(method);
+                case OPTIONAL, OPTIONAL_INT, OPTIONAL_DOUBLE -> optionalOperation(method);
+                case VALUE -> throw new UnsupportedPipelineException("call on result: " + method);
+            }
+            expect(")");
+        }
+
+        if (shape == Shape.STREAM || shape == Shape.INT_STREAM) {
+            throw new UnsupportedPipelineException("pipeline has no terminal operation");
+        }
+        return new InterpretedPipeline(source, operations);
+    }
+
+    // ---- stream operations ------------------------------------------------------------------
+
+    private void streamOperation(String method) {
+        switch (method) {
+            case "filter" -> {
+                Typed predicate = requireBoolean(function(current, false));
+                add(method, s -> stream(s).filter(o -> (Boolean) predicate.function().apply(o)));
+            }
+            case "map" -> {
+                Typed mapper = function(current, false);
+                current = mapper.type();
+                add(method, s -> stream(s).map(mapper.function()));
+            }
+            case "mapToInt" -> {
+                String column = operations.isEmpty() ? intColumnReference() : null;
+                Typed mapper = requireInt(function(current, false));
+                shape = Shape.INT_STREAM;
+                if (column != null) {
+                    source = intColumnSource(column, mapper);
+                } else {
+                    add(method, s -> stream(s).mapToInt(o -> (Integer) mapper.function().apply(o)));
+                }
+            }
+            case "sorted" -> {
+                if (peek().is(")")) {
+                    requireComparable(current);
+                    add(method, s -> stream(s).sorted());
+                } else {
+                    Comparator<Object> comparator = comparator(current);
+                    add(method, s -> stream(s).sorted(comparator));
+                }
+            }
+            case "distinct" -> add(method, s -> stream(s).distinct());
+            case "limit" -> {
+                int maxSize = intLiteral();
+                add(method, s -> stream(s).limit(maxSize));
+            }
+            case "skip" -> {
+                int n = intLiteral();
+                add(method, s -> stream(s).skip(n));
+            }
+            case "toList" -> {
+                shape = Shape.VALUE;
+                add(method, s -> stream(s).toList());
+            }
+            case "count" -> {
+                shape = Shape.VALUE;
+                add(method, s -> stream(s).count());
+            }
+            case "max", "min" -> {
+                Comparator<Object> comparator = comparator(current);
+                shape = Shape.OPTIONAL;
+                add(method, method.equals("max")
+                        ? s -> stream(s).max(comparator)
+                        : s -> stream(s).min(comparator));
+            }
+            case "findFirst" -> {
+                shape = Shape.OPTIONAL;
+                add(method, s -> stream(s).findFirst());
+            }
+            case "collect" -> {
+                Collector collector = collector(current).collector();
+                shape = Shape.VALUE;
+                add(method, s -> stream(s).collect(collector));
+            }
+            default -> throw new UnsupportedPipelineException("Stream." + method);
+        }
+    }
+
+    private void intStreamOperation(String method) {
+        switch (method) {
+            case "filter" -> {
+                Typed predicate = requireBoolean(function(Integer.class, true));
+                add(method, s -> ((IntStream) s).filter(i -> (Boolean) predicate.function().apply(i)));
+            }
+            case "sorted" -> add(method, s -> ((IntStream) s).sorted());
+            case "distinct" -> add(method, s -> ((IntStream) s).distinct());
+            case "limit" -> {
+                int maxSize = intLiteral();
+                add(method, s -> ((IntStream) s).limit(maxSize));
+            }
+            case "skip" -> {
+                int n = intLiteral();
+                add(method, s -> ((IntStream) s).skip(n));
+            }
+            case "boxed" -> {
+                shape = Shape.STREAM;
+                current = Integer.class;
+                add(method, s -> ((IntStream) s).boxed());
+            }
+            case "sum" -> {
+                shape = Shape.VALUE;
+                add(method, s -> ((IntStream) s).sum());
+            }
+            case "count" -> {
+                shape = Shape.VALUE;
+                add(method, s -> ((IntStream) s).count());
+            }
+            case "max" -> {
+                shape = Shape.OPTIONAL_INT;
+                add(method, s -> ((IntStream) s).max());
+            }
+            case "min" -> {
+                shape = Shape.OPTIONAL_INT;
+                add(method, s -> ((IntStream) s).min());
+            }
+            case "average" -> {
+                shape = Shape.OPTIONAL_DOUBLE;
+                add(method, s -> ((IntStream) s).average());
+            }
+            default -> throw new UnsupportedPipelineException("IntStream." + method);
+        }
+    }
+
+    private void optionalOperation(String method) {
+        UnaryOperator<Object> unwrap = switch (shape) {
+            case OPTIONAL -> switch (method) {
+                case "get", "orElseThrow" -> o -> ((Optional<?>) o).orElseThrow();
+                default -> null;
+            };
+            case OPTIONAL_INT -> switch (method) {
+                case "getAsInt", "orElseThrow" -> o -> ((OptionalInt) o).orElseThrow();
+                default -> null;
+            };
+            case OPTIONAL_DOUBLE -> switch (method) {
+                case "getAsDouble", "orElseThrow" -> o -> ((OptionalDouble) o).orElseThrow();
+                default -> null;
+            };
+            default -> null;
+        };
+
+        if (unwrap == null) {
+            throw new UnsupportedPipelineException("Optional." + method);
+        }
+        shape = Shape.VALUE;
+        add(method, unwrap);
+    }
+
+    // ---- functions, comparators, collectors -------------------------------------------------
+
+    private Typed function(Class<?> argumentType, boolean primitiveArgument) {
+        if (peek().kind() == Kind.IDENTIFIER && peek(1).is("::")) {
+            return methodReference(argumentType);
+        }
+        return lambda(argumentType, primitiveArgument);
+    }
+
+    private Typed methodReference(Class<?> argumentType) {
+        String owner = identifier();
+        expect("::");
+        String method = identifier();
+
+        if (!owner.equals(visibleName(argumentType))) {
+            throw new UnsupportedPipelineException(owner + "::" + method);
+        }
+        Accessor accessor = Accessors.find(argumentType, method);
+        return new Typed(accessor.type(), accessor.primitive(), accessor.function());
+    }
+
+    private Typed lambda(Class<?> argumentType, boolean primitiveArgument) {
+        String name;
+        if (accept("(")) {
+            name = identifier();
+            expect(")");
+        } else {
+            name = identifier();
+        }
+        if (RESERVED.contains(name)) {
+            throw new UnsupportedPipelineException("lambda parameter " + name);
+        }
+        expect("->");
+        return expression(new Parameter(name, argumentType, primitiveArgument));
+    }
+
+    private Comparator<Object> comparator(Class<?> argumentType) {
+        String owner = identifier();
+        expect(".");
+        String factory = identifier();
+        Comparator comparator;
+
+        if (owner.equals("Comparator")) {
+            expect("(");
+            switch (factory) {
+                case "comparing" -> {
+                    Typed key = methodReference(argumentType);
+                    requireComparable(key.type());
+                    comparator = Comparator.comparing(o -> (Comparable) key.function().apply(o));
+                }
+                case "comparingInt" -> {
+                    Typed key = requireInt(methodReference(argumentType));
+                    comparator = Comparator.comparingInt(o -> (Integer) key.function().apply(o));
+                }
+                case "naturalOrder", "reverseOrder" -> {
+                    // javac cannot infer the type of a chained naturalOrder().reversed()
+                    requireComparable(argumentType);
+                    expect(")");
+                    return factory.equals("naturalOrder")
+                            ? (Comparator) Comparator.naturalOrder()
+                            : (Comparator) Comparator.reverseOrder();
+                }
+                default -> throw new UnsupportedPipelineException("Comparator." + factory);
+            }
+            expect(")");
+        } else if (argumentType == SafariAnimal.class && owner.equals(visibleName(argumentType))) {
+            comparator = Accessors.comparatorConstant(factory);
+        } else {
+            throw new UnsupportedPipelineException(owner + "." + factory);
+        }
+
+        while (peek().is(".")) {
+            expect(".");
+            String method = identifier();
+            expect("(");
+            switch (method) {
+                case "reversed" -> comparator = comparator.reversed();
+                case "thenComparing" -> {
+                    Typed key = methodReference(argumentType);
+                    requireComparable(key.type());
+                    comparator = comparator.thenComparing(o -> (Comparable) key.function().apply(o));
+                }
+                case "thenComparingInt" -> {
+                    Typed key = requireInt(methodReference(argumentType));
+                    comparator = comparator.thenComparingInt(o -> (Integer) key.function().apply(o));
+                }
+                default -> throw new UnsupportedPipelineException("Comparator." + method);
+            }
+            expect(")");
+        }
+        return comparator;
+    }
+
+    private CollectorSpec collector(Class<?> argumentType) {
+        expectIdentifier("Collectors");
+        expect(".");
+        String name = identifier();
+        expect("(");
+
+        CollectorSpec spec = switch (name) {
+            case "toList" -> new CollectorSpec(Collectors.toList(), false);
+            case "toSet" -> new CollectorSpec(Collectors.toSet(), false);
+            case "counting" -> new CollectorSpec(Collectors.counting(), false);
+            case "groupingBy" -> {
+                Typed classifier = function(argumentType, false);
+                Function<Object, Object> key = classifier.function();
+                yield accept(",")
+                        ? new CollectorSpec(Collectors.groupingBy(key, collector(argumentType).collector()), false)
+                        : new CollectorSpec(Collectors.groupingBy(key), false);
+            }
+            case "partitioningBy" -> {
+                Typed predicate = requireBoolean(function(argumentType, false));
+                java.util.function.Predicate<Object> test = o -> (Boolean) predicate.function().apply(o);
+                yield accept(",")
+                        ? new CollectorSpec(Collectors.partitioningBy(test, collector(argumentType).collector()), false)
+                        : new CollectorSpec(Collectors.partitioningBy(test), false);
+            }
+            case "summingInt" -> {
+                Typed mapper = requireInt(function(argumentType, false));
+                yield new CollectorSpec(Collectors.summingInt(o -> (Integer) mapper.function().apply(o)), false);
+            }
+            case "averagingInt" -> {
+                Typed mapper = requireInt(function(argumentType, false));
+                yield new CollectorSpec(Collectors.averagingInt(o -> (Integer) mapper.function().apply(o)), false);
+            }
+            case "maxBy" -> new CollectorSpec(Collectors.maxBy(comparator(argumentType)), true);
+            case "minBy" -> new CollectorSpec(Collectors.minBy(comparator(argumentType)), true);
+            case "collectingAndThen" -> {
+                CollectorSpec downstream = collector(argumentType);
+                expect(",");
+                expectIdentifier("Optional");
+                expect("::");
+                String finisher = identifier();
+                if (!downstream.optionalResult() || !(finisher.equals("get") || finisher.equals("orElseThrow"))) {
+                    throw new UnsupportedPipelineException("collectingAndThen(..., Optional::" + finisher + ")");
+                }
+                yield new CollectorSpec(
+                        Collectors.collectingAndThen(downstream.collector(), o -> ((Optional<?>) o).orElseThrow()),
+                        false
+                );
+            }
+            default -> throw new UnsupportedPipelineException("Collectors." + name);
+        };
+
+        expect(")");
+        return spec;
+    }
+
+    // ---- lambda bodies ----------------------------------------------------------------------
+
+    private Typed expression(Parameter parameter) {
+        Typed left = conjunction(parameter);
+        while (accept("||")) {
+            Function<Object, Object> l = requireBoolean(left).function();
+            Function<Object, Object> r = requireBoolean(conjunction(parameter)).function();
+            left = new Typed(Boolean.class, true, o -> (Boolean) l.apply(o) || (Boolean) r.apply(o));
+        }
+        return left;
+    }
+
+    private Typed conjunction(Parameter parameter) {
+        Typed left = equality(parameter);
+        while (accept("&&")) {
+            Function<Object, Object> l = requireBoolean(left).function();
+            Function<Object, Object> r = requireBoolean(equality(parameter)).function();
+            left = new Typed(Boolean.class, true, o -> (Boolean) l.apply(o) && (Boolean) r.apply(o));
+        }
+        return left;
+    }
+
+    private Typed equality(Parameter parameter) {
+        Typed left = relational(parameter);
+        if (!peek().is("==") && !peek().is("!=")) {
+            return left;
+        }
+        boolean negate = next().is("!=");
+        Typed right = relational(parameter);
+
+        boolean comparable =
+                (left.isInt() && right.isInt() || left.isBoolean() && right.isBoolean())
+                        && (left.primitive() || right.primitive())
+                        || left.type().isEnum() && left.type() == right.type();
+        if (!comparable) {
+            // == on boxed values or strings compares references; leave that to javac
+            throw new UnsupportedPipelineException("== on " + left.type().getSimpleName());
+        }
+
+        Function<Object, Object> l = left.function();
+        Function<Object, Object> r = right.function();
+        return new Typed(Boolean.class, true, o -> {
+            Object a = l.apply(o);
+            Object b = r.apply(o);
+            boolean same = a instanceof Enum<?> ? a == b : a.equals(b);
+            return same != negate;
+        });
+    }
+
+    private Typed relational(Parameter parameter) {
+        Typed left = additive(parameter);
+        if (!(peek().is("<") || peek().is("<=") || peek().is(">") || peek().is(">="))) {
+            return left;
+        }
+        String operator = next().text();
+        Function<Object, Object> l = requireInt(left).function();
+        Function<Object, Object> r = requireInt(additive(parameter)).function();
+
+        return new Typed(Boolean.class, true, o -> {
+            int a = (Integer) l.apply(o);
+            int b = (Integer) r.apply(o);
+            return switch (operator) {
+                case "<" -> a < b;
+                case "<=" -> a <= b;
+                case ">" -> a > b;
+                default -> a >= b;
+            };
+        });
+    }
+
+    private Typed additive(Parameter parameter) {
+        Typed left = multiplicative(parameter);
+        while (peek().is("+") || peek().is("-")) {
+            boolean plus = next().is("+");
+            Typed right = multiplicative(parameter);
+            Function<Object, Object> l = left.function();
+            Function<Object, Object> r = right.function();
+
+            if (plus && (left.type() == String.class || right.type() == String.class)) {
+                left = new Typed(String.class, false, o -> String.valueOf(l.apply(o)) + r.apply(o));
+            } else {
+                requireInt(left);
+                requireInt(right);
+                left = plus
+                        ? new Typed(Integer.class, true, o -> (Integer) l.apply(o) + (Integer) r.apply(o))
+                        : new Typed(Integer.class, true, o -> (Integer) l.apply(o) - (Integer) r.apply(o));
+            }
+        }
+        return left;
+    }
+
+    private Typed multiplicative(Parameter parameter) {
+        Typed left = unary(parameter);
+        while (peek().is("*") || peek().is("/") || peek().is("%")) {
+            String operator = next().text();
+            Function<Object, Object> l = requireInt(left).function();
+            Function<Object, Object> r = requireInt(unary(parameter)).function();
+            left = new Typed(Integer.class, true, o -> {
+                int a = (Integer) l.apply(o);
+                int b = (Integer) r.apply(o);
+                return switch (operator) {
+                    case "*" -> a * b;
+                    case "/" -> a / b;
+                    default -> a % b;
+                };
+            });
+        }
+        return left;
+    }
+
+    private Typed unary(Parameter parameter) {
+        if (accept("!")) {
+            Function<Object, Object> operand = requireBoolean(unary(parameter)).function();
+            return new Typed(Boolean.class, true, o -> !(Boolean) operand.apply(o));
+        }
+        if (accept("-")) {
+            Function<Object, Object> operand = requireInt(unary(parameter)).function();
+            return new Typed(Integer.class, true, o -> -(Integer) operand.apply(o));
+        }
+        return postfix(parameter);
+    }
+
+    private Typed postfix(Parameter parameter) {
+        Typed value = primary(parameter);
+        while (peek().is(".")) {
+            expect(".");
+            String method = identifier();
+            expect("(");
+            expect(")");
+
+            Accessor accessor = Accessors.find(value.type(), method);
+            Function<Object, Object> receiver = value.function();
+            value = new Typed(accessor.type(), accessor.primitive(), receiver.andThen(accessor.function()));
+        }
+        return value;
+    }
+
+    private Typed primary(Parameter parameter) {
+        Token token = next();
+        switch (token.kind()) {
+            case INT -> {
+                Integer literal = parseInt(token.text());
+                return new Typed(Integer.class, true, o -> literal);
+            }
+            case STRING -> {
+                String literal = token.text();
+                return new Typed(String.class, false, o -> literal);
+            }
+            case IDENTIFIER -> {
+                if (token.text().equals("true") || token.text().equals("false")) {
+                    Boolean literal = Boolean.valueOf(token.text());
+                    return new Typed(Boolean.class, true, o -> literal);
+                }
+                if (token.text().equals(parameter.name())) {
+                    return new Typed(parameter.type(), parameter.primitive(), Function.identity());
+                }
+                throw new UnsupportedPipelineException("identifier " + token.text());
+            }
+            default -> {
+                if (token.is("(")) {
+                    Typed inner = expression(parameter);
+                    expect(")");
+                    return inner;
+                }
+                throw new UnsupportedPipelineException("token " + token.text());
+            }
+        }
+    }
+
+    // ---- helpers ----------------------------------------------------------------------------
+
+    /**
+     * {@code age} or {@code weight} if the next tokens are {@code SafariAnimal::age} or
+     * {@code SafariAnimal::weight} applied to the input elements, otherwise {@code null}.
+     */
+    private String intColumnReference() {
+        boolean columnReference = current == SafariAnimal.class
+                && peek().is(SafariAnimal.class.getSimpleName())
+                && peek(1).is("::")
+                && (peek(2).is("age") || peek(2).is("weight"))
+                && peek(3).is(")");
+        return columnReference ? peek(2).text() : null;
+    }
+
+    private static Operation intColumnSource(String column, Typed mapper) {
+        Function<SafariAnimalColumns, IntStream> read =
+                column.equals("age") ? SafariAnimalColumns::ages : SafariAnimalColumns::weights;
+        return new Operation("stream().mapToInt()", input -> input instanceof SafariAnimalColumns columns
+                ? read.apply(columns)
+                : ((List<?>) input).stream().mapToInt(o -> (Integer) mapper.function().apply(o)));
+    }
+
+    private void add(String description, UnaryOperator<Object> function) {
+        operations.add(new Operation(description + "()", function));
+    }
+
+    private static Stream<Object> stream(Object stream) {
+        return (Stream<Object>) stream;
+    }
+
+    private String visibleName(Class<?> type) {
+        // the generated program imports the element type; java.lang needs no import
+        if (type == elementType || "java.lang".equals(type.getPackageName())) {
+            return type.getSimpleName();
+        }
+        return null;
+    }
+
+    private static Typed requireBoolean(Typed typed) {
+        if (!typed.isBoolean()) {
+            throw new UnsupportedPipelineException("expected boolean, got " + typed.type().getSimpleName());
+        }
+        return typed;
+    }
+
+    private static Typed requireInt(Typed typed) {
+        if (!typed.isInt()) {
+            throw new UnsupportedPipelineException("expected int, got " + typed.type().getSimpleName());
+        }
+        return typed;
+    }
+
+    private static void requireComparable(Class<?> type) {
+        if (!Comparable.class.isAssignableFrom(type)) {
+            throw new UnsupportedPipelineException(type.getSimpleName() + " is not Comparable");
+        }
+    }
+
+    private int intLiteral() {
+        Token token = next();
+        if (token.kind() != Kind.INT) {
+            throw new UnsupportedPipelineException("expected int literal, got " + token.text());
+        }
+        return parseInt(token.text());
+    }
+
+    private static Integer parseInt(String text) {
+        try {
+            return Integer.valueOf(text);
+        } catch (NumberFormatException e) {
+            throw new UnsupportedPipelineException("int literal " + text);
+        }
+    }
+
+    private String identifier() {
+        Token token = next();
+        if (token.kind() != Kind.IDENTIFIER) {
+            throw new UnsupportedPipelineException("expected identifier, got " + token.text());
+        }
+        return token.text();
+    }
+
+    private void expectIdentifier(String name) {
+        if (!identifier().equals(name)) {
+            throw new UnsupportedPipelineException("expected " + name);
+        }
+    }
+
+    private void expect(String symbol) {
+        Token token = next();
+        if (!token.is(symbol) || token.kind() == Kind.IDENTIFIER) {
+            throw new UnsupportedPipelineException("expected " + symbol + ", got " + token.text());
+        }
+    }
+
+    private boolean accept(String symbol) {
+        if (peek().kind() == Kind.SYMBOL && peek().is(symbol)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private Token peek() {
+        return peek(0);
+    }
+
+    private Token peek(int offset) {
+        return tokens.get(Math.min(position + offset, tokens.size() - 1));
+    }
+
+    private Token next() {
+        Token token = peek();
+        if (token.kind() != Kind.END) {
+            position++;
+        }
+        return token;
+    }
+}
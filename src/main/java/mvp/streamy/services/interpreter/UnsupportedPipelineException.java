@@ -0,0 +1,12 @@
+package mvp.streamy.services.interpreter;
+
+/**
+ * Signals that a pipeline uses something outside the interpreter's vocabulary. It never
+ * reaches a caller: {@link PipelineInterpreter} turns it into an empty result.
+ */
+class UnsupportedPipelineException extends RuntimeException {
+
+    UnsupportedPipelineException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,632 @@
+package mvp.streamy.services.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import mvp.streamy.services.validation.JavaLexer.Kind;
+import mvp.streamy.services.validation.JavaLexer.Token;
+
+/**
+ * Recursive descent parser over the Java expression grammar a pipeline may use, continuing
+ * {@code input.stream()}. It builds no tree: every construct is checked against the allowlist
+ * as soon as it is recognized, and anything the grammar below does not cover is rejected.
+ *
+ * <p>Names are resolved the way javac would, with lambda parameters and block locals only in
+ * scope inside their lambda or block. A name that is not in scope must be {@code input}, an
+ * {@link PipelineValidator#isAllowedType allowed type} or a qualified name in an allowed
+ * {@code java.*} package, so that neither {@code System} nor {@code java.lang.Runtime} can be
+ * reached, however they are spelled.
+ */
+final class AllowlistParser {
+
+    private static final int MAX_DEPTH = 64;
+
+    private static final Set<String> PRIMITIVES =
+            Set.of("boolean", "byte", "char", "short", "int", "long", "float", "double");
+
+    private static final Set<String> KEYWORDS = Set.of(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class",
+            "const", "continue", "default", "do", "double", "else", "enum", "extends", "final",
+            "finally", "float", "for", "goto", "if", "implements", "import", "instanceof", "int",
+            "interface", "long", "native", "new", "package", "private", "protected", "public",
+            "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this",
+            "throw", "throws", "transient", "try", "void", "volatile", "while", "true", "false",
+            "null", "_"
+    );
+
+    private static final Set<String> PREFIX_OPERATORS = Set.of("!", "~", "+", "-", "++", "--");
+
+    private static final Set<String> ASSIGNMENTS =
+            Set.of("=", "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "<<=");
+
+    private final List<Token> tokens;
+    private final String elementTypeName;
+    private final boolean allowParallel;
+    private final List<String> scope = new ArrayList<>();
+    private int pos;
+    private int depth;
+    private boolean implicitStream = true;
+
+    AllowlistParser(List<Token> tokens, String elementTypeName, boolean allowParallel) {
+        this.tokens = tokens;
+        this.elementTypeName = elementTypeName;
+        this.allowParallel = allowParallel;
+    }
+
+    void pipeline() {
+        expression();
+        if (peek().kind() != Kind.END) {
+            throw syntax("unexpected '" + peek().text() + "'");
+        }
+    }
+
+    private void expression() {
+        if (++depth > MAX_DEPTH) {
+            throw syntax("pipeline nested too deeply");
+        }
+        if (isLambdaStart()) {
+            lambda();
+        } else {
+            conditional();
+            if (peek().kind() == Kind.SYMBOL && ASSIGNMENTS.contains(peek().text())) {
+                pos++;
+                expression();
+            }
+        }
+        depth--;
+    }
+
+    private void conditional() {
+        binary(1);
+        if (accept("?")) {
+            expression();
+            expect(":");
+            expression();
+        }
+    }
+
+    private void binary(int minPrecedence) {
+        unary();
+        while (true) {
+            int operatorTokens = binaryOperatorTokens();
+            int precedence = operatorTokens == 0 ? 0 : precedence(peek().text(), operatorTokens);
+            if (precedence < minPrecedence) {
+                return;
+            }
+            boolean instanceOf = isKeyword(peek(), "instanceof");
+            pos += operatorTokens;
+            if (instanceOf) {
+                type();
+                if (peek().kind() == Kind.IDENTIFIER) {
+                    throw forbidden("pattern variable " + peek().text());
+                }
+            } else {
+                binary(precedence + 1);
+            }
+        }
+    }
+
+    /**
+     * Number of tokens of the binary operator at the current position, 0 if there is none.
+     * {@code >>} and {@code >>>} are made of adjacent {@code >} tokens.
+     */
+    private int binaryOperatorTokens() {
+        Token token = peek();
+        if (isKeyword(token, "instanceof")) {
+            return 1;
+        }
+        if (token.kind() != Kind.SYMBOL) {
+            return 0;
+        }
+        if (token.is(">")) {
+            int count = 1;
+            while (count < 3 && peekAt(count).is(">") && peekAt(count).start() == peekAt(count - 1).end()) {
+                count++;
+            }
+            return count;
+        }
+        return switch (token.text()) {
+            case "||", "&&", "|", "^", "&", "==", "!=", "<", "<=", ">=", "<<", "+", "-", "*", "/", "%" -> 1;
+            default -> 0;
+        };
+    }
+
+    private static int precedence(String operator, int tokens) {
+        if (operator.equals(">")) {
+            return tokens == 1 ? 7 : 8;
+        }
+        return switch (operator) {
+            case "||" -> 1;
+            case "&&" -> 2;
+            case "|" -> 3;
+            case "^" -> 4;
+            case "&" -> 5;
+            case "==", "!=" -> 6;
+            case "<", "<=", ">=", "instanceof" -> 7;
+            case "<<" -> 8;
+            case "+", "-" -> 9;
+            default -> 10;
+        };
+    }
+
+    private void unary() {
+        Token token = peek();
+        if (token.kind() == Kind.SYMBOL && PREFIX_OPERATORS.contains(token.text())) {
+            pos++;
+            unary();
+        } else if (isCast()) {
+            expect("(");
+            type();
+            expect(")");
+            if (isLambdaStart()) {
+                lambda();
+            } else {
+                unary();
+            }
+        } else {
+            primary();
+            selectors();
+            while (accept("++") || accept("--")) {
+                // postfix increment of a local, checked by javac
+            }
+        }
+    }
+
+    private void primary() {
+        if (implicitStream) {
+            // stands for input.stream(), which the pipeline continues
+            implicitStream = false;
+            return;
+        }
+
+        Token token = next();
+        switch (token.kind()) {
+            case NUMBER, STRING, CHAR -> {
+            }
+            case IDENTIFIER -> {
+                if (isKeyword(token, "true") || isKeyword(token, "false") || isKeyword(token, "null")) {
+                    return;
+                }
+                if (PRIMITIVES.contains(token.text())) {
+                    // only int[]::new and the like
+                    dimensions();
+                    if (!peek().is("::")) {
+                        throw syntax("expected '::' after " + token.text());
+                    }
+                    return;
+                }
+                if (KEYWORDS.contains(token.text())) {
+                    throw forbidden(token.text());
+                }
+                name(token);
+            }
+            case SYMBOL -> {
+                if (!token.is("(")) {
+                    throw syntax("unexpected '" + token.text() + "'");
+                }
+                expression();
+                expect(")");
+            }
+            case END -> throw syntax("unexpected end of pipeline");
+        }
+    }
+
+    private void name(Token token) {
+        String name = token.text();
+        if (name.equals("input") || scope.contains(name)) {
+            return;
+        }
+        if (name.equals("java")) {
+            qualifiedType();
+            return;
+        }
+        if (isAllowedType(name)) {
+            return;
+        }
+        if (Character.isUpperCase(name.charAt(0))) {
+            throw forbidden(name);
+        }
+        throw new IllegalArgumentException("Invalid pipeline: cannot find symbol " + name);
+    }
+
+    /**
+     * The rest of a fully qualified type name after {@code java}.
+     */
+    private void qualifiedType() {
+        StringBuilder packageName = new StringBuilder("java");
+        while (peek().is(".") && peekAt(1).kind() == Kind.IDENTIFIER
+                && !Character.isUpperCase(peekAt(1).text().charAt(0))) {
+            pos++;
+            packageName.append('.').append(next().text());
+        }
+        if (!peek().is(".") || peekAt(1).kind() != Kind.IDENTIFIER) {
+            throw forbidden(packageName.toString());
+        }
+        pos++;
+        String typeName = next().text();
+        if (!PipelineValidator.isAllowedQualifiedType(packageName.toString(), typeName)) {
+            throw forbidden(packageName + "." + typeName);
+        }
+    }
+
+    private void selectors() {
+        while (true) {
+            if (accept(".")) {
+                if (peek().is("<")) {
+                    typeArguments();
+                }
+                Token member = next();
+                memberName(member);
+                if (peek().is("(")) {
+                    arguments();
+                }
+            } else if (accept("::")) {
+                if (peek().is("<")) {
+                    typeArguments();
+                }
+                Token member = next();
+                if (!isKeyword(member, "new")) {
+                    memberName(member);
+                }
+            } else if (peek().is("[") && peekAt(1).is("]")) {
+                dimensions();
+                if (!peek().is("::")) {
+                    throw syntax("expected '::' after []");
+                }
+            } else if (accept("[")) {
+                expression();
+                expect("]");
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void memberName(Token member) {
+        if (member.kind() != Kind.IDENTIFIER) {
+            throw syntax("expected a name but found '" + member.text() + "'");
+        }
+        if (allowParallel && member.text().equals("parallel")) {
+            return;
+        }
+        if (KEYWORDS.contains(member.text()) || PipelineValidator.isForbiddenMember(member.text())) {
+            throw forbidden(member.text());
+        }
+    }
+
+    private void arguments() {
+        expect("(");
+        if (accept(")")) {
+            return;
+        }
+        do {
+            expression();
+        } while (accept(","));
+        expect(")");
+    }
+
+    private void lambda() {
+        int mark = scope.size();
+        if (peek().kind() == Kind.IDENTIFIER) {
+            declare(next());
+        } else {
+            expect("(");
+            if (!accept(")")) {
+                do {
+                    parameter();
+                } while (accept(","));
+                expect(")");
+            }
+        }
+        expect("->");
+        if (peek().is("{")) {
+            block();
+        } else {
+            expression();
+        }
+        leave(mark);
+    }
+
+    private void parameter() {
+        if (isKeyword(peek(), "final")) {
+            pos++;
+        }
+        Token first = peek();
+        if (first.kind() == Kind.IDENTIFIER && (peekAt(1).is(",") || peekAt(1).is(")"))) {
+            declare(next());
+            return;
+        }
+        if (first.is("var") && peekAt(1).kind() == Kind.IDENTIFIER) {
+            pos++;
+        } else {
+            type();
+        }
+        declare(next());
+    }
+
+    private void block() {
+        if (++depth > MAX_DEPTH) {
+            throw syntax("pipeline nested too deeply");
+        }
+        expect("{");
+        int mark = scope.size();
+        while (!accept("}")) {
+            statement();
+        }
+        leave(mark);
+        depth--;
+    }
+
+    private void statement() {
+        Token token = peek();
+        if (token.is("{")) {
+            block();
+        } else if (accept(";")) {
+            // empty statement
+        } else if (isKeyword(token, "return")) {
+            pos++;
+            if (!accept(";")) {
+                expression();
+                expect(";");
+            }
+        } else if (isKeyword(token, "if")) {
+            pos++;
+            expect("(");
+            expression();
+            expect(")");
+            statement();
+            if (isKeyword(peek(), "else")) {
+                pos++;
+                statement();
+            }
+        } else if (isLocalVariableDeclaration()) {
+            localVariables();
+        } else {
+            expression();
+            expect(";");
+        }
+    }
+
+    private boolean isLocalVariableDeclaration() {
+        int i = pos;
+        if (isKeyword(at(i), "final")) {
+            i++;
+        }
+        if (at(i).is("var") && at(i + 1).kind() == Kind.IDENTIFIER) {
+            return true;
+        }
+        int end = typeEnd(i);
+        return end > 0
+                && at(end).kind() == Kind.IDENTIFIER
+                && !KEYWORDS.contains(at(end).text())
+                && (at(end + 1).is("=") || at(end + 1).is(";") || at(end + 1).is(","));
+    }
+
+    private void localVariables() {
+        if (isKeyword(peek(), "final")) {
+            pos++;
+        }
+        if (peek().is("var") && peekAt(1).kind() == Kind.IDENTIFIER) {
+            pos++;
+        } else {
+            type();
+        }
+        do {
+            Token name = next();
+            if (accept("=")) {
+                expression();
+            }
+            declare(name);
+        } while (accept(","));
+        expect(";");
+    }
+
+    /**
+     * A type in a cast, lambda parameter, local variable or type argument.
+     */
+    private void type() {
+        Token token = next();
+        if (token.kind() != Kind.IDENTIFIER) {
+            throw syntax("expected a type but found '" + token.text() + "'");
+        }
+        if (PRIMITIVES.contains(token.text())) {
+            dimensions();
+            return;
+        }
+        if (KEYWORDS.contains(token.text())) {
+            throw forbidden(token.text());
+        }
+        if (token.text().equals("java")) {
+            qualifiedType();
+        } else if (!isAllowedType(token.text())) {
+            throw forbidden(token.text());
+        }
+        if (peek().is("<")) {
+            typeArguments();
+        }
+        while (peek().is(".") && peekAt(1).kind() == Kind.IDENTIFIER) {
+            pos++;
+            memberName(next());
+            if (peek().is("<")) {
+                typeArguments();
+            }
+        }
+        dimensions();
+    }
+
+    private void typeArguments() {
+        expect("<");
+        if (accept(">")) {
+            return;
+        }
+        do {
+            if (accept("?")) {
+                if (isKeyword(peek(), "extends") || isKeyword(peek(), "super")) {
+                    pos++;
+                    type();
+                }
+            } else {
+                type();
+            }
+        } while (accept(","));
+        expect(">");
+    }
+
+    private void dimensions() {
+        while (peek().is("[") && peekAt(1).is("]")) {
+            pos += 2;
+        }
+    }
+
+    /**
+     * Whether the {@code (} at the current position starts a cast: a type in parentheses that
+     * is followed by something a cast can apply to.
+     */
+    private boolean isCast() {
+        if (!peek().is("(")) {
+            return false;
+        }
+        int end = typeEnd(pos + 1);
+        if (end < 0 || !at(end).is(")")) {
+            return false;
+        }
+        if (PRIMITIVES.contains(peekAt(1).text())) {
+            return true;
+        }
+        Token operand = at(end + 1);
+        return switch (operand.kind()) {
+            case IDENTIFIER, NUMBER, STRING, CHAR -> !isKeyword(operand, "instanceof");
+            case SYMBOL -> operand.is("(") || operand.is("!") || operand.is("~");
+            case END -> false;
+        };
+    }
+
+    /**
+     * End of a syntactically well-formed type starting at {@code i}, or -1. Names are not
+     * checked here; that happens once the type is actually parsed.
+     */
+    private int typeEnd(int i) {
+        Token token = at(i);
+        if (token.kind() != Kind.IDENTIFIER) {
+            return -1;
+        }
+        i++;
+        if (!PRIMITIVES.contains(token.text())) {
+            i = typeArgumentsEnd(i);
+            while (i > 0 && at(i).is(".") && at(i + 1).kind() == Kind.IDENTIFIER) {
+                i = typeArgumentsEnd(i + 2);
+            }
+            if (i < 0) {
+                return -1;
+            }
+        }
+        while (at(i).is("[") && at(i + 1).is("]")) {
+            i += 2;
+        }
+        return i;
+    }
+
+    private int typeArgumentsEnd(int i) {
+        if (!at(i).is("<")) {
+            return i;
+        }
+        int open = 0;
+        do {
+            Token token = at(i++);
+            if (token.is("<")) {
+                open++;
+            } else if (token.is(">")) {
+                open--;
+            } else if (!(token.kind() == Kind.IDENTIFIER || token.is(".") || token.is(",")
+                    || token.is("?") || token.is("[") || token.is("]") || token.is("&"))) {
+                return -1;
+            }
+        } while (open > 0);
+        return i;
+    }
+
+    private boolean isLambdaStart() {
+        Token token = peek();
+        if (token.kind() == Kind.IDENTIFIER) {
+            return peekAt(1).is("->");
+        }
+        if (!token.is("(")) {
+            return false;
+        }
+        int open = 0;
+        for (int i = pos; i < tokens.size(); i++) {
+            Token t = tokens.get(i);
+            if (t.is("(")) {
+                open++;
+            } else if (t.is(")") && --open == 0) {
+                return at(i + 1).is("->");
+            } else if (t.kind() == Kind.END) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean isAllowedType(String name) {
+        return name.equals(elementTypeName) || PipelineValidator.isAllowedType(name);
+    }
+
+    private void declare(Token name) {
+        if (name.kind() != Kind.IDENTIFIER || KEYWORDS.contains(name.text())) {
+            throw syntax("expected a variable name but found '" + name.text() + "'");
+        }
+        scope.add(name.text());
+    }
+
+    private void leave(int mark) {
+        scope.subList(mark, scope.size()).clear();
+    }
+
+    private static boolean isKeyword(Token token, String keyword) {
+        return token.kind() == Kind.IDENTIFIER && token.text().equals(keyword);
+    }
+
+    private Token peek() {
+        return tokens.get(pos);
+    }
+
+    private Token peekAt(int offset) {
+        return at(pos + offset);
+    }
+
+    private Token at(int index) {
+        return tokens.get(Math.min(index, tokens.size() - 1));
+    }
+
+    private Token next() {
+        Token token = tokens.get(pos);
+        if (token.kind() != Kind.END) {
+            pos++;
+        }
+        return token;
+    }
+
+    private boolean accept(String symbol) {
+        if (peek().kind() == Kind.SYMBOL && peek().is(symbol)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String symbol) {
+        if (!accept(symbol)) {
+            Token found = peek();
+            throw syntax("expected '" + symbol + "' but found "
+                    + (found.kind() == Kind.END ? "the end" : "'" + found.text() + "'"));
+        }
+    }
+
+    private InvalidPipelineException syntax(String problem) {
+        return JavaLexer.syntax(problem, peek().start());
+    }
+
+    private static UnsupportedOperationException forbidden(String construct) {
+        return new UnsupportedOperationException("Forbidden construct detected: " + construct);
+    }
+}
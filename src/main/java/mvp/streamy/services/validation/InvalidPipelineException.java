@@ -0,0 +1,19 @@
+package mvp.streamy.services.validation;
+
+/**
+ * A pipeline that is not valid Java, with the offset into the pipeline where the problem was
+ * found, so the editor can point at it.
+ */
+public class InvalidPipelineException extends IllegalArgumentException {
+
+    private final int position;
+
+    InvalidPipelineException(String problem, int position) {
+        super("Invalid pipeline: " + problem + " at position " + position);
+        this.position = position;
+    }
+
+    public int position() {
+        return position;
+    }
+}
@@ -0,0 +1,150 @@
+package mvp.streamy.services.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a pipeline into Java tokens. Unlike the interpreter's lexer it accepts everything
+ * that may appear in an expression, because it only has to tell identifiers, keywords and
+ * operators apart, not evaluate anything.
+ *
+ * <p>{@code >} is always a token of its own, so that nested type arguments close one at a
+ * time; shift operators are recognized from adjacent tokens by the parser.
+ */
+final class JavaLexer {
+
+    enum Kind { IDENTIFIER, NUMBER, STRING, CHAR, SYMBOL, END }
+
+    record Token(Kind kind, String text, int start) {
+
+        boolean is(String symbol) {
+            return (kind == Kind.SYMBOL || kind == Kind.IDENTIFIER) && text.equals(symbol);
+        }
+
+        int end() {
+            return start + text.length();
+        }
+    }
+
+    private static final List<String> SYMBOLS = List.of(
+            "<<=", "->", "::", "++", "--", "&&", "||", "==", "!=", "<=", ">=",
+            "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "<<",
+            ".", ",", ";", "(", ")", "{", "}", "[", "]", "<", ">", "?", ":", "=",
+            "!", "~", "+", "-", "*", "/", "%", "&", "|", "^", "@"
+    );
+
+    private JavaLexer() {}
+
+    static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+
+        while (i < source.length()) {
+            char c = source.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (source.startsWith("//", i)) {
+                int end = source.indexOf('\n', i);
+                i = end < 0 ? source.length() : end;
+            } else if (source.startsWith("/*", i)) {
+                int end = source.indexOf("*/", i + 2);
+                if (end < 0) {
+                    throw syntax("unterminated comment", i);
+                }
+                i = end + 2;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < source.length() && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.IDENTIFIER, source.substring(start, i), start));
+            } else if (Character.isDigit(c)
+                    || (c == '.' && i + 1 < source.length() && Character.isDigit(source.charAt(i + 1)))) {
+                int end = numberEnd(source, i);
+                tokens.add(new Token(Kind.NUMBER, source.substring(i, end), i));
+                i = end;
+            } else if (source.startsWith("\"\"\"", i)) {
+                int end = textBlockEnd(source, i);
+                tokens.add(new Token(Kind.STRING, source.substring(i, end), i));
+                i = end;
+            } else if (c == '"' || c == '\'') {
+                int end = quotedEnd(source, i, c);
+                tokens.add(new Token(c == '"' ? Kind.STRING : Kind.CHAR, source.substring(i, end), i));
+                i = end;
+            } else {
+                String symbol = symbolAt(source, i);
+                tokens.add(new Token(Kind.SYMBOL, symbol, i));
+                i += symbol.length();
+            }
+        }
+
+        tokens.add(new Token(Kind.END, "", source.length()));
+        return tokens;
+    }
+
+    /**
+     * Digits, letters (hex digits, exponents, suffixes), underscores and a decimal point; the
+     * literal itself is checked by javac.
+     */
+    private static int numberEnd(String source, int i) {
+        boolean hex = source.startsWith("0x", i) || source.startsWith("0X", i);
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            boolean exponent = hex ? c == 'p' || c == 'P' : c == 'e' || c == 'E';
+            if (exponent && i + 1 < source.length() && (source.charAt(i + 1) == '+' || source.charAt(i + 1) == '-')) {
+                i += 2;
+            } else if (Character.isLetterOrDigit(c) || c == '_'
+                    || (c == '.' && i + 1 < source.length() && Character.isDigit(source.charAt(i + 1)))) {
+                i++;
+            } else {
+                return i;
+            }
+        }
+        return i;
+    }
+
+    private static int quotedEnd(String source, int start, char quote) {
+        int i = start + 1;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else if (c == '\n' || c == '\r') {
+                break;
+            } else {
+                i++;
+            }
+        }
+        throw syntax("unterminated literal", start);
+    }
+
+    private static int textBlockEnd(String source, int start) {
+        int i = start + 3;
+        while (i < source.length()) {
+            if (source.charAt(i) == '\\') {
+                i += 2;
+            } else if (source.startsWith("\"\"\"", i)) {
+                return i + 3;
+            } else {
+                i++;
+            }
+        }
+        throw syntax("unterminated text block", start);
+    }
+
+    private static String symbolAt(String source, int i) {
+        for (String symbol : SYMBOLS) {
+            if (source.startsWith(symbol, i)) {
+                return symbol;
+            }
+        }
+        throw syntax("unexpected character '" + source.charAt(i) + "'", i);
+    }
+
+    static InvalidPipelineException syntax(String problem, int position) {
+        return new InvalidPipelineException(problem, position);
+    }
+}
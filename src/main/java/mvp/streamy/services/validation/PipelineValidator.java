@@ -0,0 +1,118 @@
+package mvp.streamy.services.validation;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks a submitted pipeline before anything is compiled. The pipeline is tokenized and
+ * parsed as the continuation of {@code input.stream()}, and only an allowlist of constructs
+ * gets through: method calls, method references, lambdas with expression or simple block
+ * bodies, literals, operators and casts over the types below. Loops, object creation,
+ * class literals, other statements and any type outside the allowlist are rejected.
+ *
+ * <p>Replaces the substring blacklist, which also rejected valid pipelines that merely
+ * contained a forbidden word ({@code order}, {@code a.name()}), while costing only a few
+ * microseconds instead of a javac parse.
+ *
+ * <p>{@code parallel} is forbidden unless the riddle runs its pipelines on a dedicated fork-join
+ * pool, see {@link #validate(String, Class, boolean)}.
+ *
+ * <p>Forbidden constructs are reported as {@link UnsupportedOperationException}, syntax
+ * errors as {@link IllegalArgumentException}.
+ */
+public class PipelineValidator {
+
+    /**
+     * Types the generated program can refer to by their simple name, besides the element type.
+     */
+    private static final Set<String> TYPES = Set.of(
+            // imported by the generated program
+            "List", "Collectors", "Optional", "Comparator", "Function",
+            // java.lang
+            "Object", "String", "CharSequence", "StringBuilder", "Math", "StrictMath", "Number",
+            "Integer", "Long", "Double", "Float", "Short", "Byte", "Character", "Boolean",
+            "Comparable", "Iterable", "Enum",
+            "ArithmeticException", "IllegalArgumentException", "IllegalStateException",
+            "IndexOutOfBoundsException", "NullPointerException", "RuntimeException",
+            "UnsupportedOperationException"
+    );
+
+    /**
+     * Types of {@code java.util} that may be used by their fully qualified name.
+     */
+    private static final Set<String> JAVA_UTIL_TYPES = Set.of(
+            "Collection", "List", "ArrayList", "LinkedList", "Set", "HashSet", "LinkedHashSet",
+            "TreeSet", "EnumSet", "Map", "HashMap", "LinkedHashMap", "TreeMap", "EnumMap",
+            "AbstractMap", "Queue", "Deque", "ArrayDeque", "PriorityQueue", "Iterator",
+            "Arrays", "Collections", "Objects", "Comparator", "Optional", "OptionalInt",
+            "OptionalLong", "OptionalDouble", "IntSummaryStatistics", "LongSummaryStatistics",
+            "DoubleSummaryStatistics", "StringJoiner", "NoSuchElementException"
+    );
+
+    /**
+     * Types of {@code java.util.stream} that may be used by their fully qualified name.
+     * {@code StreamSupport} is not among them: it creates parallel streams on the common pool.
+     */
+    private static final Set<String> JAVA_UTIL_STREAM_TYPES = Set.of(
+            "Stream", "IntStream", "LongStream", "DoubleStream", "Collectors", "Collector"
+    );
+
+    /**
+     * Stream operations that are forbidden in a pipeline, and the methods that lead out of the
+     * allowed types (reflection via {@code getClass()} or an enum's {@code getDeclaringClass()},
+     * class loaders and modules) or block ({@code wait()}).
+     */
+    private static final Set<String> FORBIDDEN_MEMBERS = Set.of(
+            "forEach", "forEachOrdered", "peek",
+            "getClass", "getDeclaringClass", "getClassLoader", "getModule",
+            "wait", "notify", "notifyAll"
+    );
+
+    /**
+     * Prefixes of forbidden member names: everything {@code parallel*} ({@code parallelStream},
+     * {@code Arrays.parallelSort}, ...) runs on the common fork-join pool, and
+     * {@code getResource*} reads from the class path.
+     */
+    private static final List<String> FORBIDDEN_MEMBER_PREFIXES = List.of("parallel", "getResource");
+
+    public void validate(String pipeline, Class<?> elementType) {
+        validate(pipeline, elementType, false);
+    }
+
+    /**
+     * @param allowParallel whether {@code parallel} may be called, because the pipeline will
+     *                      not run on the common fork-join pool
+     */
+    public void validate(String pipeline, Class<?> elementType, boolean allowParallel) {
+        if (pipeline.contains("\\u")) {
+            // javac translates unicode escapes before it tokenizes, this parser does not
+            throw new UnsupportedOperationException("Forbidden construct detected: unicode escape");
+        }
+        if (!pipeline.trim().startsWith(".")) {
+            throw new IllegalArgumentException(
+                    "Pipeline must start with a method call (.)"
+            );
+        }
+        new AllowlistParser(JavaLexer.tokenize(pipeline), elementType.getSimpleName(), allowParallel)
+                .pipeline();
+    }
+
+    static boolean isAllowedType(String simpleName) {
+        return TYPES.contains(simpleName);
+    }
+
+    static boolean isAllowedQualifiedType(String packageName, String simpleName) {
+        return switch (packageName) {
+            case "java.lang" -> TYPES.contains(simpleName);
+            case "java.util" -> JAVA_UTIL_TYPES.contains(simpleName);
+            case "java.util.stream" -> JAVA_UTIL_STREAM_TYPES.contains(simpleName);
+            case "java.util.function" -> Character.isUpperCase(simpleName.charAt(0));
+            default -> false;
+        };
+    }
+
+    static boolean isForbiddenMember(String name) {
+        return FORBIDDEN_MEMBERS.contains(name)
+                || FORBIDDEN_MEMBER_PREFIXES.stream().anyMatch(name::startsWith);
+    }
+}
@@ -0,0 +1,52 @@
+package mvp.streamy.Repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import mvp.streamy.models.MappedSafariAnimals;
+import mvp.streamy.models.SafariAnimal;
+import org.junit.jupiter.api.Test;
+
+class SafariDatasetFilesTest {
+
+  @Test
+  void mappedDatasetReadsBackWhatWasWritten() throws IOException {
+    Path directory = Files.createTempDirectory("safari-datasets");
+    Path file = directory.resolve("animals.bin");
+    List<SafariAnimal> animals = SafariDatasetGenerator.generate(11, 50_000);
+
+    SafariDatasetFiles.write(file, animals);
+    MappedSafariAnimals mapped = SafariDatasetFiles.map(file);
+
+    assertEquals(animals, mapped);
+    assertEquals(
+        animals.stream().mapToInt(SafariAnimal::weight).sum(),
+        mapped.weights().sum());
+    assertEquals(
+        animals.stream().mapToInt(SafariAnimal::age).max(),
+        mapped.ages().max());
+    assertEquals(animals.parallelStream().filter(SafariAnimal::predator).count(),
+        mapped.parallelStream().filter(SafariAnimal::predator).count());
+  }
+
+  @Test
+  void baseAnimalsSurviveTheRoundTrip() throws IOException {
+    Path file = Files.createTempDirectory("safari-datasets").resolve("base.bin");
+
+    SafariDatasetFiles.write(file, SafariScenarios.BASE_ANIMALS);
+
+    assertEquals(SafariScenarios.BASE_ANIMALS, SafariDatasetFiles.map(file));
+  }
+
+  @Test
+  void rejectsFilesInAnotherFormat() throws IOException {
+    Path file = Files.createTempFile("not-a-dataset", ".bin");
+    Files.writeString(file, "animals.csv, surely not a safari dataset");
+
+    assertThrows(IOException.class, () -> SafariDatasetFiles.map(file));
+  }
+}
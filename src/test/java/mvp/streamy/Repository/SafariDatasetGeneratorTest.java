@@ -0,0 +1,53 @@
+package mvp.streamy.Repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import mvp.streamy.models.AnimalClass;
+import mvp.streamy.models.AnimalSpecies;
+import mvp.streamy.models.Riddle;
+import mvp.streamy.models.SafariAnimal;
+import org.junit.jupiter.api.Test;
+
+class SafariDatasetGeneratorTest {
+
+  @Test
+  void sameSeedGivesTheSameAnimals() {
+    List<SafariAnimal> first = SafariDatasetGenerator.generate(42, 100_000);
+    List<SafariAnimal> second = SafariDatasetGenerator.generate(42, 100_000);
+
+    assertEquals(100_000, first.size());
+    assertEquals(first, second);
+    assertNotEquals(first, SafariDatasetGenerator.generate(43, 100_000));
+  }
+
+  @Test
+  void coversEverySpeciesAndClass() {
+    List<SafariAnimal> animals = SafariDatasetGenerator.generate(7, 10_000);
+
+    Set<AnimalSpecies> species =
+        animals.stream().map(SafariAnimal::species).collect(Collectors.toSet());
+    Set<AnimalClass> classes =
+        animals.stream().map(SafariAnimal::animalClass).collect(Collectors.toSet());
+
+    assertEquals(EnumSet.allOf(AnimalSpecies.class), species);
+    assertEquals(EnumSet.allOf(AnimalClass.class), classes);
+    assertTrue(animals.stream().allMatch(a -> a.age() > 0 && a.weight() > 0));
+  }
+
+  @Test
+  void generatedRiddlesAreComputedOnFirstUse() {
+    Riddle riddle = new RiddleRepository().findById("9");
+
+    assertFalse(riddle.expectedOutputReady());
+    assertEquals(DatasetTier.THOUSAND.size(), riddle.input().size());
+    assertEquals(SafariScenarios.predatorCount(riddle.input()), riddle.expectedOutput());
+    assertTrue(riddle.expectedOutputReady());
+  }
+}
@@ -0,0 +1,58 @@
+package mvp.streamy.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import mvp.streamy.Repository.SafariScenarios;
+import org.junit.jupiter.api.Test;
+
+class ColumnarSafariAnimalsTest {
+
+  private static ColumnarSafariAnimals columnar(List<SafariAnimal> animals) {
+    String[] names = animals.stream().map(SafariAnimal::name).distinct().toArray(String[]::new);
+    List<String> nameIds = List.of(names);
+    ColumnarSafariAnimals.Builder builder = new ColumnarSafariAnimals.Builder(animals.size(), names);
+    for (int i = 0; i < animals.size(); i++) {
+      SafariAnimal a = animals.get(i);
+      builder.set(i, nameIds.indexOf(a.name()), a.species(), a.animalClass(), a.age(), a.weight(), a.predator());
+    }
+    return builder.build();
+  }
+
+  @Test
+  void presentsTheSameAnimalsAsTheRecords() {
+    ColumnarSafariAnimals animals = columnar(SafariScenarios.BASE_ANIMALS);
+
+    assertEquals(SafariScenarios.BASE_ANIMALS, animals);
+    assertEquals(SafariScenarios.orderedByAge(), animals.stream().sorted(SafariAnimal.BY_AGE).toList());
+    assertEquals(SafariScenarios.sumAnimalWeight(), animals.weights().sum());
+    assertEquals(
+        SafariScenarios.BASE_ANIMALS.stream().mapToInt(SafariAnimal::age).sum(),
+        animals.ages().sum());
+  }
+
+  @Test
+  void spliteratorIsSizedAndSplitsByIndex() {
+    ColumnarSafariAnimals animals = columnar(SafariScenarios.BASE_ANIMALS);
+    Spliterator<SafariAnimal> suffix = animals.spliterator();
+
+    int expected = Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE | Spliterator.ORDERED;
+    assertEquals(expected, suffix.characteristics() & expected);
+
+    Spliterator<SafariAnimal> prefix = suffix.trySplit();
+    assertNotNull(prefix);
+    assertEquals(5, prefix.estimateSize());
+    assertEquals(5, suffix.estimateSize());
+
+    List<SafariAnimal> seen = new ArrayList<>();
+    prefix.forEachRemaining(seen::add);
+    assertTrue(suffix.tryAdvance(seen::add));
+    suffix.forEachRemaining(seen::add);
+    assertEquals(SafariScenarios.BASE_ANIMALS, seen);
+    assertTrue(animals.parallelStream().toList().equals(SafariScenarios.BASE_ANIMALS));
+  }
+}
@@ -0,0 +1,88 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.services.PipelineCompiler.CompilationResult;
+import org.junit.jupiter.api.Test;
+
+class BatchingPipelineCompilerTest {
+
+  @Test
+  void brokenSubmissionDoesNotFailTheRestOfItsBatch() {
+    EngineProperties.Compiler properties = new EngineProperties.Compiler();
+    properties.setBatchWindow(Duration.ofMillis(200));
+
+    try (BatchingPipelineCompiler compiler =
+        new BatchingPipelineCompiler(new PipelineCompiler(properties), properties)) {
+
+      List<String> classNames = new ArrayList<>();
+      List<CompletableFuture<CompilationResult>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        String className = compiler.nextClassName("demo");
+        String body = i == 2 ? "return undefinedSymbol;" : "return " + i + ";";
+        classNames.add(className);
+        results.add(CompletableFuture.supplyAsync(() -> compiler.compile(className, source(className, body))));
+      }
+
+      for (int i = 0; i < 4; i++) {
+        CompilationResult result = results.get(i).join();
+        if (i == 2) {
+          assertFalse(result.success);
+          assertTrue(result.errorMessage().contains("undefinedSymbol"));
+        } else {
+          assertTrue(result.success, result.errorMessage());
+          assertTrue(result.compiledClasses.containsKey(classNames.get(i)));
+          assertTrue(result.diagnostics.isEmpty());
+        }
+      }
+    }
+  }
+
+  @Test
+  void compilesKnownSourcesTogetherWithoutWaitingForTheWindow() {
+    EngineProperties.Compiler properties = new EngineProperties.Compiler();
+    properties.setBatchWindow(Duration.ofSeconds(30));
+    properties.setMaxBatchSize(2);
+
+    try (BatchingPipelineCompiler compiler =
+        new BatchingPipelineCompiler(new PipelineCompiler(properties), properties)) {
+
+      Map<String, String> sources = new LinkedHashMap<>();
+      for (int i = 0; i < 5; i++) {
+        String className = compiler.nextClassName("demo");
+        sources.put(className, source(className, i == 3 ? "return undefinedSymbol;" : "return " + i + ";"));
+      }
+
+      Map<String, CompilationResult> results = compiler.compileAll(sources);
+
+      assertEquals(List.copyOf(sources.keySet()), List.copyOf(results.keySet()));
+      int i = 0;
+      for (Map.Entry<String, CompilationResult> e : results.entrySet()) {
+        assertEquals(i != 3, e.getValue().success, e.getKey());
+        i++;
+      }
+    }
+  }
+
+  private static String source(String className, String body) {
+    String simpleName = className.substring(className.lastIndexOf('.') + 1);
+    return """
+        package demo;
+
+        public class %s {
+            public static Object run() {
+                %s
+            }
+        }
+        """.formatted(simpleName, body);
+  }
+}
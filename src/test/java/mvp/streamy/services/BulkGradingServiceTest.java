@@ -0,0 +1,148 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.RiddleResult;
+import mvp.streamy.models.SafariAnimal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BulkGradingServiceTest {
+
+  private final EngineProperties properties = new EngineProperties();
+  private final RiddleRepository riddleRepository = new RiddleRepository();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private StreamPipelineEngineServiceV2 engine;
+  private StreamGameService streamGameService;
+  private BulkGradingService service;
+
+  @BeforeEach
+  void setUp() {
+    properties.getInterpreter().setEnabled(false);
+    properties.getGrading().setParallelism(4);
+    properties.getGrading().setMaxPipelines(10);
+    engine = new StreamPipelineEngineServiceV2(properties);
+    streamGameService = new StreamGameService(
+        riddleRepository,
+        new StreamPipelineEngineService(
+            new PipelineCompiler(properties.getCompiler()),
+            new PipelineClassDefiner(properties.getCompiler(), new SimpleMeterRegistry())
+        ),
+        engine,
+        meterRegistry
+    );
+    service = new BulkGradingService(
+        streamGameService,
+        engine,
+        riddleRepository,
+        admission(),
+        properties
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.close();
+  }
+
+  @Test
+  void gradesEveryPipelineInOrderAndEachDistinctOneOnce() {
+    List<String> pipelines = List.of(
+        ".filter(SafariAnimal::predator).toList()",
+        ".filter(SafariAnimal::flying).toList()",
+        ".filter( SafariAnimal::predator ).toList()",
+        ".filter(a -> !a.predator()).toList()",
+        ".filter(SafariAnimal::predator).toList()"
+    );
+
+    List<RiddleResult> results = new ArrayList<>();
+    service.gradeAll("6", pipelines, results::add);
+
+    assertEquals(5, results.size());
+    assertTrue(results.get(0).success());
+    assertFalse(results.get(1).success());
+    assertTrue(results.get(1).message().contains("flying"));
+    assertSame(results.get(0), results.get(2));
+    assertFalse(results.get(3).success());
+    assertSame(results.get(0), results.get(4));
+    assertEquals(3, engine.pipelineCache().size());
+  }
+
+  @Test
+  void takesOneAdmissionSlotPerGraderABatchCanKeepBusy() {
+    properties.getAdmission().setMaxConcurrent(8);
+    SubmissionAdmission admission = admission();
+    try (BulkGradingService gated = new BulkGradingService(
+        streamGameService, engine, riddleRepository, admission, properties)) {
+
+      try (SubmissionAdmission.Ticket ticket = gated.admit(
+          "6", List.of(".toList()", " .toList()", ".limit(1).toList()"), "client")) {
+        assertEquals(2, admission.active(), "formatting variants are graded once");
+      }
+      try (SubmissionAdmission.Ticket ticket = gated.admit(
+          "6", List.of(".limit(1).toList()", ".limit(2).toList()", ".limit(3).toList()",
+              ".limit(4).toList()", ".limit(5).toList()", ".limit(6).toList()"), "client")) {
+        assertEquals(4, admission.active(), "no more slots than graders");
+      }
+      assertEquals(0, admission.active());
+    }
+  }
+
+  @Test
+  void preparesParallelPipelinesOnlyForRiddlesThatAllowThem() {
+    List<String> pipelines = List.of(".parallel().filter(SafariAnimal::predator).toList()");
+
+    engine.prepareAll(pipelines, SafariAnimal.class, false);
+    assertEquals(0, engine.pipelineCache().size());
+
+    engine.prepareAll(pipelines, SafariAnimal.class, true);
+    assertEquals(1, engine.pipelineCache().size());
+  }
+
+  @Test
+  void dropsPipelinesNotGradedYetWhenTheClientGoesAway() {
+    properties.getGrading().setParallelism(1);
+    try (BulkGradingService oneGrader =
+        new BulkGradingService(streamGameService, engine, riddleRepository, admission(), properties)) {
+      List<String> pipelines = List.of(
+          ".limit(1).toList()", ".limit(2).toList()", ".limit(3).toList()",
+          ".limit(4).toList()", ".limit(5).toList()", ".limit(6).toList()"
+      );
+
+      assertThrows(UncheckedIOException.class, () -> oneGrader.gradeAll("6", pipelines, result -> {
+        throw new UncheckedIOException(new IOException("Broken pipe"));
+      }));
+      // the single grader is done with everything queued before this one
+      oneGrader.gradeAll("6", List.of(".toList()"), result -> { });
+
+      long graded = meterRegistry.get("streamy.submissions").timers().stream().mapToLong(Timer::count).sum();
+      assertTrue(graded <= 3, "graded " + graded + " of 7 pipelines");
+    }
+  }
+
+  private SubmissionAdmission admission() {
+    return new SubmissionAdmission(properties, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void rejectsRequestsItCannotGrade() {
+    assertThrows(IllegalArgumentException.class, () -> service.validate("404", List.of(".toList()")));
+    assertThrows(IllegalArgumentException.class, () -> service.validate("6", List.of()));
+    assertThrows(IllegalArgumentException.class,
+        () -> service.validate("6", Collections.nCopies(11, ".toList()")));
+  }
+}
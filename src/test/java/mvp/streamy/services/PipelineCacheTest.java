@@ -0,0 +1,75 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.SafariAnimal;
+import org.junit.jupiter.api.Test;
+
+class PipelineCacheTest {
+
+  private final PipelineCache cache =
+      new PipelineCache(new EngineProperties().getCache(), new SimpleMeterRegistry());
+  private final PipelineKey slow = PipelineKey.of(".limit(1).toList()", SafariAnimal.class);
+  private final PipelineKey fast = PipelineKey.of(".limit(2).toList()", SafariAnimal.class);
+
+  @Test
+  void slowCompilationOnlyHoldsUpCallersOfTheSamePipeline() throws Exception {
+    CountDownLatch compiling = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger compilations = new AtomicInteger();
+    CompiledPipeline compiled = CompiledPipeline.failed("slow");
+
+    CompletableFuture<CompiledPipeline> first = CompletableFuture.supplyAsync(() -> cache.get(slow, k -> {
+      compilations.incrementAndGet();
+      compiling.countDown();
+      await(release);
+      return compiled;
+    }));
+    assertTrue(compiling.await(5, TimeUnit.SECONDS));
+    CompletableFuture<CompiledPipeline> second = CompletableFuture.supplyAsync(() -> cache.get(slow, k -> {
+      compilations.incrementAndGet();
+      return CompiledPipeline.failed("again");
+    }));
+
+    assertEquals("fast", cache.get(fast, k -> CompiledPipeline.failed("fast")).compileError());
+    assertNull(cache.getIfPresent(slow), "still being compiled");
+    assertTrue(cache.contains(slow));
+
+    release.countDown();
+    assertSame(compiled, first.get(5, TimeUnit.SECONDS));
+    assertSame(compiled, second.get(5, TimeUnit.SECONDS));
+    assertEquals(1, compilations.get());
+  }
+
+  @Test
+  void failedCompilationLeavesNoEntry() {
+    IllegalStateException failure = assertThrows(
+        IllegalStateException.class,
+        () -> cache.get(slow, k -> {
+          throw new IllegalStateException("no javac");
+        })
+    );
+
+    assertEquals("no javac", failure.getMessage());
+    assertNull(cache.getIfPresent(slow));
+    assertEquals("retried", cache.get(slow, k -> CompiledPipeline.failed("retried")).compileError());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.config.EngineProperties.ClassDefinition;
+import mvp.streamy.services.PipelineCompiler.CompilationResult;
+import org.junit.jupiter.api.Test;
+
+class PipelineClassDefinerTest {
+
+  private final EngineProperties.Compiler properties = new EngineProperties.Compiler();
+  private final PipelineCompiler compiler = new PipelineCompiler(properties);
+  private final PipelineClassDefiner definer =
+      new PipelineClassDefiner(properties, new SimpleMeterRegistry());
+
+  @Test
+  void definesSingleClassProgramsAsHiddenClasses() throws Exception {
+    Class<?> programClass = define("return input.size();");
+
+    assertTrue(programClass.isHidden());
+    assertEquals(3, apply(programClass, List.of(1, 2, 3)));
+  }
+
+  @Test
+  void definesProgramsWithMethodReferencesAsHiddenClasses() throws Exception {
+    Class<?> programClass = define("return input.stream().map(String::valueOf).toList();");
+
+    assertTrue(programClass.isHidden());
+    assertEquals(List.of("1", "2"), apply(programClass, List.of(1, 2)));
+  }
+
+  @Test
+  void fallsBackToIsolatedLoaderForProgramsWithLambdaBodies() throws Exception {
+    Class<?> programClass = define("return input.stream().map(x -> x + \"!\").toList();");
+
+    assertFalse(programClass.isHidden());
+    assertEquals(List.of("1!", "2!"), apply(programClass, List.of(1, 2)));
+  }
+
+  @Test
+  void fallsBackToIsolatedLoaderForProgramsWithNestedClasses() throws Exception {
+    Class<?> programClass = define("return new Object() { int size = input.size(); }.size;");
+
+    assertFalse(programClass.isHidden());
+    assertEquals(2, apply(programClass, List.of(1, 2)));
+  }
+
+  @Test
+  void usesIsolatedLoaderWhenConfigured() throws Exception {
+    properties.setClassDefinition(ClassDefinition.ISOLATED_LOADER);
+    PipelineClassDefiner isolated =
+        new PipelineClassDefiner(properties, new SimpleMeterRegistry());
+
+    assertEquals("demo", isolated.packageName());
+  }
+
+  @Test
+  void unreachableHiddenClassesAreUnloaded() throws Exception {
+    for (int i = 0; i < 20; i++) {
+      define("return " + i + ";");
+    }
+    assertTrue(definer.liveClasses() > 0);
+
+    for (int attempt = 0; attempt < 50 && definer.liveClasses() > 0; attempt++) {
+      System.gc();
+      Thread.sleep(20);
+    }
+    assertEquals(0, definer.liveClasses());
+  }
+
+  private Class<?> define(String body) throws ReflectiveOperationException {
+    String className = definer.packageName() + ".StreamProgram";
+    CompilationResult result = compiler.compile(Map.of(className, """
+        package %s;
+
+        import java.util.List;
+        import java.util.function.Function;
+
+        public class StreamProgram implements Function<List<?>, Object> {
+            public Object apply(List<?> input) {
+                %s
+            }
+        }
+        """.formatted(definer.packageName(), body)));
+    assertTrue(result.success, result.errorMessage());
+    return definer.define(className, result.compiledClasses);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object apply(Class<?> programClass, List<?> input) throws ReflectiveOperationException {
+    return ((Function<List<?>, Object>) programClass.getDeclaredConstructor().newInstance()).apply(input);
+  }
+}
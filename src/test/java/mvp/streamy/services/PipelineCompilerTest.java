@@ -0,0 +1,55 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import mvp.streamy.config.EngineProperties;
+import org.junit.jupiter.api.Test;
+
+class PipelineCompilerTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final PipelineCompiler compiler =
+      new PipelineCompiler(new EngineProperties.Compiler(), meterRegistry);
+
+  @Test
+  void timesEveryJavacPhaseOfACompilation() {
+    PipelineCompiler.CompilationResult result = compiler.compile(Map.of(
+        "demo.Timed",
+        """
+        package demo;
+
+        public class Timed {
+            public static int run() {
+                return 42;
+            }
+        }
+        """));
+
+    assertTrue(result.success, result.errorMessage());
+    assertEquals(1, meterRegistry.get("streamy.pipeline.phase").tag("phase", "compile").timer().count());
+    for (String phase : new String[] {"parse", "enter", "analyze", "generate"}) {
+      assertEquals(1, meterRegistry.get("streamy.javac.phase").tag("phase", phase).timer().count(), phase);
+    }
+  }
+
+  @Test
+  void stopsAtAnalysisWhenTheSourceDoesNotCompile() {
+    compiler.compile(Map.of(
+        "demo.Broken",
+        """
+        package demo;
+
+        public class Broken {
+            public static int run() {
+                return undefinedSymbol;
+            }
+        }
+        """));
+
+    assertEquals(1, meterRegistry.get("streamy.javac.phase").tag("phase", "analyze").timer().count());
+    assertEquals(0, meterRegistry.get("streamy.javac.phase").tag("phase", "generate").timer().count());
+  }
+}
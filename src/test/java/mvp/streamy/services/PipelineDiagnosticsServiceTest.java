@@ -0,0 +1,137 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.PipelineDiagnostic;
+import mvp.streamy.models.PipelineDiagnosticsDTO;
+import mvp.streamy.models.SafariAnimal;
+import org.junit.jupiter.api.Test;
+
+class PipelineDiagnosticsServiceTest {
+
+  private final StreamPipelineEngineServiceV2 engine = new StreamPipelineEngineServiceV2();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final PipelineDiagnosticsService service =
+      new PipelineDiagnosticsService(
+          engine,
+          new RiddleRepository(),
+          new SubmissionAdmission(new EngineProperties(), meterRegistry),
+          meterRegistry
+      );
+
+  @Test
+  void acceptsInterpretablePipelineWithoutJavac() {
+    PipelineDiagnosticsDTO result =
+        service.diagnose("1", ".sorted(Comparator.comparing(SafariAnimal::age)).toList()", "session");
+
+    assertTrue(result.valid());
+    assertTrue(result.diagnostics().isEmpty());
+    assertEquals(1, meterRegistry.get("streamy.diagnostics").tag("checked-by", "engine").timer().count());
+  }
+
+  @Test
+  void reportsSyntaxErrorsAtTheirPosition() {
+    PipelineDiagnosticsDTO result = service.diagnose("1", ".map(a -> a.name()))", "session");
+
+    assertFalse(result.valid());
+    PipelineDiagnostic diagnostic = result.diagnostics().get(0);
+    assertEquals(PipelineDiagnostic.Severity.ERROR, diagnostic.severity());
+    assertEquals(19, diagnostic.start());
+  }
+
+  @Test
+  void typeChecksAgainstTheRiddleTypeWithJavac() {
+    String pipeline = ".map(a -> a.wingspan()).toList()";
+
+    PipelineDiagnosticsDTO result = service.diagnose("1", pipeline, "session");
+
+    assertFalse(result.valid());
+    PipelineDiagnostic diagnostic = result.diagnostics().get(0);
+    assertTrue(diagnostic.message().contains("wingspan"), diagnostic.message());
+    assertEquals(pipeline.indexOf("a.wingspan"), diagnostic.start());
+    assertEquals(1, meterRegistry.get("streamy.diagnostics").tag("checked-by", "javac").timer().count());
+  }
+
+  @Test
+  void acceptsPipelinesOnlyJavacUnderstands() {
+    PipelineDiagnosticsDTO result = service.diagnose(
+        "1",
+        ".collect(Collectors.groupingBy(a -> a.age() / 5 * 5, java.util.TreeMap::new, Collectors.counting()))",
+        null
+    );
+
+    assertTrue(result.valid(), String.valueOf(result.diagnostics()));
+  }
+
+  @Test
+  void javacChecksNeedAnAdmissionSlot() {
+    EngineProperties properties = new EngineProperties();
+    properties.getAdmission().setMaxConcurrent(1);
+    properties.getAdmission().setMaxQueued(0);
+    SubmissionAdmission admission = new SubmissionAdmission(properties, new SimpleMeterRegistry());
+    PipelineDiagnosticsService gated =
+        new PipelineDiagnosticsService(engine, new RiddleRepository(), admission, meterRegistry);
+
+    try (SubmissionAdmission.Ticket busy = admission.enqueue("other")) {
+      assertThrows(
+          AdmissionRejectedException.class,
+          () -> gated.diagnose("1", ".map(a -> a.wingspan()).toList()", "session", "client")
+      );
+      assertTrue(
+          gated.diagnose("1", ".sorted(Comparator.comparing(SafariAnimal::age)).toList()", "session", "client").valid(),
+          "checks that need no javac need no slot either"
+      );
+    }
+    assertEquals(1, meterRegistry.get("streamy.diagnostics").tag("outcome", "rejected").timer().count());
+  }
+
+  @Test
+  void supersededCheckLeavesTheAdmissionQueue() throws Exception {
+    EngineProperties properties = new EngineProperties();
+    properties.getAdmission().setMaxConcurrent(1);
+    SubmissionAdmission admission = new SubmissionAdmission(properties, new SimpleMeterRegistry());
+    PipelineDiagnosticsService gated =
+        new PipelineDiagnosticsService(engine, new RiddleRepository(), admission, meterRegistry);
+
+    CompletableFuture<PipelineDiagnosticsDTO> newer;
+    try (SubmissionAdmission.Ticket busy = admission.enqueue("other")) {
+      CompletableFuture<PipelineDiagnosticsDTO> stale = CompletableFuture.supplyAsync(
+          () -> gated.diagnose("1", ".map(a -> a.wingspan()).toList()", "session", "client"));
+      awaitQueued(admission);
+      newer = CompletableFuture.supplyAsync(
+          () -> gated.diagnose("1", ".map(a -> a.height()).toList()", "session", "client"));
+
+      assertTrue(stale.get(5, TimeUnit.SECONDS).cancelled(), "left the queue without waiting for a slot");
+      awaitQueued(admission);
+      assertEquals(1, admission.queued());
+    }
+
+    PipelineDiagnosticsDTO result = newer.get(10, TimeUnit.SECONDS);
+    assertFalse(result.cancelled());
+    assertTrue(result.diagnostics().get(0).message().contains("height"), result.toString());
+  }
+
+  private static void awaitQueued(SubmissionAdmission admission) throws InterruptedException {
+    long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (admission.queued() == 0 && System.nanoTime() < giveUp) {
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  void supersededCheckIsCancelled() {
+    assertThrows(
+        CancellationException.class,
+        () -> engine.typeCheck(".map(a -> a.wingspan()).toList()", SafariAnimal.class, () -> true)
+    );
+  }
+}
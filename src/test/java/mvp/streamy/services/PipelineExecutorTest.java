@@ -0,0 +1,234 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import mvp.streamy.config.EngineProperties;
+import org.junit.jupiter.api.Test;
+
+class PipelineExecutorTest {
+
+  @Test
+  void reportsExecutionsAndTimeouts() {
+    EngineProperties.Execution properties = new EngineProperties.Execution();
+    properties.setTimeout(Duration.ofMillis(100));
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    try (PipelineExecutor executor = new PipelineExecutor(properties, meterRegistry)) {
+      assertEquals(42, executor.execute(() -> 42));
+      assertEquals(1, meterRegistry.get("streamy.pipeline.phase").tag("phase", "execute").timer().count());
+
+      assertThrows(RuntimeException.class, () -> executor.execute(() -> {
+        Thread.sleep(10_000);
+        return null;
+      }));
+
+      assertEquals(1, meterRegistry.get("streamy.executions.timeouts").counter().count());
+    }
+  }
+
+  @Test
+  void abortsRunsOverTheirCpuTimeBudget() {
+    EngineProperties.Execution properties = new EngineProperties.Execution();
+    properties.setTimeout(Duration.ofSeconds(30));
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    try (PipelineExecutor executor = new PipelineExecutor(properties, meterRegistry)) {
+      ExecutionBudget budget = new ExecutionBudget(Duration.ofSeconds(30), Duration.ofMillis(100), 0);
+
+      ExecutionBudgetExceededException e = assertThrows(ExecutionBudgetExceededException.class,
+          () -> executor.execute(() -> {
+            long spins = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+              spins++;
+            }
+            return spins;
+          }, budget));
+
+      assertEquals("cpu-time", e.resource());
+      assertEquals(1, meterRegistry.get("streamy.executions.budget.exceeded")
+          .tag("resource", "cpu-time").counter().count());
+    }
+  }
+
+  @Test
+  void abortsRunsOverTheirAllocationBudget() {
+    EngineProperties.Execution properties = new EngineProperties.Execution();
+    properties.setTimeout(Duration.ofSeconds(30));
+
+    try (PipelineExecutor executor = new PipelineExecutor(properties)) {
+      ExecutionBudget budget = new ExecutionBudget(Duration.ofSeconds(30), Duration.ZERO, 16L * 1024 * 1024);
+
+      ExecutionBudgetExceededException e = assertThrows(ExecutionBudgetExceededException.class,
+          () -> executor.execute(() -> {
+            List<byte[]> retained = new ArrayList<>();
+            while (!Thread.currentThread().isInterrupted()) {
+              retained.add(new byte[64 * 1024]);
+              if (retained.size() > 64) {
+                retained.clear();
+              }
+            }
+            return retained.size();
+          }, budget));
+
+      assertEquals("allocation", e.resource());
+    }
+  }
+
+  @Test
+  void reportsWhatARunUsed() {
+    try (PipelineExecutor executor = new PipelineExecutor(new EngineProperties.Execution())) {
+      ExecutionReport report = executor.execute(() -> new byte[1024 * 1024].length, executor.defaultBudget());
+
+      assertEquals(1024 * 1024, report.result());
+      assertTrue(report.cpuTimeNanos() >= 0);
+      assertTrue(report.allocatedBytes() >= 1024 * 1024, "allocated " + report.allocatedBytes());
+    }
+  }
+
+  @Test
+  void appliesRiddleOverridesOnTopOfTheDefaults() {
+    EngineProperties.Execution properties = new EngineProperties.Execution();
+    EngineProperties.RiddleLimits limits = new EngineProperties.RiddleLimits();
+    limits.setCpuTimeLimit(Duration.ofSeconds(3));
+    properties.getRiddles().put("9", limits);
+
+    try (PipelineExecutor executor = new PipelineExecutor(properties)) {
+      ExecutionBudget budget = executor.budgetFor("9");
+
+      assertEquals(Duration.ofSeconds(3), budget.cpuTime());
+      assertEquals(properties.getTimeout(), budget.timeout());
+      assertEquals(properties.getAllocationLimit().toBytes(), budget.allocatedBytes());
+      assertEquals(executor.defaultBudget(), executor.budgetFor("1"));
+    }
+  }
+
+  @Test
+  void runsParallelStreamsOnADedicatedPoolWithinItsParallelism() {
+    try (PipelineExecutor executor = new PipelineExecutor(new EngineProperties.Execution())) {
+      ExecutionBudget budget = new ExecutionBudget(Duration.ofSeconds(30), Duration.ZERO, 0, 2);
+      Set<String> threads = ConcurrentHashMap.newKeySet();
+
+      ExecutionReport report = executor.execute(() -> IntStream.range(0, 100_000).parallel()
+          .map(i -> {
+            threads.add(Thread.currentThread().getName());
+            return i % 7;
+          })
+          .sum(), budget);
+
+      assertEquals(IntStream.range(0, 100_000).map(i -> i % 7).sum(), report.result());
+      assertTrue(threads.stream().allMatch(name -> name.startsWith("pipeline-fj-")), threads.toString());
+      assertTrue(threads.size() <= 2, threads.toString());
+      assertTrue(report.wallTimeNanos() > 0);
+    }
+  }
+
+  @Test
+  void runsTheSingleWorkerBaselineOfAParallelStreamOnOneThread() {
+    try (PipelineExecutor executor = new PipelineExecutor(new EngineProperties.Execution())) {
+      ExecutionBudget budget =
+          new ExecutionBudget(Duration.ofSeconds(30), Duration.ZERO, 0, 4).withParallelism(1);
+      Set<String> threads = ConcurrentHashMap.newKeySet();
+
+      executor.execute(() -> IntStream.range(0, 100_000).parallel()
+          .peek(i -> threads.add(Thread.currentThread().getName()))
+          .sum(), budget);
+
+      assertEquals(1, threads.size(), threads.toString());
+      assertTrue(threads.iterator().next().startsWith("pipeline-fj-"), threads.toString());
+    }
+  }
+
+  @Test
+  void chargesTheForkJoinPoolToTheCpuTimeBudget() {
+    try (PipelineExecutor executor = new PipelineExecutor(new EngineProperties.Execution())) {
+      ExecutionBudget budget = new ExecutionBudget(Duration.ofSeconds(30), Duration.ofMillis(100), 0, 2);
+      long giveUp = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+
+      ExecutionBudgetExceededException e = assertThrows(ExecutionBudgetExceededException.class,
+          () -> executor.execute(() -> IntStream.range(0, 2).parallel()
+              .mapToLong(i -> {
+                long spins = 0;
+                while (!Thread.currentThread().isInterrupted() && System.nanoTime() < giveUp) {
+                  spins++;
+                }
+                return spins;
+              })
+              .sum(), budget));
+
+      assertEquals("cpu-time", e.resource());
+    }
+  }
+
+  @Test
+  void capsRiddleParallelismAtTheConfiguredMaximum() {
+    EngineProperties.Execution properties = new EngineProperties.Execution();
+    properties.setMaxParallelism(4);
+    EngineProperties.RiddleLimits capped = new EngineProperties.RiddleLimits();
+    capped.setParallel(true);
+    capped.setParallelism(64);
+    properties.getRiddles().put("9", capped);
+    EngineProperties.RiddleLimits sequential = new EngineProperties.RiddleLimits();
+    sequential.setParallelism(2);
+    properties.getRiddles().put("8", sequential);
+
+    try (PipelineExecutor executor = new PipelineExecutor(properties)) {
+      assertEquals(4, executor.budgetFor("9").parallelism());
+      assertFalse(executor.budgetFor("8").parallel());
+      assertFalse(executor.defaultBudget().parallel());
+    }
+  }
+
+  @Test
+  void keepsTheSlotOfARunThatIgnoresTheInterrupt() throws Exception {
+    assertSlotStaysTakenUntilTheWorkerReturns(0);
+  }
+
+  @Test
+  void keepsTheSlotOfAParallelRunUntilItsPoolStopped() throws Exception {
+    assertSlotStaysTakenUntilTheWorkerReturns(2);
+  }
+
+  private static void assertSlotStaysTakenUntilTheWorkerReturns(int parallelism) throws Exception {
+    EngineProperties.Execution properties = new EngineProperties.Execution();
+    properties.setMaxConcurrentExecutions(1);
+
+    try (PipelineExecutor executor = new PipelineExecutor(properties)) {
+      ExecutionBudget budget = new ExecutionBudget(Duration.ofSeconds(30), Duration.ofMillis(100), 0, parallelism);
+      AtomicBoolean release = new AtomicBoolean();
+
+      assertThrows(ExecutionBudgetExceededException.class,
+          () -> executor.execute(() -> IntStream.range(0, 2).parallel()
+              .mapToLong(i -> {
+                long spins = 0;
+                while (!release.get()) {
+                  spins++;
+                }
+                return spins;
+              })
+              .sum(), budget));
+
+      assertEquals(1, executor.stuckExecutions());
+      CompletableFuture<Object> next = CompletableFuture.supplyAsync(() -> executor.execute(() -> 42));
+      Thread.sleep(200);
+      assertFalse(next.isDone());
+      assertEquals(1, executor.queuedExecutions());
+
+      release.set(true);
+      assertEquals(42, next.get(10, TimeUnit.SECONDS));
+      assertEquals(0, executor.stuckExecutions());
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import mvp.streamy.models.SafariAnimal;
+import org.junit.jupiter.api.Test;
+
+class PipelineKeyTest {
+
+  @Test
+  void formattingDifferencesMapToSameKey() {
+    PipelineKey compact =
+        PipelineKey.of(".filter(SafariAnimal::predator).toList()", SafariAnimal.class);
+    PipelineKey spread =
+        PipelineKey.of("""
+            .filter( SafariAnimal::predator )   // only the hunters
+            .toList()
+            """, SafariAnimal.class);
+
+    assertEquals(compact, spread);
+  }
+
+  @Test
+  void literalsAndOperatorsKeepTheirMeaning() {
+    assertNotEquals(
+        PipelineKey.normalize(".map(a -> a.name() + \"  x\")"),
+        PipelineKey.normalize(".map(a -> a.name() + \" x\")")
+    );
+    assertNotEquals(
+        PipelineKey.normalize(".map(a -> a - -1)"),
+        PipelineKey.normalize(".map(a -> a--1)")
+    );
+  }
+
+  @Test
+  void elementTypeIsPartOfTheKey() {
+    assertNotEquals(
+        PipelineKey.of(".toList()", SafariAnimal.class),
+        PipelineKey.of(".toList()", Integer.class)
+    );
+  }
+}
@@ -0,0 +1,111 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.models.AnimalClass;
+import mvp.streamy.models.AnimalSpecies;
+import mvp.streamy.models.Riddle;
+import mvp.streamy.models.SafariAnimal;
+import org.junit.jupiter.api.Test;
+
+class ResultFingerprintTest {
+
+  @Test
+  void agreesWithResultValueEquality() {
+    List<Object> values = List.of(
+        List.of(1, 2, 3),
+        List.of(3, 2, 1),
+        List.of(1, 2),
+        Set.of(1),
+        List.of(1),
+        1,
+        1L,
+        Map.of("a", List.of(1, 2), "b", List.of(3)),
+        Map.of("a", List.of(2, 1), "b", List.of(3)),
+        Map.of("a", 1L)
+    );
+    for (Object expected : values) {
+      ResultFingerprint fingerprint = ResultFingerprint.of(expected);
+      for (Object actual : values) {
+        assertEquals(
+            ResultValueFactory.from(expected).equals(ResultValueFactory.from(actual)),
+            fingerprint.matches(actual),
+            expected + " vs " + actual);
+      }
+    }
+  }
+
+  @Test
+  void mapsMatchRegardlessOfIterationOrder() {
+    Map<String, List<Integer>> expected = new LinkedHashMap<>();
+    expected.put("b", List.of(2));
+    expected.put("a", List.of(1));
+
+    ResultFingerprint fingerprint = ResultFingerprint.of(expected);
+
+    assertTrue(fingerprint.matches(new TreeMap<>(expected)));
+    assertEquals(
+        ResultValueFactory.preview(new TreeMap<>(expected), 10).hash(),
+        ResultValueFactory.preview(expected, 10).hash()
+    );
+  }
+
+  @Test
+  void acceptsAnyOrderAmongAnimalsWithTheSameTieKey() {
+    SafariAnimal leo = animal("Leo", 5);
+    SafariAnimal zuri = animal("Zuri", 5);
+    SafariAnimal gigi = animal("Gigi", 7);
+    ResultFingerprint byAge = ResultFingerprint.of(List.of(leo, zuri, gigi), SafariAnimal::age);
+
+    assertTrue(byAge.matches(List.of(zuri, leo, gigi)));
+    assertFalse(byAge.matches(List.of(leo, gigi, zuri)));
+    assertFalse(byAge.matches(List.of(leo, leo, gigi)));
+    assertFalse(ResultFingerprint.of(List.of(leo, zuri, gigi)).matches(List.of(zuri, leo, gigi)));
+
+    ResultFingerprint youngest = ResultFingerprint.of(Map.of("young", leo), SafariAnimal::age);
+    assertTrue(youngest.matches(Map.of("young", zuri)));
+    assertFalse(youngest.matches(Map.of("young", gigi)));
+  }
+
+  private static SafariAnimal animal(String name, int age) {
+    return new SafariAnimal(name, AnimalSpecies.LION, AnimalClass.MAMMAL, age, 100, true);
+  }
+
+  @Test
+  void stopsAtTheFirstMismatch() {
+    List<Integer> actual = new AbstractList<>() {
+      @Override
+      public Integer get(int index) {
+        if (index > 0) {
+          throw new AssertionError("compared past the first mismatch");
+        }
+        return -1;
+      }
+
+      @Override
+      public int size() {
+        return 1_000_000;
+      }
+    };
+    List<Integer> expected = IntStream.range(0, 1_000_000).boxed().toList();
+
+    assertFalse(ResultFingerprint.of(expected).matches(actual));
+  }
+
+  @Test
+  void matchesEveryRiddleAgainstItsOwnExpectedOutput() {
+    for (Riddle riddle : new RiddleRepository().findAll()) {
+      assertTrue(ResultFingerprint.of(riddle.expectedOutput()).matches(riddle.expectedOutput()));
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import mvp.streamy.models.ResultType;
+import mvp.streamy.models.ResultValue;
+import org.junit.jupiter.api.Test;
+
+class ResultValueFactoryTest {
+
+  @Test
+  void previewOfAHugeListKeepsOnlyTheFirstItems() {
+    List<Integer> output = new AbstractList<>() {
+      @Override
+      public Integer get(int index) {
+        return index;
+      }
+
+      @Override
+      public int size() {
+        return 1_000_000;
+      }
+    };
+
+    ResultValue preview = ResultValueFactory.preview(output, 5);
+
+    assertEquals(ResultType.LIST, preview.type());
+    assertEquals(List.of(0, 1, 2, 3, 4), preview.value());
+    assertEquals(1_000_000, preview.size());
+    assertTrue(preview.truncated());
+    assertEquals(Integer.toHexString(new ArrayList<>(output).hashCode()), preview.hash());
+  }
+
+  @Test
+  void nestedItemsCountAgainstTheSameLimit() {
+    Map<String, List<Integer>> output = new LinkedHashMap<>();
+    output.put("small", List.of(1, 2));
+    output.put("large", IntStream.range(0, 100).boxed().toList());
+    output.put("never", List.of(3));
+
+    ResultValue preview = ResultValueFactory.preview(output, 6);
+
+    Map<String, List<Integer>> expected = new LinkedHashMap<>();
+    expected.put("small", List.of(1, 2));
+    expected.put("large", List.of(0, 1));
+    assertEquals(expected, preview.value());
+    assertEquals(3, preview.size());
+    assertTrue(preview.truncated());
+  }
+
+  @Test
+  void smallOutputsAreSentWhole() {
+    List<Integer> output = List.of(3, 1, 2);
+
+    ResultValue preview = ResultValueFactory.preview(output, 10);
+
+    assertEquals(output, preview.value());
+    assertFalse(preview.truncated());
+    assertEquals(ResultValueFactory.preview(List.of(3, 1, 2), 1).hash(), preview.hash());
+    assertEquals(42, ResultValueFactory.preview(42, 10).value());
+  }
+
+  @Test
+  void fromKeepsListsAsTheyAre() {
+    List<Integer> output = List.of(1, 2, 3);
+
+    assertSame(output, ResultValueFactory.from(output).value());
+  }
+}
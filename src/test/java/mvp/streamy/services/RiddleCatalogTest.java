@@ -0,0 +1,89 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.models.Riddle;
+import mvp.streamy.models.RiddleCatalogPageDTO;
+import mvp.streamy.models.RiddleInputPageDTO;
+import mvp.streamy.models.RiddleSummary;
+import mvp.streamy.services.RiddleCatalog.SerializedBody;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+class RiddleCatalogTest {
+
+  private final RiddleRepository riddleRepository = new RiddleRepository();
+  private final RiddleCatalog catalog = new RiddleCatalog(riddleRepository, new JsonMapper());
+
+  @Test
+  void pagesThroughSummariesInIdOrder() {
+    RiddleCatalogPageDTO first = catalog.pageOf(0, 3);
+    RiddleCatalogPageDTO last = catalog.pageOf(2, 3);
+
+    assertEquals(List.of("1", "2", "4"), first.riddles().stream().map(RiddleSummary::id).toList());
+    assertEquals(List.of("8", "9"), last.riddles().stream().map(RiddleSummary::id).toList());
+    assertEquals(riddleRepository.findAll().size(), first.totalRiddles());
+    assertEquals(riddleRepository.findById("1").input().size(), first.riddles().getFirst().inputSize());
+    assertTrue(catalog.pageOf(5, 3).riddles().isEmpty());
+  }
+
+  @Test
+  void servesTheSameBytesWithAStrongETag() {
+    SerializedBody page = catalog.page(0, 20);
+
+    assertSame(page, catalog.page(0, 20));
+    assertSame(catalog.input("1", 0, 1000), catalog.input("1", 0, 1000));
+    assertTrue(page.etag().startsWith("\"") && page.etag().endsWith("\""));
+    assertNotEquals(page.etag(), catalog.page(0, 5).etag());
+  }
+
+  @Test
+  void pagesThroughTheInputAndKeepsOnlyWholeSmallInputs() {
+    Riddle generated = riddleRepository.findById("9");
+    RiddleInputPageDTO second = catalog.inputPageOf(generated, 1, 300);
+
+    assertEquals(generated.input().subList(300, 600), second.elements());
+    assertEquals(generated.input().size(), second.totalElements());
+    assertTrue(catalog.inputPageOf(generated, 4, 300).elements().isEmpty());
+
+    assertNotSame(catalog.input("9", 1, 300), catalog.input("9", 1, 300));
+    assertNotSame(catalog.input("1", 0, 5), catalog.input("1", 0, 5));
+    assertEquals(catalog.input("9", 1, 300).etag(), catalog.input("9", 1, 300).etag());
+  }
+
+  @Test
+  void matchesIfNoneMatch() {
+    SerializedBody body = catalog.summary("1");
+
+    assertTrue(body.matches(body.etag()));
+    assertTrue(body.matches("\"other\", " + body.etag()));
+    assertTrue(body.matches("W/" + body.etag()));
+    assertTrue(body.matches("*"));
+    assertFalse(body.matches("\"other\""));
+    assertFalse(body.matches(null));
+  }
+
+  @Test
+  void rejectsUnknownRiddlesAndOversizedPages() {
+    assertThrows(NoSuchElementException.class, () -> catalog.input("404", 0, 10));
+    assertThrows(IllegalArgumentException.class,
+        () -> catalog.input("1", 0, RiddleCatalog.MAX_INPUT_PAGE_SIZE + 1));
+    assertThrows(IllegalArgumentException.class, () -> catalog.page(0, RiddleCatalog.MAX_PAGE_SIZE + 1));
+    assertThrows(IllegalArgumentException.class, () -> catalog.page(-1, 10));
+  }
+
+  @Test
+  void findAllSharesOneList() {
+    assertSame(riddleRepository.findAll(), riddleRepository.findAll());
+    assertThrows(UnsupportedOperationException.class, () -> riddleRepository.findAll().clear());
+  }
+}
@@ -0,0 +1,36 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.config.EngineProperties;
+import org.junit.jupiter.api.Test;
+
+class StartupWarmUpTest {
+
+  @Test
+  void everyReferencePipelinePassesItsRiddle() {
+    EngineProperties properties = new EngineProperties();
+    RiddleRepository riddleRepository = new RiddleRepository();
+    PipelineCompiler compiler = new PipelineCompiler(properties.getCompiler());
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    StreamGameService streamGameService = new StreamGameService(
+        riddleRepository,
+        new StreamPipelineEngineService(
+            compiler,
+            new PipelineClassDefiner(properties.getCompiler(), meterRegistry)
+        ),
+        new StreamPipelineEngineServiceV2(properties),
+        meterRegistry
+    );
+    StartupWarmUp warmUp = new StartupWarmUp(
+        compiler, streamGameService, riddleRepository, properties, null, meterRegistry
+    );
+
+    assertEquals(0, warmUp.warmUp());
+    assertEquals(riddleRepository.findAll().size(), riddleRepository.referencePipelines().size());
+    assertTrue(meterRegistry.get("streamy.startup.warm-up").gauge().value() > 0);
+  }
+}
@@ -0,0 +1,133 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.DatasetResult;
+import mvp.streamy.models.DatasetResult.Outcome;
+import mvp.streamy.models.ParallelSpeedup;
+import mvp.streamy.models.RiddleResult;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StreamGameServiceTest {
+
+  private final EngineProperties properties = new EngineProperties();
+  private final StreamGameService service = new StreamGameService(
+      new RiddleRepository(),
+      new StreamPipelineEngineService(
+          new PipelineCompiler(properties.getCompiler()),
+          new PipelineClassDefiner(properties.getCompiler(), new SimpleMeterRegistry())
+      ),
+      new StreamPipelineEngineServiceV2(properties),
+      new SimpleMeterRegistry()
+  );
+
+  @Test
+  void correctSolutionPassesEveryHiddenDataset() {
+    RiddleResult result = service.submitAnswer("6", ".filter(SafariAnimal::predator).toList()");
+
+    assertTrue(result.success(), result.message());
+    assertEquals(5, result.datasets().size());
+    assertEquals("visible", result.datasets().getFirst().dataset());
+    for (DatasetResult dataset : result.datasets()) {
+      assertEquals(Outcome.PASSED, dataset.outcome(), dataset.dataset());
+      assertTrue(dataset.cpuTimeMicros() >= 0, dataset.dataset());
+      assertTrue(dataset.allocatedBytes() > 0, dataset.dataset());
+    }
+  }
+
+  @Test
+  void hardCodedAnswerFailsOnHiddenDatasets() {
+    RiddleResult result = service.submitAnswer("5", ".mapToInt(a -> 0).sum() + 14955");
+
+    assertFalse(result.success());
+    assertEquals(Outcome.PASSED, result.datasets().getFirst().outcome());
+    assertTrue(result.datasets().stream().anyMatch(d -> d.outcome() == Outcome.FAILED));
+    assertTrue(result.message().contains("hidden"));
+  }
+
+  @Test
+  void alternativeCorrectAnswersPassDatasetsWithTies() {
+    List<String[]> answers = List.of(
+        new String[] {"1", ".sorted(Comparator.comparing(SafariAnimal::age).thenComparing(SafariAnimal::name)).toList()"},
+        new String[] {"4", ".reduce((a, b) -> a.weight() > b.weight() ? a : b).orElseThrow()"},
+        new String[] {"7", ".collect(Collectors.toMap(SafariAnimal::species, a -> a, (a, b) -> a.weight() > b.weight() ? a : b))"}
+    );
+
+    for (String[] answer : answers) {
+      RiddleResult result = service.submitAnswer(answer[0], answer[1]);
+
+      assertTrue(result.success(), answer[0] + ": " + result.datasets());
+    }
+  }
+
+  @Test
+  void tiesDoNotHideAWrongOrder() {
+    RiddleResult result = service.submitAnswer(
+        "1", ".sorted(Comparator.comparing(SafariAnimal::age).reversed()).toList()");
+
+    assertFalse(result.success());
+  }
+
+  @Test
+  void wrongAnswerIsNotRunOnHiddenDatasets() {
+    RiddleResult result = service.submitAnswer("6", ".filter(a -> !a.predator()).toList()");
+
+    assertFalse(result.success());
+    assertEquals(1, result.datasets().size());
+    assertEquals(Outcome.FAILED, result.datasets().getFirst().outcome());
+  }
+
+  @Test
+  void parallelIsOnlyAllowedForRiddlesThatOptIn() {
+    assertThrows(UnsupportedOperationException.class,
+        () -> service.submitAnswer("6", ".parallel().filter(SafariAnimal::predator).toList()"));
+
+    EngineProperties parallelProperties = new EngineProperties();
+    EngineProperties.RiddleLimits limits = new EngineProperties.RiddleLimits();
+    limits.setParallel(true);
+    limits.setParallelism(2);
+    limits.setSpeedup(true);
+    parallelProperties.getExecution().getRiddles().put("6", limits);
+    parallelProperties.getExecution().setSpeedupSamples(2);
+    StreamPipelineEngineServiceV2 parallelEngine = new StreamPipelineEngineServiceV2(parallelProperties);
+    StreamGameService parallelService = new StreamGameService(
+        new RiddleRepository(),
+        new StreamPipelineEngineService(
+            new PipelineCompiler(parallelProperties.getCompiler()),
+            new PipelineClassDefiner(parallelProperties.getCompiler(), new SimpleMeterRegistry())
+        ),
+        parallelEngine,
+        new SimpleMeterRegistry(),
+        parallelProperties
+    );
+
+    RiddleResult result =
+        parallelService.submitAnswer("6", ".parallel().filter(SafariAnimal::predator).toList()");
+
+    assertTrue(result.success(), result.message());
+    ParallelSpeedup speedup = result.parallel();
+    assertEquals(2, speedup.parallelism());
+    assertTrue(speedup.sequentialMicros() >= 0 && speedup.parallelMicros() >= 0, speedup.toString());
+    assertEquals(
+        (double) Math.max(1, speedup.sequentialMicros()) / Math.max(1, speedup.parallelMicros()),
+        speedup.speedup()
+    );
+    assertEquals(1, parallelEngine.pipelineCache().size(), "the baseline runs the same compiled pipeline");
+    assertNull(parallelService.submitAnswer("6", ".filter(SafariAnimal::predator).toList()").parallel());
+    assertNull(parallelService.submitAnswer("6", ".parallel().filter(a -> !a.predator()).toList()").parallel(),
+        "wrong answers are not timed");
+    assertNull(parallelService
+        .submitAnswerWithoutSpeedup("6", ".parallel().filter(SafariAnimal::predator).toList()")
+        .parallel());
+    assertEquals(2, parallelService.slotsFor("6"));
+    assertEquals(1, service.slotsFor("6"));
+  }
+}
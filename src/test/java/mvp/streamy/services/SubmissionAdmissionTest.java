@@ -0,0 +1,132 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.services.SubmissionAdmission.Ticket;
+import org.junit.jupiter.api.Test;
+
+class SubmissionAdmissionTest {
+
+  private final EngineProperties properties = new EngineProperties();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void servesWaitingClientsInTurn() {
+    properties.getAdmission().setMaxConcurrent(1);
+    SubmissionAdmission admission = new SubmissionAdmission(properties, meterRegistry);
+
+    Ticket running = admission.enqueue("a");
+    Ticket a1 = admission.enqueue("a");
+    Ticket a2 = admission.enqueue("a");
+    Ticket b1 = admission.enqueue("b");
+    assertTrue(running.isAdmitted());
+    assertEquals(3, admission.queued());
+
+    running.close();
+    assertTrue(a1.isAdmitted());
+    a1.close();
+    assertTrue(b1.isAdmitted(), "b waited less, but a already had its turn");
+    assertFalse(a2.isAdmitted());
+    b1.close();
+    assertTrue(a2.isAdmitted());
+    a2.close();
+
+    assertEquals(0, admission.active());
+    assertEquals(0, admission.queued());
+  }
+
+  @Test
+  void weightedTicketsHoldAsManySlotsAndAreNotStarvedByLighterOnes() {
+    properties.getAdmission().setMaxConcurrent(3);
+    SubmissionAdmission admission = new SubmissionAdmission(properties, meterRegistry);
+
+    Ticket light = admission.enqueue("a");
+    Ticket bulk = admission.enqueue("b", 3);
+    Ticket later = admission.enqueue("c");
+    assertFalse(bulk.isAdmitted());
+    assertFalse(later.isAdmitted(), "a free slot is not given past the bulk ticket waiting for three");
+
+    light.close();
+    assertTrue(bulk.isAdmitted());
+    assertEquals(3, admission.active());
+    bulk.close();
+    assertTrue(later.isAdmitted());
+    later.close();
+
+    try (Ticket capped = admission.enqueue("b", 500)) {
+      assertTrue(capped.isAdmitted(), "weights are capped at max-concurrent");
+    }
+    assertEquals(0, admission.active());
+  }
+
+  @Test
+  void cancelledTicketLeavesTheQueueAndFailsItsWait() {
+    properties.getAdmission().setMaxConcurrent(1);
+    SubmissionAdmission admission = new SubmissionAdmission(properties, meterRegistry);
+
+    try (Ticket running = admission.enqueue("a"); Ticket waiting = admission.enqueue("b")) {
+      waiting.cancel();
+
+      assertEquals(0, admission.queued());
+      assertFalse(waiting.isAdmitted());
+      assertThrows(CancellationException.class, waiting::await);
+      running.cancel();
+      assertTrue(running.isAdmitted(), "an admitted ticket keeps its slot");
+    }
+    assertEquals(0, admission.active());
+  }
+
+  @Test
+  void turnsSubmissionsAwayWhenTheQueueIsFull() {
+    properties.getAdmission().setMaxConcurrent(1);
+    properties.getAdmission().setMaxQueued(2);
+    properties.getAdmission().setMaxQueuedPerClient(1);
+    SubmissionAdmission admission = new SubmissionAdmission(properties, meterRegistry);
+
+    admission.enqueue("a");
+    admission.enqueue("a");
+    AdmissionRejectedException perClient =
+        assertThrows(AdmissionRejectedException.class, () -> admission.enqueue("a"));
+    admission.enqueue("b");
+    AdmissionRejectedException full =
+        assertThrows(AdmissionRejectedException.class, () -> admission.enqueue("c"));
+
+    assertEquals("client-limit", perClient.reason());
+    assertEquals("queue-full", full.reason());
+    assertTrue(full.retryAfter().toSeconds() >= 1);
+    assertEquals(1, meterRegistry.get("streamy.admission.rejected").tag("reason", "queue-full").counter().count());
+  }
+
+  @Test
+  void givesUpAfterMaxWaitAndFreesTheQueuePlace() {
+    properties.getAdmission().setMaxConcurrent(1);
+    properties.getAdmission().setMaxWait(Duration.ofMillis(50));
+    SubmissionAdmission admission = new SubmissionAdmission(properties, meterRegistry);
+
+    try (Ticket running = admission.enqueue("a"); Ticket waiting = admission.enqueue("b")) {
+      AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class, waiting::await);
+
+      assertEquals("timeout", e.reason());
+      assertEquals(0, admission.queued());
+      assertEquals(1, meterRegistry.get("streamy.admission.wait").tag("outcome", "timeout").timer().count());
+    }
+    assertEquals(0, admission.active());
+  }
+
+  @Test
+  void recordsTheWaitOfAdmittedSubmissions() {
+    SubmissionAdmission admission = new SubmissionAdmission(properties, meterRegistry);
+
+    assertEquals("done", admission.admit("a", () -> "done"));
+
+    assertEquals(1, meterRegistry.get("streamy.admission.wait").tag("outcome", "admitted").timer().count());
+    assertEquals(0, admission.active());
+  }
+}
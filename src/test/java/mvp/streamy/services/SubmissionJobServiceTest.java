@@ -0,0 +1,134 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import mvp.streamy.Repository.RiddleRepository;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.RiddleResult;
+import mvp.streamy.models.SubmissionEvent;
+import mvp.streamy.models.SubmissionEvent.PartialOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SubmissionJobServiceTest {
+
+  private final EngineProperties properties = new EngineProperties();
+  private final RiddleRepository riddleRepository = new RiddleRepository();
+  private SubmissionJobService service;
+
+  @BeforeEach
+  void setUp() {
+    properties.getSubmissions().setPreviewSize(2);
+    service = new SubmissionJobService(
+        new StreamGameService(
+            riddleRepository,
+            new StreamPipelineEngineService(
+                new PipelineCompiler(properties.getCompiler()),
+                new PipelineClassDefiner(properties.getCompiler(), new SimpleMeterRegistry())
+            ),
+            new StreamPipelineEngineServiceV2(properties),
+            new SimpleMeterRegistry()
+        ),
+        riddleRepository,
+        new SubmissionAdmission(properties, new SimpleMeterRegistry()),
+        properties
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.close();
+  }
+
+  @Test
+  void streamsProgressAndTheResultOfASubmission() throws Exception {
+    SubmissionJob job = service.submit("6", ".filter(SafariAnimal::predator).toList()");
+
+    List<SubmissionEvent> events = awaitEvents(job);
+
+    assertEquals(
+        List.of("compiled", "running", "partial-output", "result"),
+        events.stream().map(SubmissionEvent::name).toList()
+    );
+    PartialOutput preview = (PartialOutput) events.get(2).data();
+    assertEquals(2, ((List<?>) preview.elements()).size());
+    assertEquals(4, preview.size());
+    assertTrue(((RiddleResult) events.get(3).data()).success());
+  }
+
+  @Test
+  void boundsNestedElementsOfThePartialOutput() throws Exception {
+    SubmissionJob job = service.submit(
+        "8", ".collect(Collectors.groupingBy(a -> a.weight() > 500 ? \"heavy\" : \"light\"))");
+
+    List<SubmissionEvent> events = awaitEvents(job);
+
+    PartialOutput preview = (PartialOutput) events.stream()
+        .filter(event -> event.name().equals("partial-output"))
+        .findFirst().orElseThrow().data();
+    Map<?, ?> entries = (Map<?, ?>) preview.elements();
+    int items = entries.size();
+    for (Object value : entries.values()) {
+      items += ((List<?>) value).size();
+    }
+    assertEquals(2, items);
+    assertEquals(2, preview.size());
+  }
+
+  @Test
+  void slowSubscriberDoesNotHoldUpTheSubmission() throws Exception {
+    CountDownLatch slowClient = new CountDownLatch(1);
+    SubmissionJob job = service.submit("6", ".filter(SafariAnimal::predator).toList()");
+    job.subscribe(event -> {
+      try {
+        slowClient.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (!job.finished() && System.nanoTime() < giveUp) {
+      Thread.sleep(10);
+    }
+    assertTrue(job.finished());
+    slowClient.countDown();
+    assertEquals("result", awaitEvents(job).getLast().name());
+  }
+
+  @Test
+  void reportsFailuresAsErrorEvent() throws Exception {
+    SubmissionJob job = service.submit("6", ".filter(SafariAnimal::flying).toList()");
+
+    List<SubmissionEvent> events = awaitEvents(job);
+
+    SubmissionEvent last = events.getLast();
+    assertEquals("error", last.name());
+    assertEquals("IllegalArgumentException", ((SubmissionEvent.Failure) last.data()).exception());
+  }
+
+  @Test
+  void rejectsUnknownRiddlesBeforeAcceptingTheJob() {
+    assertThrows(IllegalArgumentException.class, () -> service.submit("404", ".toList()"));
+  }
+
+  private static List<SubmissionEvent> awaitEvents(SubmissionJob job) throws Exception {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    job.subscribe(event -> {
+      if (event.terminal()) {
+        done.complete(null);
+      }
+    });
+    done.get(30, TimeUnit.SECONDS);
+    return job.events();
+  }
+}
@@ -0,0 +1,53 @@
+package mvp.streamy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import mvp.streamy.Repository.SafariScenarios;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.SafariAnimal;
+import org.junit.jupiter.api.Test;
+
+class TieringPolicyTest {
+
+  private static final String PIPELINE = ".sorted(Comparator.comparing(SafariAnimal::age)).toList()";
+
+  @Test
+  void hotPipelineIsCompiledInTheBackground() throws InterruptedException {
+    EngineProperties properties = new EngineProperties();
+    properties.getInterpreter().setCompileThreshold(2);
+    StreamPipelineEngineServiceV2 engine = new StreamPipelineEngineServiceV2(properties);
+    List<SafariAnimal> animals = SafariScenarios.orderedByAge();
+
+    Object interpreted = engine.execute(animals, PIPELINE, SafariAnimal.class);
+    assertTrue(cached(engine).isInterpreted());
+    engine.execute(animals, PIPELINE, SafariAnimal.class);
+
+    long deadline = System.nanoTime() + 30_000_000_000L;
+    while (cached(engine).isInterpreted() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertFalse(cached(engine).isInterpreted());
+    assertEquals(interpreted, engine.execute(animals, PIPELINE, SafariAnimal.class));
+  }
+
+  @Test
+  void zeroThresholdKeepsPipelinesInterpreted() {
+    EngineProperties properties = new EngineProperties();
+    properties.getInterpreter().setCompileThreshold(0);
+    StreamPipelineEngineServiceV2 engine = new StreamPipelineEngineServiceV2(properties);
+
+    for (int i = 0; i < 10; i++) {
+      engine.execute(SafariScenarios.orderedByAge(), PIPELINE, SafariAnimal.class);
+    }
+    assertTrue(cached(engine).isInterpreted());
+  }
+
+  private static CompiledPipeline cached(StreamPipelineEngineServiceV2 engine) {
+    return engine.pipelineCache().get(
+        PipelineKey.of(PIPELINE, SafariAnimal.class),
+        key -> { throw new AssertionError("pipeline not cached"); });
+  }
+}
@@ -0,0 +1,102 @@
+package mvp.streamy.services.interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import mvp.streamy.Repository.DatasetTier;
+import mvp.streamy.Repository.SafariScenarios;
+import mvp.streamy.config.EngineProperties;
+import mvp.streamy.models.SafariAnimal;
+import mvp.streamy.services.StreamPipelineEngineServiceV2;
+import org.junit.jupiter.api.Test;
+
+class PipelineInterpreterTest {
+
+  private final PipelineInterpreter interpreter = new PipelineInterpreter();
+
+  private static final List<String> INTERPRETABLE = List.of(
+      ".sorted(Comparator.comparing(SafariAnimal::age)).toList()",
+      ".sorted().toList()",
+      ".sorted(SafariAnimal.BY_WEIGHT.reversed()).toList()",
+      ".sorted(Comparator.comparing(SafariAnimal::species).thenComparing(SafariAnimal::name)).toList()",
+      ".distinct().toList()",
+      ".max(Comparator.comparing(SafariAnimal::weight)).orElseThrow()",
+      ".min(Comparator.comparingInt(SafariAnimal::age)).get()",
+      ".mapToInt(SafariAnimal::weight).sum()",
+      ".mapToInt(a -> a.weight() / 10).max().getAsInt()",
+      ".mapToInt(SafariAnimal::age).average().orElseThrow()",
+      ".filter(SafariAnimal::predator).toList()",
+      ".filter(a -> !a.predator() && a.age() >= 10).count()",
+      ".map(a -> a.name().toUpperCase()).toList()",
+      ".map(SafariAnimal::name).map(String::toLowerCase).sorted().limit(3).toList()",
+      ".map(a -> a.name() + \" (\" + a.age() + \")\").skip(2).toList()",
+      ".collect(Collectors.toList())",
+      ".collect(Collectors.groupingBy(SafariAnimal::species))",
+      ".collect(Collectors.groupingBy(SafariAnimal::species, Collectors.counting()))",
+      ".collect(Collectors.partitioningBy(a -> a.weight() > 500, Collectors.summingInt(SafariAnimal::weight)))",
+      """
+          .collect(
+              Collectors.groupingBy(
+                  SafariAnimal::species,
+                  Collectors.collectingAndThen(
+                      Collectors.maxBy(Comparator.comparing(SafariAnimal::weight)),
+                      Optional::get
+                  )
+              )
+          )
+          """
+  );
+
+  @Test
+  void interpretsCommonPipelinesLikeTheCompiledProgram() {
+    EngineProperties compileOnly = new EngineProperties();
+    compileOnly.getInterpreter().setEnabled(false);
+    StreamPipelineEngineServiceV2 javac = new StreamPipelineEngineServiceV2(compileOnly);
+
+    for (String pipeline : INTERPRETABLE) {
+      Optional<InterpretedPipeline> interpreted = interpreter.parse(pipeline, SafariAnimal.class);
+      assertTrue(interpreted.isPresent(), "not interpretable: " + pipeline);
+
+      Object expected = javac.execute(SafariScenarios.BASE_ANIMALS, pipeline, SafariAnimal.class);
+      assertEquals(expected, interpreted.get().run(SafariScenarios.BASE_ANIMALS), pipeline);
+    }
+  }
+
+  @Test
+  void readsIntColumnsOfColumnarDatasets() {
+    List<SafariAnimal> columnar = SafariScenarios.generated(DatasetTier.THOUSAND);
+    List<SafariAnimal> records = new ArrayList<>(columnar);
+
+    for (String pipeline : List.of(
+        ".mapToInt(SafariAnimal::weight).sum()",
+        ".mapToInt(SafariAnimal::age).filter(age -> age > 10).count()",
+        ".filter(SafariAnimal::predator).mapToInt(SafariAnimal::weight).max().getAsInt()")) {
+      InterpretedPipeline interpreted = interpreter.parse(pipeline, SafariAnimal.class).orElseThrow();
+      assertEquals(interpreted.run(records), interpreted.run(columnar), pipeline);
+    }
+  }
+
+  @Test
+  void leavesEverythingElseToJavac() {
+    List<String> unsupported = List.of(
+        ".collect(Collectors.groupingBy(a -> { return a.weight() > 200 ? \"heavy\" : \"light\"; }))",
+        ".map(a -> a.name() == \"Leo the Lion\").toList()",
+        ".filter(a -> a.size() > 2).toList()",
+        ".filter(SafariAnimal::age).toList()",
+        ".map(input -> input.age()).toList()",
+        ".map(AnimalSpecies::name).toList()",
+        ".mapToInt(SafariAnimal::weight).sum();",
+        ".filter(a -> a.age() > 2147483648).count()",
+        ".sorted(Comparator.comparing(a -> a.age()).reversed()).toList()",
+        ".filter(SafariAnimal::predator)"
+    );
+
+    for (String pipeline : unsupported) {
+      assertTrue(interpreter.parse(pipeline, SafariAnimal.class).isEmpty(), pipeline);
+    }
+    assertTrue(interpreter.parse(".sorted().toList()", Integer.class).isEmpty());
+  }
+}
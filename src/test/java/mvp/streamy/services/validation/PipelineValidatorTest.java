@@ -0,0 +1,101 @@
+package mvp.streamy.services.validation;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import mvp.streamy.models.SafariAnimal;
+import org.junit.jupiter.api.Test;
+
+class PipelineValidatorTest {
+
+  private final PipelineValidator validator = new PipelineValidator();
+
+  @Test
+  void acceptsPipelinesTheBlacklistRejected() {
+    List<String> pipelines = List.of(
+        ".sorted(Comparator.comparing(SafariAnimal::order)).toList()",
+        ".map(a -> a.name()).toList()",
+        ".filter(a -> a.name().startsWith(\"Do\")).map(a -> String.format(\"%s\", a.name())).toList()",
+        ".collect(Collectors.groupingBy(a -> { return a.weight() > 200 ? \"heavy\" : \"light\"; }))",
+        ".collect(Collectors.toMap(SafariAnimal::name, a -> a.weight(), Integer::sum))",
+        ".collect(Collectors.toCollection(java.util.TreeSet::new))",
+        ".map(SafariAnimal::name).toArray(String[]::new).length",
+        ".mapToInt(SafariAnimal::age).mapToObj(age -> (double) age / 2).toList()",
+        ".sorted(Comparator.<SafariAnimal, Integer>comparing(a -> a.age()).reversed()).toList()",
+        ".mapToInt(a -> a.weight() >> 1 | a.age() << 2).sum()",
+        ".filter(a -> { final int limit = 10; var old = a.age() >= limit; if (old) { return true; } else return false; })"
+            + ".count() + 14955",
+        ".flatMap(x -> java.util.stream.Stream.generate(() -> 1)).count()"
+    );
+
+    for (String pipeline : pipelines) {
+      assertDoesNotThrow(() -> validator.validate(pipeline, SafariAnimal.class), pipeline);
+    }
+  }
+
+  @Test
+  void rejectsForbiddenConstructs() {
+    List<String> pipelines = List.of(
+        ".peek(System.out::println)",
+        ".parallel().count()",
+        ".map(a -> System.exit(0))",
+        ".map(a -> java.lang.Runtime.getRuntime())",
+        ".map(a -> java.util.concurrent.Executors.newCachedThreadPool())",
+        ".map(a -> new Thread())",
+        ".map(a -> a.getClass())",
+        ".map(String.class::cast)",
+        ".map(a -> { while (true) {} })",
+        ".map(System -> 1).map(a -> System.exit(0))",
+        ".map(a -> \\u0053ystem.exit(0))",
+        ".map(a -> java.util.stream.StreamSupport.stream(java.util.List.of(a).spliterator(), true).count())",
+        ".map(a -> StreamSupport.intStream(a.name().chars().spliterator(), true).sum())",
+        ".map(a -> { char[] x = a.name().toCharArray(); java.util.Arrays.parallelSort(x); return x; })",
+        ".map(a -> java.util.List.of(a).parallelStream().count())",
+        ".map(a -> a.species().getDeclaringClass().getClassLoader().getResource(\"x\"))",
+        ".map(a -> a.species().getDeclaringClass())",
+        ".map(a -> a.species().getModule())"
+    );
+
+    for (String pipeline : pipelines) {
+      UnsupportedOperationException e = assertThrows(UnsupportedOperationException.class,
+          () -> validator.validate(pipeline, SafariAnimal.class), pipeline);
+      assertTrue(e.getMessage().startsWith("Forbidden construct detected"), e.getMessage());
+    }
+  }
+
+  @Test
+  void allowsOnlyParallelWhenTheRiddleRunsOnItsOwnPool() {
+    assertDoesNotThrow(() -> validator.validate(".parallel().count()", SafariAnimal.class, true));
+    assertDoesNotThrow(() -> validator.validate(
+        ".map(a -> List.of(a.age()).stream().parallel().count()).toList()", SafariAnimal.class, true));
+
+    assertThrows(UnsupportedOperationException.class,
+        () -> validator.validate(".parallel().peek(System.out::println).count()", SafariAnimal.class, true));
+    assertThrows(UnsupportedOperationException.class,
+        () -> validator.validate(".map(a -> List.of(a).parallelStream().count()).toList()", SafariAnimal.class, true));
+    assertThrows(UnsupportedOperationException.class, () -> validator.validate(
+        ".map(a -> java.util.stream.StreamSupport.stream(List.of(a).spliterator(), true).count()).toList()",
+        SafariAnimal.class, true));
+  }
+
+  @Test
+  void rejectsSyntaxErrorsAsInvalidArguments() {
+    List<String> pipelines = List.of(
+        "count()",
+        ".count();",
+        ".count(); } static { System.exit(0); } Object x() { return null",
+        ".map(a -> ).toList()",
+        ".map(a -> a.name(.toList()",
+        ".map(a -> b.name()).toList()",
+        ".map(a -> \"unterminated).toList()",
+        ".map(a -> " + "(".repeat(10_000) + "a" + ")".repeat(10_000) + ")"
+    );
+
+    for (String pipeline : pipelines) {
+      assertThrows(IllegalArgumentException.class,
+          () -> validator.validate(pipeline, SafariAnimal.class), pipeline);
+    }
+  }
+}
@@ -0,0 +1,24 @@
+import type { Riddle, RiddleCatalogPage, RiddleInputPage, RiddleSummary } from '$lib/types';
+
+const API = 'http://localhost:8080/api/stream';
+
+// Catalog responses carry ETags, the browser revalidates them and gets a 304 when unchanged
+
+export async function fetchRiddleCatalog(page = 0, size = 100): Promise<RiddleCatalogPage> {
+  const response = await fetch(`${API}/riddles?page=${page}&size=${size}`);
+  if (!response.ok) throw new Error('Failed to fetch riddles');
+  return response.json();
+}
+
+export async function fetchRiddle(id: string): Promise<Riddle> {
+  const [summaryResponse, inputResponse] = await Promise.all([
+    fetch(`${API}/riddles/${encodeURIComponent(id)}`),
+    fetch(`${API}/riddles/${encodeURIComponent(id)}/input?page=0&size=1000`)
+  ]);
+  if (summaryResponse.status === 404) throw new Error('Riddle not found');
+  if (!summaryResponse.ok || !inputResponse.ok) throw new Error('Failed to fetch riddle');
+
+  const summary: RiddleSummary = await summaryResponse.json();
+  const input: RiddleInputPage = await inputResponse.json();
+  return { id: summary.id, description: summary.description, dataType: summary.dataType, input: input.elements };
+}
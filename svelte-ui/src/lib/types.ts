@@ -13,7 +13,28 @@ export interface Riddle {
     description: string;
     dataType: string;
     input:  SafariAnimal[];
-    expectedOutput: any;
+}
+
+export interface RiddleSummary {
+  id: string;
+  description: string;
+  dataType: string;
+  inputSize: number;
+}
+
+export interface RiddleCatalogPage {
+  riddles: RiddleSummary[];
+  page: number;
+  size: number;
+  totalRiddles: number;
+}
+
+// Inputs are paged too; the editor shows the first page
+export interface RiddleInputPage {
+  elements: SafariAnimal[];
+  page: number;
+  size: number;
+  totalElements: number;
 }
 export type AnimalSpecies = 'LION' | 'ELEPHANT' | 'GIRAFFE' | 'ZEBRA' | 'HYENA' | 'CROCODILE' | 'SNAKE' | 'LIZARD';
 
@@ -25,10 +46,29 @@ export interface RiddleResult {
   success: boolean;
   result: {
     type: ResultType;
-    value: any; // This will hold the actual data
+    value: any; // This will hold the actual data, cut down to a preview for large outputs
+    size?: number;
+    truncated?: boolean;
+    hash?: string;
   };
   message: string;
   exception?: string;
+  parallel?: ParallelSpeedup;
+}
+
+// Only for riddles that allow .parallel(): the pipeline on its pool against a single worker
+export interface ParallelSpeedup {
+  parallelism: number;
+  sequentialMicros: number;
+  parallelMicros: number;
+  speedup: number;
+}
+
+export interface PipelineDiagnostic {
+  severity: 'ERROR' | 'WARNING';
+  message: string;
+  start: number;
+  end: number;
 }
 
 export interface StorySlide {